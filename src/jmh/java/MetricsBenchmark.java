@@ -0,0 +1,40 @@
+package jmh.java;
+
+import main.java.BLEMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one recorded event, single-threaded and with concurrent senders
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+    private final BLEMetrics metrics = new BLEMetrics();
+
+    @Benchmark
+    public void recordNotify() {
+        metrics.recordNotify(200, 1_500, true);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordNotifyContended() {
+        metrics.recordNotify(200, 1_500, true);
+    }
+}
@@ -0,0 +1,59 @@
+package jmh.java;
+
+import main.java.BLEServer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * BLEServer whose native methods do nothing, so that benchmarks measure
+ * the Java send path only (same approach as FakeBLEServer in the tests)
+ */
+public class NoopBLEServer extends BLEServer {
+
+    // Empêche le JIT d'éliminer les appels comme du code mort
+    public long notifiedBytes;
+
+    @Override
+    protected void loadNativeLibrary() {
+        // no-op
+    }
+
+    @Override
+    protected int nativeStartServer(String serviceUuid, String charUuid) {
+        return 0;
+    }
+
+    @Override
+    protected void nativeStopServer() {
+        // no-op
+    }
+
+    @Override
+    protected int nativeNotify(byte[] data) {
+        notifiedBytes += data.length;
+        return 0;
+    }
+
+    @Override
+    protected int nativeNotifyDirect(ByteBuffer buffer, int offset, int length) {
+        notifiedBytes += length;
+        return 0;
+    }
+
+    @Override
+    protected int nativeNotifyBatch(byte[] payload, int offset, int length, int chunkSize) {
+        notifiedBytes += length;
+        return (length + chunkSize - 1) / chunkSize;
+    }
+
+    @Override
+    protected int nativeNotifyRange(byte[] data, int offset, int length) {
+        notifiedBytes += length;
+        return 0;
+    }
+
+    @Override
+    protected int nativeGetMtu() {
+        return 0;
+    }
+}
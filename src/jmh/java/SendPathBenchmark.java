@@ -0,0 +1,101 @@
+package jmh.java;
+
+import main.java.PacingStrategy;
+import main.java.VitalBLE;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Java send path against a no-op native layer, pacing disabled
+ * Run with: mvn -P benchmarks test-compile exec:exec
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+public class SendPathBenchmark {
+
+    @Param({"20", "200", "4096", "81920", "1048576"})
+    public int payloadSize;
+
+    private NoopBLEServer server;
+    private String text;
+    private byte[] bytes;
+    private ByteBuffer direct;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        server = new NoopBLEServer();
+        server.setPacingStrategy(PacingStrategy.none());
+
+        // JSON ASCII typique des constantes vitales
+        char[] chars = new char[payloadSize];
+        Arrays.fill(chars, 'a');
+        text = new String(chars);
+        bytes = text.getBytes(StandardCharsets.UTF_8);
+        direct = ByteBuffer.allocateDirect(payloadSize);
+        direct.put(bytes).flip();
+
+        VitalBLE.reset();
+        VitalBLE.setServer(server);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        VitalBLE.reset();
+    }
+
+    /** Full String path: UTF-8 encoding, chunking and notify */
+    @Benchmark
+    public boolean sendData() {
+        return server.sendData(text);
+    }
+
+    /** UTF-8 encoding alone */
+    @Benchmark
+    public byte[] encodeUtf8() {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Chunking and notify without encoding */
+    @Benchmark
+    public boolean sendBytes() {
+        return server.sendBytes(bytes, 0, bytes.length);
+    }
+
+    /** Chunking of a direct buffer read in place by the native layer */
+    @Benchmark
+    public boolean sendBuffer() {
+        return server.sendBuffer(direct);
+    }
+
+    /** Static facade dispatch on top of sendData */
+    @Benchmark
+    public boolean vitalBleSend() {
+        return VitalBLE.send(text);
+    }
+
+    /** One chunk through notify, the per-chunk overhead paid by every path above */
+    @Benchmark
+    public int notifyChunk() {
+        return server.notify(bytes, 0, Math.min(bytes.length, server.getChunkSize()));
+    }
+}
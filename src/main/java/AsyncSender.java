@@ -0,0 +1,179 @@
+package main.java;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Bounded send queue drained by a dedicated transmit thread
+ * Slots are preallocated in a ring buffer: producers only pay for the enqueue,
+ * encoding, chunking and pacing happen on the transmit thread.
+ */
+public final class AsyncSender {
+
+    private final BooleanSupplier[] tasks;
+    private final CompletableFuture<Boolean>[] futures;
+    private final OverflowPolicy overflowPolicy;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    // Protégés par lock
+    private int head;
+    private int tail;
+    private int count;
+    private boolean running = true;
+
+    private final Thread transmitThread;
+
+    /**
+     * Create the queue and start its transmit thread
+     * @param capacity Number of preallocated slots
+     * @param overflowPolicy Behaviour when every slot is taken
+     * @param threadName Name of the transmit thread
+     */
+    @SuppressWarnings("unchecked")
+    public AsyncSender(int capacity, OverflowPolicy overflowPolicy, String threadName) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.overflowPolicy = Objects.requireNonNull(overflowPolicy, "overflowPolicy");
+        this.tasks = new BooleanSupplier[capacity];
+        this.futures = (CompletableFuture<Boolean>[]) new CompletableFuture<?>[capacity];
+        this.transmitThread = new Thread(this::drain, threadName);
+        this.transmitThread.setDaemon(true);
+        this.transmitThread.start();
+    }
+
+    /**
+     * Queue a send task
+     * @param task Send to run on the transmit thread, returning true on success
+     * @return Future completed with the task result, false if the task was dropped
+     */
+    public CompletableFuture<Boolean> submit(BooleanSupplier task) {
+        Objects.requireNonNull(task, "task");
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        lock.lock();
+        try {
+            while (running && count == tasks.length) {
+                if (overflowPolicy == OverflowPolicy.FAIL_FAST) {
+                    future.completeExceptionally(new RejectedExecutionException("Send queue full (" + tasks.length + ")"));
+                    return future;
+                }
+                if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+                    takeHead().complete(false);
+                    break;
+                }
+                try {
+                    notFull.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    future.completeExceptionally(e);
+                    return future;
+                }
+            }
+            if (!running) {
+                future.completeExceptionally(new RejectedExecutionException("Sender is shut down"));
+                return future;
+            }
+            tasks[tail] = task;
+            futures[tail] = future;
+            tail = (tail + 1) % tasks.length;
+            count++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        return future;
+    }
+
+    /**
+     * @return Number of tasks waiting for the transmit thread
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int capacity() {
+        return tasks.length;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Stop the transmit thread. Queued tasks complete with false and an
+     * in-flight task is interrupted.
+     */
+    public void shutdown() {
+        lock.lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+            while (count > 0) {
+                takeHead().complete(false);
+            }
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        transmitThread.interrupt();
+        if (Thread.currentThread() != transmitThread) {
+            try {
+                transmitThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Retire la tâche en tête ; la tâche associée est libérée pour le GC
+    private CompletableFuture<Boolean> takeHead() {
+        CompletableFuture<Boolean> future = futures[head];
+        tasks[head] = null;
+        futures[head] = null;
+        head = (head + 1) % tasks.length;
+        count--;
+        notFull.signal();
+        return future;
+    }
+
+    private void drain() {
+        while (true) {
+            BooleanSupplier task;
+            CompletableFuture<Boolean> future;
+            lock.lock();
+            try {
+                while (running && count == 0) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                if (!running) {
+                    return;
+                }
+                task = tasks[head];
+                future = takeHead();
+            } finally {
+                lock.unlock();
+            }
+            try {
+                future.complete(task.getAsBoolean());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }
+    }
+}
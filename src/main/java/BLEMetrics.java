@@ -0,0 +1,387 @@
+package main.java;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Send path metrics collected by BLEServer
+ * Counters are striped LongAdders and latencies go to {@link LatencyHistogram}s:
+ * recording never locks nor allocates.
+ */
+public final class BLEMetrics implements BLEMetricsMXBean {
+
+    /** JMX name used by {@link #registerMBean()} */
+    public static final String OBJECT_NAME = "com.vital.ble:type=BLEMetrics";
+
+    // Messages : payload applicatif, avant compression et découpage
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder messageFailures = new LongAdder();
+    private final LongAdder payloadBytes = new LongAdder();
+
+    // Notifications : chunks tels que transmis à la couche native
+    // (les notifications unitaires sont comptées par l'histogramme, seuls les lots ont leur compteur)
+    private final LongAdder batchNotifyCount = new LongAdder();
+    private final LongAdder notifyFailures = new LongAdder();
+    private final LongAdder wireBytes = new LongAdder();
+
+    private final LatencyHistogram notifyLatency = new LatencyHistogram();
+    private final LatencyHistogram sendLatency = new LatencyHistogram();
+
+    // Voies de priorité (PrioritySender), indexées par Priority.ordinal()
+    private final LatencyHistogram[] laneLatency = new LatencyHistogram[Priority.values().length];
+    private final LongAdder[] laneBudgetMisses = new LongAdder[Priority.values().length];
+
+    private volatile long startNanos = System.nanoTime();
+
+    public BLEMetrics() {
+        for (int i = 0; i < laneLatency.length; i++) {
+            laneLatency[i] = new LatencyHistogram();
+            laneBudgetMisses[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record one chunk handed to the native layer
+     * @param bytes Chunk length
+     * @param nanos Time spent in notify
+     * @param success false if the native layer reported an error
+     */
+    public void recordNotify(int bytes, long nanos, boolean success) {
+        if (success) {
+            wireBytes.add(bytes);
+        } else {
+            notifyFailures.increment();
+        }
+        notifyLatency.record(nanos);
+    }
+
+    /**
+     * Record chunks sent in a single native call (batch notify)
+     * @param chunks Chunks attempted
+     * @param failedChunks Chunks not sent
+     * @param bytes Bytes sent
+     */
+    public void recordNotifyBatch(int chunks, int failedChunks, int bytes) {
+        batchNotifyCount.add(chunks);
+        notifyFailures.add(failedChunks);
+        wireBytes.add(bytes);
+    }
+
+    /**
+     * Record one message, from the send call to its last chunk
+     * @param bytes Payload length
+     * @param nanos Total send time, pacing included
+     * @param success Result returned to the caller
+     */
+    public void recordMessage(int bytes, long nanos, boolean success) {
+        if (success) {
+            messagesSent.increment();
+            payloadBytes.add(bytes);
+        } else {
+            messageFailures.increment();
+        }
+        sendLatency.record(nanos);
+    }
+
+    /**
+     * Record one message sent through a priority lane
+     * @param priority Lane of the message
+     * @param nanos Time from submission to the last chunk, queueing included
+     * @param budgetNanos Latency budget of the lane, exceeding it counts as a miss
+     */
+    public void recordLane(Priority priority, long nanos, long budgetNanos) {
+        laneLatency[priority.ordinal()].record(nanos);
+        if (nanos > budgetNanos) {
+            laneBudgetMisses[priority.ordinal()].increment();
+        }
+    }
+
+    public LatencyHistogram getLaneLatency(Priority priority) {
+        return laneLatency[priority.ordinal()];
+    }
+
+    /**
+     * @return Messages of this lane that exceeded their latency budget
+     */
+    public long getLaneBudgetMisses(Priority priority) {
+        return laneBudgetMisses[priority.ordinal()].sum();
+    }
+
+    public LatencyHistogram getNotifyLatency() {
+        return notifyLatency;
+    }
+
+    public LatencyHistogram getSendLatency() {
+        return sendLatency;
+    }
+
+    @Override
+    public long getMessagesSent() {
+        return messagesSent.sum();
+    }
+
+    @Override
+    public long getMessageFailures() {
+        return messageFailures.sum();
+    }
+
+    @Override
+    public long getPayloadBytes() {
+        return payloadBytes.sum();
+    }
+
+    @Override
+    public long getNotifyCount() {
+        return notifyLatency.getCount() + batchNotifyCount.sum();
+    }
+
+    @Override
+    public long getNotifyFailures() {
+        return notifyFailures.sum();
+    }
+
+    @Override
+    public long getWireBytes() {
+        return wireBytes.sum();
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        long elapsed = System.nanoTime() - startNanos;
+        return elapsed <= 0 ? 0 : wireBytes.sum() * 1e9 / elapsed;
+    }
+
+    @Override
+    public double getFailureRate() {
+        long count = getNotifyCount();
+        return count == 0 ? 0 : (double) notifyFailures.sum() / count;
+    }
+
+    @Override
+    public long getNotifyLatencyP50Nanos() {
+        return notifyLatency.valueAtPercentile(50);
+    }
+
+    @Override
+    public long getNotifyLatencyP99Nanos() {
+        return notifyLatency.valueAtPercentile(99);
+    }
+
+    @Override
+    public long getNotifyLatencyMaxNanos() {
+        return notifyLatency.getMax();
+    }
+
+    @Override
+    public long getSendLatencyP50Nanos() {
+        return sendLatency.valueAtPercentile(50);
+    }
+
+    @Override
+    public long getSendLatencyP99Nanos() {
+        return sendLatency.valueAtPercentile(99);
+    }
+
+    @Override
+    public long getSendLatencyMaxNanos() {
+        return sendLatency.getMax();
+    }
+
+    @Override
+    public long getAlarmLatencyP99Nanos() {
+        return laneLatency[Priority.ALARM.ordinal()].valueAtPercentile(99);
+    }
+
+    @Override
+    public long getAlarmBudgetMisses() {
+        return getLaneBudgetMisses(Priority.ALARM);
+    }
+
+    @Override
+    public long getVitalsLatencyP99Nanos() {
+        return laneLatency[Priority.VITALS.ordinal()].valueAtPercentile(99);
+    }
+
+    @Override
+    public long getVitalsBudgetMisses() {
+        return getLaneBudgetMisses(Priority.VITALS);
+    }
+
+    @Override
+    public long getBulkLatencyP99Nanos() {
+        return laneLatency[Priority.BULK.ordinal()].valueAtPercentile(99);
+    }
+
+    @Override
+    public long getBulkBudgetMisses() {
+        return getLaneBudgetMisses(Priority.BULK);
+    }
+
+    @Override
+    public void reset() {
+        messagesSent.reset();
+        messageFailures.reset();
+        payloadBytes.reset();
+        batchNotifyCount.reset();
+        notifyFailures.reset();
+        wireBytes.reset();
+        notifyLatency.reset();
+        sendLatency.reset();
+        for (int i = 0; i < laneLatency.length; i++) {
+            laneLatency[i].reset();
+            laneBudgetMisses[i].reset();
+        }
+        startNanos = System.nanoTime();
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    /**
+     * Register on the platform MBean server as {@link #OBJECT_NAME},
+     * replacing any previously registered instance
+     * @return false if JMX refused the registration
+     */
+    public boolean registerMBean() {
+        try {
+            MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (mbeanServer.isRegistered(name)) {
+                mbeanServer.unregisterMBean(name);
+            }
+            mbeanServer.registerMBean(this, name);
+            return true;
+        } catch (JMException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Point-in-time copy of the metrics
+     */
+    public static final class Snapshot {
+        private final long messagesSent;
+        private final long messageFailures;
+        private final long payloadBytes;
+        private final long notifyCount;
+        private final long notifyFailures;
+        private final long wireBytes;
+        private final double bytesPerSecond;
+        private final double failureRate;
+        private final long notifyLatencyP50Nanos;
+        private final long notifyLatencyP99Nanos;
+        private final long notifyLatencyMaxNanos;
+        private final long sendLatencyP50Nanos;
+        private final long sendLatencyP99Nanos;
+        private final long sendLatencyMaxNanos;
+        private final long[] laneLatencyP99Nanos;
+        private final long[] laneBudgetMisses;
+
+        private Snapshot(BLEMetrics metrics) {
+            this.messagesSent = metrics.getMessagesSent();
+            this.messageFailures = metrics.getMessageFailures();
+            this.payloadBytes = metrics.getPayloadBytes();
+            this.notifyCount = metrics.getNotifyCount();
+            this.notifyFailures = metrics.getNotifyFailures();
+            this.wireBytes = metrics.getWireBytes();
+            this.bytesPerSecond = metrics.getBytesPerSecond();
+            this.failureRate = metrics.getFailureRate();
+            this.notifyLatencyP50Nanos = metrics.getNotifyLatencyP50Nanos();
+            this.notifyLatencyP99Nanos = metrics.getNotifyLatencyP99Nanos();
+            this.notifyLatencyMaxNanos = metrics.getNotifyLatencyMaxNanos();
+            this.sendLatencyP50Nanos = metrics.getSendLatencyP50Nanos();
+            this.sendLatencyP99Nanos = metrics.getSendLatencyP99Nanos();
+            this.sendLatencyMaxNanos = metrics.getSendLatencyMaxNanos();
+            this.laneLatencyP99Nanos = new long[metrics.laneLatency.length];
+            this.laneBudgetMisses = new long[metrics.laneLatency.length];
+            for (int i = 0; i < laneLatencyP99Nanos.length; i++) {
+                laneLatencyP99Nanos[i] = metrics.laneLatency[i].valueAtPercentile(99);
+                laneBudgetMisses[i] = metrics.laneBudgetMisses[i].sum();
+            }
+        }
+
+        public long getMessagesSent() {
+            return messagesSent;
+        }
+
+        public long getMessageFailures() {
+            return messageFailures;
+        }
+
+        public long getPayloadBytes() {
+            return payloadBytes;
+        }
+
+        public long getNotifyCount() {
+            return notifyCount;
+        }
+
+        public long getNotifyFailures() {
+            return notifyFailures;
+        }
+
+        public long getWireBytes() {
+            return wireBytes;
+        }
+
+        public double getBytesPerSecond() {
+            return bytesPerSecond;
+        }
+
+        public double getFailureRate() {
+            return failureRate;
+        }
+
+        public long getNotifyLatencyP50Nanos() {
+            return notifyLatencyP50Nanos;
+        }
+
+        public long getNotifyLatencyP99Nanos() {
+            return notifyLatencyP99Nanos;
+        }
+
+        public long getNotifyLatencyMaxNanos() {
+            return notifyLatencyMaxNanos;
+        }
+
+        public long getSendLatencyP50Nanos() {
+            return sendLatencyP50Nanos;
+        }
+
+        public long getSendLatencyP99Nanos() {
+            return sendLatencyP99Nanos;
+        }
+
+        public long getSendLatencyMaxNanos() {
+            return sendLatencyMaxNanos;
+        }
+
+        public long getLaneLatencyP99Nanos(Priority priority) {
+            return laneLatencyP99Nanos[priority.ordinal()];
+        }
+
+        public long getLaneBudgetMisses(Priority priority) {
+            return laneBudgetMisses[priority.ordinal()];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Messages: %d sent, %d failed (%d bytes)\n"
+                    + "Notifies: %d, %d failed (%d bytes, %.0f B/s, failure rate %.4f)\n"
+                    + "Notify latency: p50 %d ns, p99 %d ns, max %d ns\n"
+                    + "Send latency: p50 %d ns, p99 %d ns, max %d ns\n"
+                    + "Lane latency p99: alarm %d ns (%d over budget), vitals %d ns (%d), bulk %d ns (%d)",
+                    messagesSent, messageFailures, payloadBytes,
+                    notifyCount, notifyFailures, wireBytes, bytesPerSecond, failureRate,
+                    notifyLatencyP50Nanos, notifyLatencyP99Nanos, notifyLatencyMaxNanos,
+                    sendLatencyP50Nanos, sendLatencyP99Nanos, sendLatencyMaxNanos,
+                    getLaneLatencyP99Nanos(Priority.ALARM), getLaneBudgetMisses(Priority.ALARM),
+                    getLaneLatencyP99Nanos(Priority.VITALS), getLaneBudgetMisses(Priority.VITALS),
+                    getLaneLatencyP99Nanos(Priority.BULK), getLaneBudgetMisses(Priority.BULK));
+        }
+    }
+}
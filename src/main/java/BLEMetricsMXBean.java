@@ -0,0 +1,52 @@
+package main.java;
+
+/**
+ * JMX view of {@link BLEMetrics}, registered as {@value BLEMetrics#OBJECT_NAME}
+ */
+public interface BLEMetricsMXBean {
+
+    long getMessagesSent();
+
+    long getMessageFailures();
+
+    long getPayloadBytes();
+
+    long getNotifyCount();
+
+    long getNotifyFailures();
+
+    long getWireBytes();
+
+    /** Notified bytes per second since creation or last reset */
+    double getBytesPerSecond();
+
+    /** Failed notifies over all notifies, 0 when nothing was sent */
+    double getFailureRate();
+
+    long getNotifyLatencyP50Nanos();
+
+    long getNotifyLatencyP99Nanos();
+
+    long getNotifyLatencyMaxNanos();
+
+    long getSendLatencyP50Nanos();
+
+    long getSendLatencyP99Nanos();
+
+    long getSendLatencyMaxNanos();
+
+    /** Submission to last chunk, priority lanes only */
+    long getAlarmLatencyP99Nanos();
+
+    long getAlarmBudgetMisses();
+
+    long getVitalsLatencyP99Nanos();
+
+    long getVitalsBudgetMisses();
+
+    long getBulkLatencyP99Nanos();
+
+    long getBulkBudgetMisses();
+
+    void reset();
+}
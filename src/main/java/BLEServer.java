@@ -1,7 +1,17 @@
 package main.java;
 
 import java.io.*;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * BLE Server - Interface native pour Windows BLE
@@ -9,11 +19,64 @@ import java.nio.file.*;
  */
 public class BLEServer implements BLEServerInterface {
     
-    static {
-        new BLEServer().loadNativeLibrarySafe();
-    }
+    /** Chunk size used while the ATT MTU is unknown */
+    public static final int DEFAULT_CHUNK_SIZE = 200;
+    /** Largest notification payload: the 512-byte ATT attribute value limit */
+    public static final int MAX_CHUNK_SIZE = 512;
+    
+    // En-tête ATT d'une notification : opcode (1) + handle (2)
+    private static final int ATT_NOTIFY_HEADER = 3;
+    private static final int MIN_ATT_MTU = 23;
+    private static final int MAX_ATT_MTU = 517;
+    
+    // MTU négocié par le central (0 = inconnu) et taille imposée par l'application (0 = automatique)
+    private volatile int negotiatedMtu = 0;
+    private volatile int chunkSizeOverride = 0;
+    private volatile boolean mtuQuerySupported = true;
+    
+    // Passe à false si la bibliothèque native ne fournit pas nativeNotifyDirect (ancienne DLL)
+    private volatile boolean directNotifySupported = true;
+    private volatile boolean batchNotifySupported = true;
+    private volatile boolean rangeNotifySupported = true;
+    private volatile boolean subscriberNotifySupported = true;
+    private volatile boolean subscriberQuerySupported = true;
+    
+    // Centraux abonnés, tenus à jour par onSubscribed / onUnsubscribed
+    private final Set<Integer> subscribers = ConcurrentHashMap.newKeySet();
+    private volatile SubscriptionListener subscriptionListener;
+    
+    // Repli sans nativeNotifyRange : tampons de chunk réutilisés par thread (chunk plein + dernier chunk)
+    private static final ThreadLocal<byte[][]> CHUNK_BUFFERS = ThreadLocal.withInitial(() -> new byte[2][]);
+    
+    // Envoi de tous les chunks d'un payload en une seule traversée JNI
+    private volatile boolean batchNotify = false;
+    
+    // 1000 chunks/s sans rafale : l'écart de 1 ms historique, sans l'arrondi du timer OS
+    private volatile PacingStrategy pacingStrategy = TokenBucketPacer.chunksPerSecond(1000, 1);
+    
+    // Nouvel essai d'un chunk refusé par la couche native (aucun par défaut)
+    private volatile RetryPolicy retryPolicy = RetryPolicy.none();
+    
+    // Compression optionnelle avant découpage (null = payloads envoyés tels quels, sans en-tête)
+    private volatile PayloadCompressor compressor;
+    
+    // Mode tramé : en-tête FrameHeader devant chaque chunk, tampon de trame réutilisé par thread
+    private volatile boolean framing = false;
+    private final AtomicInteger nextMessageId = new AtomicInteger();
+    private static final ThreadLocal<byte[]> FRAME_BUFFER = ThreadLocal.withInitial(() -> new byte[MAX_CHUNK_SIZE]);
+    
+    // Voies de priorité rattachées (tramage activé au préalable) : tous les envois passent alors par leur thread d'émission
+    private final AtomicReference<PrioritySender> lanes = new AtomicReference<>();
+    
+    private final BLEMetrics metrics = new BLEMetrics();
+    
+    // Chargement paresseux : la bibliothèque n'est chargée qu'au premier appel natif réel,
+    // une seule fois par JVM (simple lecture volatile ensuite)
+    private static final Object NATIVE_LIBRARY_LOCK = new Object();
+    private static volatile boolean nativeLibraryLoaded = false;
+    private volatile boolean nativeLibraryReady = false;
     
-    // Instance method wrapping the loader for tests
+    // Instance method wrapping the loader (overridable in tests)
     protected void loadNativeLibrarySafe() {
         try {
             loadNativeLibrary();
@@ -23,18 +86,42 @@ public class BLEServer implements BLEServerInterface {
         }
     }
     
+    /**
+     * Load the native library, at most once per JVM.
+     * Subclasses that replace every native method override this with a no-op.
+     */
     protected void loadNativeLibrary() {
-        try {
-            // D'abord, essayer de charger depuis java.library.path
-            System.loadLibrary("BLEServer");
-        } catch (UnsatisfiedLinkError e1) {
+        if (nativeLibraryLoaded) {
+            return;
+        }
+        synchronized (NATIVE_LIBRARY_LOCK) {
+            if (nativeLibraryLoaded) {
+                return;
+            }
             try {
-                // Si ça échoue, essayer de charger depuis les resources
-                String libraryPath = extractLibraryFromResources();
-                System.load(libraryPath);
-            } catch (Exception e2) {
-                throw new RuntimeException("Impossible de charger BLEServer.dll", e2);
+                // D'abord, essayer de charger depuis java.library.path
+                System.loadLibrary("BLEServer");
+            } catch (UnsatisfiedLinkError e1) {
+                try {
+                    // Si ça échoue, essayer de charger depuis les resources
+                    String libraryPath = extractLibraryFromResources();
+                    System.load(libraryPath);
+                } catch (Exception e2) {
+                    throw new RuntimeException("Impossible de charger BLEServer.dll", e2);
+                }
             }
+            nativeLibraryLoaded = true;
+        }
+    }
+    
+    /**
+     * Load the native library before the first native call of this instance.
+     * A failed load is retried on the next call.
+     */
+    protected final void ensureNativeLibrary() {
+        if (!nativeLibraryReady) {
+            loadNativeLibrarySafe();
+            nativeLibraryReady = true;
         }
     }
     
@@ -42,52 +129,54 @@ public class BLEServer implements BLEServerInterface {
         // Déterminer l'OS et le nom de la bibliothèque
         String osName = System.getProperty("os.name").toLowerCase();
         String libraryName;
-        String fileExtension;
         
         if (osName.contains("win")) {
             libraryName = "BLEServer.dll";
-            fileExtension = ".dll";
         } else if (osName.contains("linux")) {
             libraryName = "libBLEServer.so";
-            fileExtension = ".so";
         } else {
             throw new UnsupportedOperationException("OS non supporté: " + osName);
         }
         
         // Chercher d'abord dans les resources du classpath
-        InputStream inputStream = BLEServer.class.getClassLoader().getResourceAsStream(libraryName);
+        URL resource = BLEServer.class.getClassLoader().getResource(libraryName);
         
         // Si pas trouvé dans classpath, chercher dans le dossier resources à la racine
-        if (inputStream == null) {
+        if (resource == null) {
             try {
                 Path resourcesPath = Paths.get("resources", libraryName);
                 if (Files.exists(resourcesPath)) {
-                    inputStream = Files.newInputStream(resourcesPath);
+                    resource = resourcesPath.toUri().toURL();
                 }
             } catch (Exception e) {
                 // Ignore et continue avec l'exception originale
             }
         }
         
-        if (inputStream == null) {
+        if (resource == null) {
             throw new FileNotFoundException(libraryName + " non trouvé dans les resources ");
         }
         
-        // Créer un fichier temporaire avec la bonne extension
-        Path tempFile = Files.createTempFile("BLEServer", fileExtension);
+        // Extraire une seule fois : taille et date de la ressource suffisent tant qu'elles ne changent pas
+        URLConnection connection = resource.openConnection();
+        try {
+            return new NativeLibraryCache(NativeLibraryCache.defaultDirectory())
+                    .extract(libraryName, connection.getContentLengthLong(), connection.getLastModified(),
+                            connection::getInputStream)
+                    .toString();
+        } catch (IOException e) {
+            // Cache refusé (propriétaire différent, ex. Administrateurs en session élevée) ou non inscriptible
+            return extractToTempFile(libraryName, resource);
+        }
+    }
+    
+    // Extraction d'origine : un fichier temporaire propre à ce processus, supprimé à l'arrêt
+    private static String extractToTempFile(String libraryName, URL resource) throws IOException {
+        Path tempFile = Files.createTempFile("BLEServer", libraryName.substring(libraryName.lastIndexOf('.')));
         tempFile.toFile().deleteOnExit();
-        
-        // Copier la bibliothèque vers le fichier temporaire
-        try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            while ((bytesRead = inputStream.read(buffer)) != -1) {
-                outputStream.write(buffer, 0, bytesRead);
-            }
-        } finally {
-            inputStream.close();
+        try (InputStream in = resource.openStream()) {
+            Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
         }
-        
         return tempFile.toAbsolutePath().toString();
     }
 
@@ -95,53 +184,607 @@ public class BLEServer implements BLEServerInterface {
     protected native int nativeStartServer(String serviceUuid, String charUuid);
     protected native void nativeStopServer();
     protected native int nativeNotify(byte[] data);
+    protected native int nativeNotifyDirect(ByteBuffer buffer, int offset, int length);
+    protected native int nativeNotifyBatch(byte[] payload, int offset, int length, int chunkSize);
+    protected native int nativeNotifyRange(byte[] data, int offset, int length);
+    protected native int nativeGetMtu();
+    protected native int nativeNotifySubscriber(int subscriberId, byte[] data, int offset, int length);
+    protected native int[] nativeGetSubscribers();
 
     // API Java
     @Override
     public int startServer(String serviceUuid, String charUuid) {
+        ensureNativeLibrary();
         int nativeResult = nativeStartServer(serviceUuid, charUuid);
+        if (nativeResult == 0) {
+            refreshMtu();
+            refreshSubscribers();
+        }
         // Convert native result (0=success) to standard result (1=success)
         return (nativeResult == 0) ? 1 : 0;
     }
     
     @Override
     public void stopServer() {
-        nativeStopServer(); 
+        ensureNativeLibrary();
+        nativeStopServer();
+        // Plus aucun central abonné une fois le serveur arrêté
+        for (int subscriberId : getSubscribers()) {
+            onUnsubscribed(subscriberId);
+        }
     }
     
     @Override
     public int notify(byte[] data) {
-        return nativeNotify(data); 
+        ensureNativeLibrary();
+        return nativeNotify(data);
+    }
+    
+    /**
+     * Allocation-free notify of an array region through nativeNotifyRange.
+     * Native libraries without it get the region copied into a per-thread
+     * chunk buffer that is reused as long as the chunk size does not change.
+     */
+    @Override
+    public int notify(byte[] data, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > data.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", size=" + data.length);
+        }
+        ensureNativeLibrary();
+        if (rangeNotifySupported) {
+            try {
+                return nativeNotifyRange(data, offset, length);
+            } catch (UnsatisfiedLinkError e) {
+                rangeNotifySupported = false;
+            }
+        }
+        if (offset == 0 && length == data.length) {
+            return notify(data);
+        }
+        byte[] chunk = chunkBuffer(length);
+        System.arraycopy(data, offset, chunk, 0, length);
+        return notify(chunk);
+    }
+    
+    private static byte[] chunkBuffer(int length) {
+        byte[][] buffers = CHUNK_BUFFERS.get();
+        if (buffers[0] != null && buffers[0].length == length) {
+            return buffers[0];
+        }
+        if (buffers[1] != null && buffers[1].length == length) {
+            return buffers[1];
+        }
+        buffers[1] = buffers[0];
+        buffers[0] = new byte[length];
+        return buffers[0];
+    }
+    
+    /**
+     * Notify one central through nativeNotifySubscriber. Native libraries
+     * without it know a single sink: the region is notified to every central.
+     */
+    @Override
+    public int notify(int subscriberId, byte[] data, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > data.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", size=" + data.length);
+        }
+        ensureNativeLibrary();
+        if (subscriberNotifySupported) {
+            try {
+                return nativeNotifySubscriber(subscriberId, data, offset, length);
+            } catch (UnsatisfiedLinkError e) {
+                subscriberNotifySupported = false;
+            }
+        }
+        return notify(data, offset, length);
+    }
+    
+    /**
+     * Libraries export nativeNotifySubscriber together with nativeGetSubscribers,
+     * which is probed when the server starts.
+     */
+    @Override
+    public boolean supportsSubscriberNotify() {
+        return subscriberNotifySupported && subscriberQuerySupported;
+    }
+    
+    /**
+     * Zero-copy notify: direct buffers are read in place by the native layer
+     * through GetDirectBufferAddress. Heap buffers, and native libraries built
+     * before nativeNotifyDirect existed, fall back to {@link #notify(byte[])}.
+     */
+    @Override
+    public int notify(ByteBuffer buffer, int offset, int length) {
+        ensureNativeLibrary();
+        if (buffer.isDirect() && directNotifySupported) {
+            if (offset < 0 || length < 0 || offset > buffer.limit() - length) {
+                throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", limit=" + buffer.limit());
+            }
+            try {
+                return nativeNotifyDirect(buffer, offset, length);
+            } catch (UnsatisfiedLinkError e) {
+                directNotifySupported = false;
+            }
+        }
+        return BLEServerInterface.super.notify(buffer, offset, length);
+    }
+    
+    /**
+     * Send a payload region as consecutive chunks in a single JNI crossing.
+     * Falls back to one {@link #notify(byte[])} per chunk when the native
+     * library does not provide nativeNotifyBatch.
+     * @param payload Data to send
+     * @param offset Index of the first byte to send
+     * @param length Number of bytes to send
+     * @param chunkSize Maximum size of each notification
+     * @return Index of the first chunk that failed, or the chunk count if all chunks were sent
+     */
+    public int notifyBatch(byte[] payload, int offset, int length, int chunkSize) {
+        if (offset < 0 || length < 0 || offset > payload.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", size=" + payload.length);
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        ensureNativeLibrary();
+        if (batchNotifySupported) {
+            try {
+                return nativeNotifyBatch(payload, offset, length, chunkSize);
+            } catch (UnsatisfiedLinkError e) {
+                batchNotifySupported = false;
+            }
+        }
+        int index = 0;
+        for (int i = offset; i < offset + length; i += chunkSize, index++) {
+            int end = Math.min(i + chunkSize, offset + length);
+            if (notify(payload, i, end - i) != 0) {
+                return index;
+            }
+        }
+        return index;
+    }
+    
+    /**
+     * Compress payloads before chunking. Every message then carries the
+     * one-byte {@link PayloadCompressor} header, compressed or not.
+     * @param compressor Compression stage, null to send payloads unchanged
+     */
+    public void setCompressor(PayloadCompressor compressor) {
+        this.compressor = compressor;
+    }
+    
+    public PayloadCompressor getCompressor() {
+        return compressor;
+    }
+    
+    /**
+     * Prefix every chunk with a {@link FrameHeader} so that receivers can
+     * rebuild messages with a {@link FrameReassembler}. Each chunk then carries
+     * {@link FrameHeader#SIZE} bytes less payload. Batch notify is not used
+     * while framing is enabled. Framing must be enabled before a
+     * {@link PrioritySender} is created on this server and stays on while it runs.
+     * @param enabled true to send framed chunks
+     * @throws IllegalStateException if disabled while a PrioritySender runs on this server
+     */
+    public void setFraming(boolean enabled) {
+        if (!enabled && lanes.get() != null) {
+            throw new IllegalStateException("Cannot disable framing while a PrioritySender is running on this server");
+        }
+        this.framing = enabled;
+    }
+    
+    public boolean isFraming() {
+        return framing;
+    }
+    
+    // Identifiant de message tramé, partagé avec les voies de priorité pour éviter les collisions
+    int allocateMessageId() {
+        return nextMessageId.getAndIncrement() & 0xFFFF;
+    }
+    
+    // Une seule instance de PrioritySender par serveur, sur un serveur déjà tramé
+    void attachLanes(PrioritySender sender) {
+        if (!framing) {
+            throw new IllegalStateException("Priority lanes need framed chunks. Call setFraming(true) before creating a PrioritySender");
+        }
+        if (!lanes.compareAndSet(null, sender)) {
+            throw new IllegalStateException("A PrioritySender is already running on this server");
+        }
+    }
+    
+    void detachLanes(PrioritySender sender) {
+        lanes.compareAndSet(sender, null);
+    }
+    
+    /**
+     * Notify and message counters of this server, updated by every send
+     */
+    @Override
+    public BLEMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Called by the native layer whenever a central negotiates a new ATT MTU.
+     * The next message is chunked with the new size.
+     * @param mtu Negotiated ATT MTU, 0 if unknown
+     */
+    protected void onMtuChanged(int mtu) {
+        if (mtu < MIN_ATT_MTU) {
+            negotiatedMtu = 0;
+        } else {
+            negotiatedMtu = Math.min(mtu, MAX_ATT_MTU);
+        }
+    }
+    
+    @Override
+    public void setSubscriptionListener(SubscriptionListener listener) {
+        this.subscriptionListener = listener;
+    }
+    
+    @Override
+    public int[] getSubscribers() {
+        return subscribers.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+    
+    /**
+     * Called by the native layer when a central enables notifications
+     * @param subscriberId Identity of the central, until it unsubscribes
+     */
+    protected void onSubscribed(int subscriberId) {
+        if (subscribers.add(subscriberId)) {
+            SubscriptionListener listener = subscriptionListener;
+            if (listener != null) {
+                listener.onSubscribed(subscriberId);
+            }
+        }
+    }
+    
+    /**
+     * Called by the native layer when a central disables notifications or disconnects
+     * @param subscriberId Identity given to {@link #onSubscribed(int)}
+     */
+    protected void onUnsubscribed(int subscriberId) {
+        if (subscribers.remove(subscriberId)) {
+            SubscriptionListener listener = subscriptionListener;
+            if (listener != null) {
+                listener.onUnsubscribed(subscriberId);
+            }
+        }
+    }
+    
+    // Centraux déjà abonnés au démarrage (bibliothèques sans nativeGetSubscribers : événements seuls)
+    private void refreshSubscribers() {
+        if (subscriberQuerySupported) {
+            try {
+                int[] current = nativeGetSubscribers();
+                if (current != null) {
+                    for (int subscriberId : current) {
+                        onSubscribed(subscriberId);
+                    }
+                }
+            } catch (UnsatisfiedLinkError e) {
+                subscriberQuerySupported = false;
+            }
+        }
+    }
+    
+    // Interroge la couche native (bibliothèques sans nativeGetMtu : MTU inconnu)
+    private void refreshMtu() {
+        ensureNativeLibrary();
+        if (mtuQuerySupported) {
+            try {
+                onMtuChanged(nativeGetMtu());
+            } catch (UnsatisfiedLinkError e) {
+                mtuQuerySupported = false;
+            }
+        }
+    }
+    
+    /**
+     * @return Negotiated ATT MTU, 0 while unknown
+     */
+    public int getNegotiatedMtu() {
+        return negotiatedMtu;
+    }
+    
+    @Override
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 0 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Chunk size must be between 1 and " + MAX_CHUNK_SIZE + " (0 for automatic): " + chunkSize);
+        }
+        this.chunkSizeOverride = chunkSize;
+    }
+    
+    /**
+     * Manual override if set, otherwise the negotiated MTU minus the 3-byte
+     * ATT header capped at {@link #MAX_CHUNK_SIZE}, otherwise {@link #DEFAULT_CHUNK_SIZE}.
+     */
+    @Override
+    public int getChunkSize() {
+        int override = chunkSizeOverride;
+        if (override > 0) {
+            return override;
+        }
+        int mtu = negotiatedMtu;
+        // MTU 516 ou 517 : l'en-tête laisserait 513 ou 514 octets, au-delà de la limite d'un attribut
+        return mtu > 0 ? Math.min(mtu - ATT_NOTIFY_HEADER, MAX_CHUNK_SIZE) : DEFAULT_CHUNK_SIZE;
+    }
+    
+    /**
+     * Let sendData hand consecutive chunks to the native layer in one call.
+     * The native side sends a batch back to back, so each call carries only the
+     * chunks the pacing strategy lets go out at once
+     * ({@link PacingStrategy#acquireBurst}): the whole payload with
+     * {@link PacingStrategy#none()}, one chunk at a time with the default pacer.
+     * @param enabled true to use {@link #notifyBatch(byte[], int, int, int)} in sendData
+     */
+    public void setBatchNotify(boolean enabled) {
+        this.batchNotify = enabled;
+    }
+    
+    public boolean isBatchNotify() {
+        return batchNotify;
+    }
+    
+    /**
+     * Set the pacing applied before each chunk sent by sendData
+     * @param pacingStrategy Strategy to use, {@link PacingStrategy#none()} to send back to back
+     */
+    public void setPacingStrategy(PacingStrategy pacingStrategy) {
+        this.pacingStrategy = Objects.requireNonNull(pacingStrategy, "pacingStrategy");
+    }
+    
+    public PacingStrategy getPacingStrategy() {
+        return pacingStrategy;
+    }
+    
+    /**
+     * Set how a chunk whose notify fails is retried before the send gives up.
+     * In batch mode the batch is sent again from the failed chunk.
+     * @param retryPolicy Policy to use, {@link RetryPolicy#none()} to fail on the first error
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = Objects.requireNonNull(retryPolicy, "retryPolicy");
+    }
+    
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
     }
     
     // Envoi rapide
     @Override
     public boolean sendData(String data) {
         try {
-            byte[] bytes = data.getBytes("UTF-8");
-            
-            if (bytes.length == 0) return false;
-            
-            // Chunks de 200 bytes pour performance max
-            int chunkSize = 200;
+            byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+            return sendBytes(bytes, 0, bytes.length);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+    
+    @Override
+    public boolean sendBytes(byte[] data, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > data.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", size=" + data.length);
+        }
+        return length > 0 && transmit(data, null, offset, length) == length;
+    }
+    
+    /**
+     * Direct buffers are chunked in place through {@link #notify(ByteBuffer, int, int)},
+     * heap buffers through their backing array.
+     */
+    @Override
+    public boolean sendBuffer(ByteBuffer data) {
+        return data.hasRemaining() && transmitBuffer(data) == data.remaining();
+    }
+    
+    /**
+     * Like {@link #sendBytes(byte[], int, int)}, reporting how far the send got.
+     * After a failure, call again from {@link SendResult#getResumeOffset()}
+     * with {@link SendResult#getRemaining()} bytes instead of starting over.
+     * @param data Data to send
+     * @param offset Index of the first byte to send
+     * @param length Number of bytes to send
+     * @return Bytes delivered before the send completed or failed
+     */
+    public SendResult sendResumable(byte[] data, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > data.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", size=" + data.length);
+        }
+        return new SendResult(offset, length, length > 0 ? transmit(data, null, offset, length) : 0);
+    }
+    
+    /**
+     * Like {@link #sendBuffer(ByteBuffer)}, reporting how far the send got.
+     * The offsets of the result are buffer positions and the position is left
+     * unchanged: after a failure, set it to {@link SendResult#getResumeOffset()}
+     * and call again.
+     * @param data Bytes between position and limit are sent
+     * @return Bytes delivered before the send completed or failed
+     */
+    public SendResult sendResumable(ByteBuffer data) {
+        return new SendResult(data.position(), data.remaining(), data.hasRemaining() ? transmitBuffer(data) : 0);
+    }
+    
+    private int transmitBuffer(ByteBuffer data) {
+        if (data.hasArray()) {
+            return transmit(data.array(), null, data.arrayOffset() + data.position(), data.remaining());
+        }
+        return transmit(null, data, data.position(), data.remaining());
+    }
+    
+    // Découpe [offset, offset + length) de array ou buffer (l'un des deux est null) en chunks
+    // et renvoie le nombre d'octets de tête livrés
+    private int transmit(byte[] array, ByteBuffer buffer, int offset, int length) {
+        long start = System.nanoTime();
+        int delivered = transmitChunks(array, buffer, offset, length);
+        metrics.recordMessage(length, System.nanoTime() - start, delivered == length);
+        return delivered;
+    }
+    
+    private int transmitChunks(byte[] array, ByteBuffer buffer, int offset, int length) {
+        try {
+            PayloadCompressor payloadCompressor = compressor;
+            if (payloadCompressor != null) {
+                ByteBuffer encoded = (array != null)
+                        ? payloadCompressor.encode(array, offset, length)
+                        : payloadCompressor.encode(buffer, offset, length);
+                // Un message compressé incomplet est inutilisable : tout ou rien
+                int encodedLength = encoded.limit();
+                return transmitEncoded(encoded.array(), null, 0, encodedLength) == encodedLength ? length : 0;
+            }
+            return transmitEncoded(array, buffer, offset, length);
             
-            for (int i = 0; i < bytes.length; i += chunkSize) {
-                int end = Math.min(i + chunkSize, bytes.length);
-                byte[] chunk = new byte[end - i];
-                System.arraycopy(bytes, i, chunk, 0, end - i);
-                
-                int result = notify(chunk);
-                if (result != 0) {
-                    return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+    
+    private int transmitEncoded(byte[] array, ByteBuffer buffer, int offset, int length) throws InterruptedException {
+        // Taille de chunk réévaluée à chaque message (le MTU peut changer entre deux envois)
+        if (negotiatedMtu == 0) {
+            refreshMtu();
+        }
+        
+        PrioritySender priorityLanes = lanes.get();
+        if (priorityLanes != null) {
+            // Voie VITALS : un message ALARM s'intercale entre les chunks, tramés comme eux
+            try {
+                return priorityLanes.submitEncoded(array, buffer, offset, length, Priority.VITALS).get() ? length : 0;
+            } catch (ExecutionException e) {
+                return 0;
+            }
+        }
+        
+        int chunkSize = getChunkSize();
+        
+        if (framing) {
+            // Le récepteur jette un message tramé incomplet : tout ou rien
+            return transmitFramed(array, buffer, offset, length, chunkSize) ? length : 0;
+        }
+        
+        if (array != null && batchNotify) {
+            return transmitBatch(array, offset, length, chunkSize);
+        }
+        
+        PacingStrategy pacing = pacingStrategy;
+        RetryPolicy retry = retryPolicy;
+        int end = offset + length;
+        
+        for (int i = offset; i < end; i += chunkSize) {
+            int size = Math.min(chunkSize, end - i);
+            try {
+                if (!notifyChunk(array, buffer, i, size, pacing, retry)) {
+                    return i - offset;
                 }
-                
-                Thread.sleep(1); // Petit délai
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return i - offset;
             }
+        }
+        
+        return length;
+    }
+    
+    // Lots dimensionnés par le pacing (la couche native ne temporise pas), renvoyés à partir
+    // du chunk en échec tant que la politique de reprise le permet
+    private int transmitBatch(byte[] array, int offset, int length, int chunkSize) {
+        PacingStrategy pacing = pacingStrategy;
+        RetryPolicy retry = retryPolicy;
+        int delivered = 0;
+        int retries = 0;
+        try {
+            while (delivered < length) {
+                int remaining = length - delivered;
+                int allowed = pacing.acquireBurst(chunkSize, (remaining + chunkSize - 1) / chunkSize);
+                int batchLength = (int) Math.min((long) allowed * chunkSize, remaining);
+                int chunkCount = (batchLength + chunkSize - 1) / chunkSize;
+                int sentChunks = notifyBatch(array, offset + delivered, batchLength, chunkSize);
+                int sentBytes = (int) Math.min((long) sentChunks * chunkSize, batchLength);
+                // Le lot s'arrête au premier chunk refusé : les suivants n'ont pas été tentés
+                boolean failed = sentChunks < chunkCount;
+                metrics.recordNotifyBatch(failed ? sentChunks + 1 : chunkCount, failed ? 1 : 0, sentBytes);
+                delivered += sentBytes;
+                if (sentChunks == chunkCount) {
+                    retries = 0;
+                    continue;
+                }
+                // Compte les échecs consécutifs du même chunk
+                retries = sentChunks > 0 ? 1 : retries + 1;
+                if (retries > retry.getMaxRetries()) {
+                    return delivered;
+                }
+                retry.await(retries);
+            }
+            return length;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return delivered;
+        }
+    }
+    
+    // Envoie un chunk, réessayé selon la politique de reprise ; false si tous les essais ont échoué
+    private boolean notifyChunk(byte[] array, ByteBuffer buffer, int offset, int size,
+                                PacingStrategy pacing, RetryPolicy retry) throws InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            if (attempt > 0) {
+                retry.await(attempt);
+            }
+            pacing.acquire(size);
             
-            return true;
-            
-        } catch (Exception e) {
+            long notifyStart = System.nanoTime();
+            int result = (array != null) ? notify(array, offset, size) : notify(buffer, offset, size);
+            metrics.recordNotify(size, System.nanoTime() - notifyStart, result == 0);
+            if (result == 0) {
+                return true;
+            }
+            if (attempt >= retry.getMaxRetries()) {
+                return false;
+            }
+        }
+    }
+    
+    // Comme transmit, chaque chunk étant recopié derrière son en-tête dans le tampon de trame du thread
+    private boolean transmitFramed(byte[] array, ByteBuffer buffer, int offset, int length, int chunkSize)
+            throws InterruptedException {
+        int payloadSize = chunkSize - FrameHeader.SIZE;
+        if (payloadSize <= 0) {
             return false;
         }
+        int chunkCount = (length + payloadSize - 1) / payloadSize;
+        if (chunkCount > FrameHeader.MAX_CHUNKS) {
+            return false;
+        }
+        
+        PacingStrategy pacing = pacingStrategy;
+        RetryPolicy retry = retryPolicy;
+        byte[] frame = FRAME_BUFFER.get();
+        ByteBuffer source = (array == null) ? buffer.duplicate() : null;
+        int messageId = allocateMessageId();
+        int end = offset + length;
+        int index = 0;
+        
+        for (int i = offset; i < end; i += payloadSize, index++) {
+            int size = Math.min(payloadSize, end - i);
+            
+            FrameHeader.write(frame, 0, messageId, index, i + size == end, length);
+            if (array != null) {
+                System.arraycopy(array, i, frame, FrameHeader.SIZE, size);
+            } else {
+                source.limit(i + size).position(i);
+                source.get(frame, FrameHeader.SIZE, size);
+            }
+            
+            if (!notifyChunk(frame, null, 0, FrameHeader.SIZE + size, pacing, retry)) {
+                return false;
+            }
+        }
+        
+        return true;
     }
-}
\ No newline at end of file
+}
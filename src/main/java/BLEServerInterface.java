@@ -1,5 +1,8 @@
 package main.java;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 /**
  * Interface for BLE Server operations
  * Allows for easy mocking in tests without environment variables
@@ -21,6 +24,90 @@ public interface BLEServerInterface {
      */
     int notify(byte[] data);
     
+    /**
+     * Send notification data read from a region of an array
+     * @param data Array holding the data
+     * @param offset Index of the first byte to send
+     * @param length Number of bytes to send
+     * @return Same convention as {@link #notify(byte[])}
+     */
+    default int notify(byte[] data, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > data.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", size=" + data.length);
+        }
+        return notify(Arrays.copyOfRange(data, offset, offset + length));
+    }
+    
+    /**
+     * Send notification data read from a region of a buffer
+     * @param buffer Buffer holding the data (direct buffers avoid a copy)
+     * @param offset Absolute index of the first byte to send
+     * @param length Number of bytes to send
+     * @return Same convention as {@link #notify(byte[])}
+     */
+    default int notify(ByteBuffer buffer, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > buffer.limit() - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", limit=" + buffer.limit());
+        }
+        byte[] data = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.get(data, 0, length);
+        return notify(data);
+    }
+    
+    /**
+     * Send notification data to a single subscribed central
+     * Implementations without subscriber identities notify every central.
+     * @param subscriberId Identity reported by {@link SubscriptionListener#onSubscribed(int)}
+     * @param data Array holding the data
+     * @param offset Index of the first byte to send
+     * @param length Number of bytes to send
+     * @return Same convention as {@link #notify(byte[])}
+     */
+    default int notify(int subscriberId, byte[] data, int offset, int length) {
+        return notify(data, offset, length);
+    }
+    
+    /**
+     * @return true if {@link #notify(int, byte[], int, int)} reaches only the
+     *         given central, false if it notifies every central
+     */
+    default boolean supportsSubscriberNotify() {
+        return false;
+    }
+    
+    /**
+     * Receive the subscribe and unsubscribe events of the centrals
+     * Implementations without subscriber identities never call the listener.
+     * @param listener Listener to call, null to stop
+     */
+    default void setSubscriptionListener(SubscriptionListener listener) {
+    }
+    
+    /**
+     * @return Identities of the centrals currently subscribed, empty if unknown
+     */
+    default int[] getSubscribers() {
+        return new int[0];
+    }
+    
+    /**
+     * Force the payload size of each notification sent by sendData
+     * Implementations with a fixed chunk size ignore it (default).
+     * @param chunkSize Bytes per notification, 0 to size chunks from the negotiated MTU
+     */
+    default void setChunkSize(int chunkSize) {
+    }
+    
+    /**
+     * @return Payload bytes per notification currently used by sendData;
+     *         by default the 20 bytes that fit the default ATT MTU of 23
+     */
+    default int getChunkSize() {
+        return 20;
+    }
+    
     /**
      * Stop the BLE server
      */
@@ -32,4 +119,64 @@ public interface BLEServerInterface {
      * @return true for success, false for failure
      */
     boolean sendData(String data);
-}
\ No newline at end of file
+    
+    /**
+     * Send binary data without any String conversion
+     * The default implementation notifies the region in {@link #getChunkSize()}
+     * pieces through {@link #notify(byte[], int, int)} and stops at the first
+     * refused one.
+     * @param data Buffer holding the payload
+     * @param offset Index of the first byte to send
+     * @param length Number of bytes to send
+     * @return true for success, false for failure
+     */
+    default boolean sendBytes(byte[] data, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > data.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", size=" + data.length);
+        }
+        int chunkSize = getChunkSize();
+        if (chunkSize <= 0) {
+            return false;
+        }
+        int end = offset + length;
+        for (int i = offset; i < end; i += chunkSize) {
+            // Convention des implémentations : 0 = notification acceptée
+            if (notify(data, i, Math.min(chunkSize, end - i)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Send a whole byte array
+     * @param data Payload
+     * @return true for success, false for failure
+     */
+    default boolean sendBytes(byte[] data) {
+        return sendBytes(data, 0, data.length);
+    }
+    
+    /**
+     * Send the bytes between the buffer's position and limit.
+     * The buffer's position is left unchanged.
+     * @param data Payload
+     * @return true for success, false for failure
+     */
+    default boolean sendBuffer(ByteBuffer data) {
+        if (data.hasArray()) {
+            return sendBytes(data.array(), data.arrayOffset() + data.position(), data.remaining());
+        }
+        byte[] bytes = new byte[data.remaining()];
+        data.duplicate().get(bytes);
+        return sendBytes(bytes, 0, bytes.length);
+    }
+    
+    /**
+     * Send path metrics
+     * @return Metrics of this server, null if it does not collect any
+     */
+    default BLEMetrics getMetrics() {
+        return null;
+    }
+}
@@ -0,0 +1,171 @@
+package main.java;
+
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reactive sink: a {@link Flow.Subscriber} that sends each item through a BLE server
+ * At most window items are requested ahead of the link; one more is requested
+ * each time an item has been sent, so a fast producer slows down to the BLE
+ * throughput instead of filling a queue. The result of every item is published
+ * as a {@link Delivery} on {@link #deliveries()}.
+ */
+public final class FlowSink implements Flow.Subscriber<byte[]> {
+
+    private final BLEServerInterface server;
+    private final int window;
+    private final AsyncSender sender;
+    private final SubmissionPublisher<Delivery> deliveries;
+
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final AtomicLong droppedDeliveries = new AtomicLong();
+
+    private volatile Flow.Subscription subscription;
+
+    /**
+     * Outcome of one item, in the order the items were received
+     */
+    public static final class Delivery {
+        private final long sequence;
+        private final int length;
+        private final boolean success;
+
+        Delivery(long sequence, int length, boolean success) {
+            this.sequence = sequence;
+            this.length = length;
+            this.success = success;
+        }
+
+        /**
+         * @return Index of the item in the upstream sequence, starting at 0
+         */
+        public long getSequence() {
+            return sequence;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Delivery #%d: %d bytes, %s", sequence, length, success ? "sent" : "failed");
+        }
+    }
+
+    /**
+     * @param server Server sending the items, already started
+     * @param window Items requested ahead of the link
+     */
+    public FlowSink(BLEServerInterface server, int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+        this.server = Objects.requireNonNull(server, "server");
+        this.window = window;
+        // Jamais plus de window éléments en attente, plus la tâche de clôture : la file ne déborde pas
+        this.sender = new AsyncSender(window + 1, OverflowPolicy.FAIL_FAST, "VitalBLE-flow");
+        this.deliveries = new SubmissionPublisher<>();
+    }
+
+    /**
+     * Delivery results; a subscriber that falls more than
+     * {@link Flow#defaultBufferSize()} results behind loses the oldest ones
+     * instead of stalling the link. Completes after the upstream completes
+     * and every pending item has been sent.
+     */
+    public Flow.Publisher<Delivery> deliveries() {
+        return deliveries;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    /**
+     * @return Delivery results not published because a subscriber was too slow
+     */
+    public long getDroppedDeliveries() {
+        return droppedDeliveries.get();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        Objects.requireNonNull(subscription, "subscription");
+        if (this.subscription != null) {
+            subscription.cancel(); // un seul abonnement actif (règle 2.5)
+            return;
+        }
+        this.subscription = subscription;
+        subscription.request(window);
+    }
+
+    @Override
+    public void onNext(byte[] item) {
+        Objects.requireNonNull(item, "item");
+        long sequence = nextSequence.getAndIncrement();
+        sender.submit(() -> server.sendBytes(item, 0, item.length))
+            .whenComplete((sent, error) -> {
+                publish(new Delivery(sequence, item.length, error == null && sent));
+                Flow.Subscription current = subscription;
+                if (current != null) {
+                    current.request(1);
+                }
+            });
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        Objects.requireNonNull(throwable, "throwable");
+        finish(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        finish(null);
+    }
+
+    /**
+     * Stop consuming: the upstream subscription is cancelled, pending items are
+     * discarded (reported as failed) and {@link #deliveries()} completes.
+     */
+    public void cancel() {
+        Flow.Subscription current = subscription;
+        subscription = null;
+        if (current != null) {
+            current.cancel();
+        }
+        sender.shutdown();
+        deliveries.close();
+    }
+
+    // Les éléments déjà reçus partent avant la clôture des résultats
+    private void finish(Throwable throwable) {
+        subscription = null;
+        sender.submit(() -> {
+            if (throwable == null) {
+                deliveries.close();
+            } else {
+                deliveries.closeExceptionally(throwable);
+            }
+            sender.shutdown();
+            return true;
+        });
+    }
+
+    private void publish(Delivery delivery) {
+        if (deliveries.isClosed()) {
+            return; // élément en cours d'envoi lors d'un cancel()
+        }
+        deliveries.offer(delivery, (subscriber, dropped) -> {
+            droppedDeliveries.incrementAndGet();
+            return false;
+        });
+    }
+}
@@ -0,0 +1,67 @@
+package main.java;
+
+/**
+ * Per-chunk header written by BLEServer in framing mode
+ * <pre>
+ *   bytes 0-1  message id (u16 BE, wraps around)
+ *   bytes 2-3  bit 15: last chunk, bits 0-14: chunk index (u16 BE)
+ *   bytes 4-7  total message length (u32 BE)
+ * </pre>
+ * A receiver knows where each message starts and ends, and detects a
+ * dropped chunk from a gap in the chunk index, without scanning the payload.
+ */
+public final class FrameHeader {
+
+    /** Header size in bytes */
+    public static final int SIZE = 8;
+    /** Largest number of chunks in one framed message */
+    public static final int MAX_CHUNKS = 0x8000;
+
+    private static final int LAST_CHUNK_FLAG = 0x8000;
+
+    private FrameHeader() {
+    }
+
+    /**
+     * Write a header
+     * @param dst Destination array
+     * @param offset Index of the first header byte
+     * @param messageId Message id, only the low 16 bits are kept
+     * @param chunkIndex Index of the chunk within the message
+     * @param last true for the final chunk of the message
+     * @param totalLength Length of the whole message payload
+     */
+    public static void write(byte[] dst, int offset, int messageId, int chunkIndex, boolean last, int totalLength) {
+        if (chunkIndex < 0 || chunkIndex >= MAX_CHUNKS) {
+            throw new IllegalArgumentException("Chunk index out of range: " + chunkIndex);
+        }
+        int indexField = chunkIndex | (last ? LAST_CHUNK_FLAG : 0);
+        dst[offset] = (byte) (messageId >>> 8);
+        dst[offset + 1] = (byte) messageId;
+        dst[offset + 2] = (byte) (indexField >>> 8);
+        dst[offset + 3] = (byte) indexField;
+        dst[offset + 4] = (byte) (totalLength >>> 24);
+        dst[offset + 5] = (byte) (totalLength >>> 16);
+        dst[offset + 6] = (byte) (totalLength >>> 8);
+        dst[offset + 7] = (byte) totalLength;
+    }
+
+    public static int messageId(byte[] src, int offset) {
+        return ((src[offset] & 0xFF) << 8) | (src[offset + 1] & 0xFF);
+    }
+
+    public static int chunkIndex(byte[] src, int offset) {
+        return (((src[offset + 2] & 0xFF) << 8) | (src[offset + 3] & 0xFF)) & ~LAST_CHUNK_FLAG;
+    }
+
+    public static boolean isLast(byte[] src, int offset) {
+        return (src[offset + 2] & 0x80) != 0;
+    }
+
+    public static int totalLength(byte[] src, int offset) {
+        return ((src[offset + 4] & 0xFF) << 24)
+                | ((src[offset + 5] & 0xFF) << 16)
+                | ((src[offset + 6] & 0xFF) << 8)
+                | (src[offset + 7] & 0xFF);
+    }
+}
@@ -0,0 +1,168 @@
+package main.java;
+
+/**
+ * Receiver side of the framing mode: rebuilds messages from framed chunks
+ * Each chunk payload is copied once, straight to its place in a buffer sized
+ * from the header's total length; message boundaries come from the header,
+ * never from scanning the data. A missing or out-of-order chunk drops the
+ * message it belongs to. Up to maxInFlight messages may be interleaved, as
+ * sent by {@link PrioritySender}; starting one more drops the oldest. With a
+ * single message in flight, any chunk of another message also drops the
+ * partial one, as its remaining chunks can no longer arrive.
+ */
+public final class FrameReassembler {
+
+    private final int maxMessageSize;
+
+    // Messages en cours de reconstruction (message == null : emplacement libre)
+    private final Partial[] partials;
+    private long nextSequence;
+
+    private long completedMessages;
+    private long droppedMessages;
+
+    private static final class Partial {
+        byte[] message;
+        int messageId;
+        int expectedChunk;
+        int position;
+        long sequence; // ordre de début, pour évincer le plus ancien
+    }
+
+    /**
+     * Reassembler for messages sent one after the other
+     * @param maxMessageSize Largest message accepted, protects against corrupt length fields
+     */
+    public FrameReassembler(int maxMessageSize) {
+        this(maxMessageSize, 1);
+    }
+
+    /**
+     * @param maxMessageSize Largest message accepted, protects against corrupt length fields
+     * @param maxInFlight Messages that may be interleaved, one per priority lane for {@link PrioritySender}
+     */
+    public FrameReassembler(int maxMessageSize, int maxInFlight) {
+        if (maxMessageSize <= 0) {
+            throw new IllegalArgumentException("Max message size must be positive: " + maxMessageSize);
+        }
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Max in-flight messages must be positive: " + maxInFlight);
+        }
+        this.maxMessageSize = maxMessageSize;
+        this.partials = new Partial[maxInFlight];
+        for (int i = 0; i < maxInFlight; i++) {
+            partials[i] = new Partial();
+        }
+    }
+
+    /**
+     * Feed one received notification
+     * @param chunk Array holding the notification
+     * @param offset Index of the frame header
+     * @param length Notification length, header included
+     * @return The complete message when this chunk was its last one, null otherwise
+     */
+    public byte[] accept(byte[] chunk, int offset, int length) {
+        if (length < FrameHeader.SIZE) {
+            // Impossible de savoir à quel message appartenait ce chunk
+            for (Partial partial : partials) {
+                drop(partial);
+            }
+            return null;
+        }
+        int id = FrameHeader.messageId(chunk, offset);
+        int index = FrameHeader.chunkIndex(chunk, offset);
+        int totalLength = FrameHeader.totalLength(chunk, offset);
+        int payloadLength = length - FrameHeader.SIZE;
+
+        Partial partial = find(id);
+        if (index == 0) {
+            if (partial != null) {
+                drop(partial);
+            } else {
+                partial = freeOrOldest();
+            }
+            if (totalLength < 0 || totalLength > maxMessageSize) {
+                droppedMessages++;
+                return null;
+            }
+            partial.message = new byte[totalLength];
+            partial.messageId = id;
+            partial.expectedChunk = 0;
+            partial.position = 0;
+            partial.sequence = nextSequence++;
+        } else if (partial == null) {
+            if (partials.length == 1) {
+                // Envois successifs : le message en cours ne sera jamais complété
+                drop(partials[0]);
+            }
+            return null; // suite d'un message déjà abandonné
+        } else if (index != partial.expectedChunk || totalLength != partial.message.length) {
+            drop(partial);
+            return null;
+        }
+
+        if (payloadLength > partial.message.length - partial.position) {
+            drop(partial);
+            return null;
+        }
+        System.arraycopy(chunk, offset + FrameHeader.SIZE, partial.message, partial.position, payloadLength);
+        partial.position += payloadLength;
+        partial.expectedChunk++;
+
+        if (!FrameHeader.isLast(chunk, offset)) {
+            return null;
+        }
+        if (partial.position != partial.message.length) {
+            drop(partial);
+            return null;
+        }
+        byte[] complete = partial.message;
+        partial.message = null;
+        completedMessages++;
+        return complete;
+    }
+
+    private Partial find(int id) {
+        for (Partial partial : partials) {
+            if (partial.message != null && partial.messageId == id) {
+                return partial;
+            }
+        }
+        return null;
+    }
+
+    // Emplacement libre, sinon le message commencé le plus tôt est abandonné
+    private Partial freeOrOldest() {
+        Partial oldest = partials[0];
+        for (Partial partial : partials) {
+            if (partial.message == null) {
+                return partial;
+            }
+            if (partial.sequence < oldest.sequence) {
+                oldest = partial;
+            }
+        }
+        drop(oldest);
+        return oldest;
+    }
+
+    // Abandonne un message partiel, s'il y en a un à cet emplacement
+    private void drop(Partial partial) {
+        if (partial.message != null) {
+            partial.message = null;
+            droppedMessages++;
+        }
+    }
+
+    public long getCompletedMessages() {
+        return completedMessages;
+    }
+
+    /**
+     * @return Messages abandoned because a chunk was missing, out of order or inconsistent
+     */
+    public long getDroppedMessages() {
+        return droppedMessages;
+    }
+}
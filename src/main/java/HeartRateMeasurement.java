@@ -0,0 +1,124 @@
+package main.java;
+
+/**
+ * Binary encoder for the Heart Rate Measurement characteristic (0x2A37)
+ * Writes the Heart Rate Service format straight into a caller-supplied
+ * buffer: a flags byte, the heart rate as UINT8 (or UINT16 above 255 bpm),
+ * the optional energy expended (UINT16, kJ) and RR intervals (UINT16, 1/1024 s).
+ * A typical measurement takes 2 to 6 bytes and encoding never allocates.
+ */
+public final class HeartRateMeasurement {
+
+    /** Value of energyExpended meaning the field is absent */
+    public static final int NO_ENERGY_EXPENDED = -1;
+
+    /** Largest measurement without RR intervals: flags, UINT16 heart rate, energy expended */
+    public static final int MAX_SIZE_WITHOUT_RR = 5;
+
+    static final int FLAG_HEART_RATE_UINT16 = 0x01;
+    static final int FLAG_ENERGY_EXPENDED = 0x08;
+    static final int FLAG_RR_INTERVALS = 0x10;
+
+    private static final int UINT16_MAX = 0xFFFF;
+
+    /**
+     * Sensor contact status bits (flags bits 1 and 2)
+     */
+    public enum SensorContact {
+        NOT_SUPPORTED(0x00),
+        NOT_DETECTED(0x04),
+        DETECTED(0x06);
+
+        private final int flags;
+
+        SensorContact(int flags) {
+            this.flags = flags;
+        }
+    }
+
+    private HeartRateMeasurement() {
+    }
+
+    /**
+     * Encode one measurement
+     * @param dst Destination buffer
+     * @param offset Index of the flags byte in dst
+     * @param bpm Heart rate, 0 to 65535
+     * @param energyExpended Energy expended in kJ, {@link #NO_ENERGY_EXPENDED} if absent (saturates at 65535)
+     * @param rrIntervalsMillis RR intervals in milliseconds, may be null
+     * @param rrFrom Index of the first RR interval to encode
+     * @param rrCount Number of RR intervals to encode
+     * @param contact Sensor contact status
+     * @return Number of bytes written
+     */
+    public static int encode(byte[] dst, int offset, int bpm, int energyExpended,
+                             int[] rrIntervalsMillis, int rrFrom, int rrCount, SensorContact contact) {
+        if (bpm < 0 || bpm > UINT16_MAX) {
+            throw new IllegalArgumentException("Heart rate out of range: " + bpm);
+        }
+        if (energyExpended < NO_ENERGY_EXPENDED) {
+            throw new IllegalArgumentException("Energy expended must not be negative: " + energyExpended);
+        }
+        if (rrCount < 0 || (rrCount > 0 && (rrFrom < 0 || rrFrom > rrIntervalsMillis.length - rrCount))) {
+            throw new IndexOutOfBoundsException("rrFrom=" + rrFrom + ", rrCount=" + rrCount);
+        }
+        int size = size(bpm, energyExpended != NO_ENERGY_EXPENDED, rrCount);
+        if (offset < 0 || offset > dst.length - size) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", size=" + size + ", capacity=" + dst.length);
+        }
+
+        int flags = contact.flags;
+        int position = offset + 1;
+        if (bpm > 0xFF) {
+            flags |= FLAG_HEART_RATE_UINT16;
+            position = writeUint16(dst, position, bpm);
+        } else {
+            dst[position++] = (byte) bpm;
+        }
+        if (energyExpended != NO_ENERGY_EXPENDED) {
+            flags |= FLAG_ENERGY_EXPENDED;
+            position = writeUint16(dst, position, Math.min(energyExpended, UINT16_MAX));
+        }
+        if (rrCount > 0) {
+            flags |= FLAG_RR_INTERVALS;
+            for (int i = rrFrom; i < rrFrom + rrCount; i++) {
+                position = writeUint16(dst, position, rrIntervalUnits(rrIntervalsMillis[i]));
+            }
+        }
+        dst[offset] = (byte) flags;
+        return position - offset;
+    }
+
+    /**
+     * @return Encoded size of a measurement with these fields
+     */
+    public static int size(int bpm, boolean energyExpended, int rrCount) {
+        return 1 + (bpm > 0xFF ? 2 : 1) + (energyExpended ? 2 : 0) + 2 * rrCount;
+    }
+
+    /**
+     * @return RR intervals that fit in a notification of maxSize bytes alongside the other fields
+     */
+    public static int rrCapacity(int maxSize, int bpm, boolean energyExpended) {
+        return Math.max(0, (maxSize - size(bpm, energyExpended, 0)) / 2);
+    }
+
+    /**
+     * Convert an RR interval to the characteristic's 1/1024 s resolution
+     * @param millis RR interval in milliseconds
+     * @return Value in 1/1024 s, rounded and saturated at 65535 (64 s)
+     */
+    public static int rrIntervalUnits(int millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("RR interval must not be negative: " + millis);
+        }
+        return (int) Math.min(UINT16_MAX, (millis * 1024L + 500) / 1000);
+    }
+
+    // UINT16 little-endian, comme tous les champs GATT
+    private static int writeUint16(byte[] dst, int position, int value) {
+        dst[position] = (byte) value;
+        dst[position + 1] = (byte) (value >>> 8);
+        return position + 2;
+    }
+}
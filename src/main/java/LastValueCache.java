@@ -0,0 +1,161 @@
+package main.java;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Last payload sent per characteristic, to skip notifies that would not change anything
+ * Each entry keeps a 64-bit FNV-1a hash and the length of the last payload
+ * sent, and optionally a copy of its bytes for an exact comparison. An
+ * unchanged payload is still sent once the heartbeat interval has elapsed
+ * since the last send, so that a client subscribing late gets the value.
+ */
+public final class LastValueCache {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long heartbeatNanos;
+    private final boolean compareBytes;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder suppressed = new LongAdder();
+
+    private static final class Entry {
+        final long hash;
+        final int length;
+        final byte[] bytes; // null sans comparaison exacte
+        final long sentNanos;
+
+        Entry(long hash, int length, byte[] bytes, long sentNanos) {
+            this.hash = hash;
+            this.length = length;
+            this.bytes = bytes;
+            this.sentNanos = sentNanos;
+        }
+    }
+
+    /**
+     * @param heartbeatInterval Longest time an unchanged payload may be suppressed
+     * @param unit Unit of heartbeatInterval
+     * @param compareBytes true to keep a copy of each payload and compare bytes, not only hashes
+     */
+    public LastValueCache(long heartbeatInterval, TimeUnit unit, boolean compareBytes) {
+        if (heartbeatInterval <= 0) {
+            throw new IllegalArgumentException("Heartbeat interval must be positive: " + heartbeatInterval);
+        }
+        this.heartbeatNanos = unit.toNanos(heartbeatInterval);
+        this.compareBytes = compareBytes;
+    }
+
+    public long getHeartbeatNanos() {
+        return heartbeatNanos;
+    }
+
+    public boolean isCompareBytes() {
+        return compareBytes;
+    }
+
+    /**
+     * Check whether a payload can be skipped; counts it as suppressed if so
+     * @param key Characteristic the payload is sent on
+     * @return true if it equals the last payload sent and the heartbeat is not due
+     */
+    public boolean suppress(String key, byte[] data, int offset, int length) {
+        checkRange(data, offset, length);
+        Entry last = entries.get(key);
+        if (last == null || last.length != length || System.nanoTime() - last.sentNanos >= heartbeatNanos
+                || last.hash != hash(data, offset, length)) {
+            return false;
+        }
+        if (last.bytes != null && !Arrays.equals(last.bytes, 0, length, data, offset, offset + length)) {
+            return false;
+        }
+        suppressed.increment();
+        return true;
+    }
+
+    /**
+     * Check the bytes between the buffer's position and limit (the position is left unchanged)
+     * @see #suppress(String, byte[], int, int)
+     */
+    public boolean suppress(String key, ByteBuffer data) {
+        if (data.hasArray()) {
+            return suppress(key, data.array(), data.arrayOffset() + data.position(), data.remaining());
+        }
+        Entry last = entries.get(key);
+        if (last == null || last.length != data.remaining() || System.nanoTime() - last.sentNanos >= heartbeatNanos
+                || last.hash != hash(data)) {
+            return false;
+        }
+        if (last.bytes != null && !ByteBuffer.wrap(last.bytes).equals(data)) {
+            return false;
+        }
+        suppressed.increment();
+        return true;
+    }
+
+    /**
+     * Remember a payload that was sent successfully
+     * @param key Characteristic the payload was sent on
+     */
+    public void update(String key, byte[] data, int offset, int length) {
+        checkRange(data, offset, length);
+        byte[] copy = compareBytes ? Arrays.copyOfRange(data, offset, offset + length) : null;
+        entries.put(Objects.requireNonNull(key, "key"),
+                new Entry(hash(data, offset, length), length, copy, System.nanoTime()));
+    }
+
+    /**
+     * Remember the bytes between the buffer's position and limit (the position is left unchanged)
+     */
+    public void update(String key, ByteBuffer data) {
+        byte[] copy = null;
+        if (compareBytes) {
+            copy = new byte[data.remaining()];
+            data.duplicate().get(copy);
+        }
+        entries.put(Objects.requireNonNull(key, "key"),
+                new Entry(hash(data), data.remaining(), copy, System.nanoTime()));
+    }
+
+    /**
+     * Forget the last payload of a characteristic, so that the next one is always sent
+     */
+    public void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    /**
+     * @return Payloads skipped since creation
+     */
+    public long getSuppressed() {
+        return suppressed.sum();
+    }
+
+    private static void checkRange(byte[] data, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > data.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", size=" + data.length);
+        }
+    }
+
+    static long hash(byte[] data, int offset, int length) {
+        long hash = FNV_OFFSET;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ (data[i] & 0xFF)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long hash(ByteBuffer data) {
+        long hash = FNV_OFFSET;
+        for (int i = data.position(); i < data.limit(); i++) {
+            hash = (hash ^ (data.get(i) & 0xFF)) * FNV_PRIME;
+        }
+        return hash;
+    }
+}
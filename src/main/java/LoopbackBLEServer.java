@@ -0,0 +1,366 @@
+package main.java;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * In-process BLE backend: simulates the GATT link instead of calling the native layer
+ * Chunking, compression, framing, pacing and metrics are the ones of BLEServer;
+ * only the radio is replaced by a link model:
+ * <ul>
+ *   <li>bandwidth: each chunk occupies the link for bytes / bandwidth</li>
+ *   <li>latency: added between the end of transmission and delivery</li>
+ *   <li>buffer depth: chunks waiting for the link; a notify on a full buffer fails</li>
+ *   <li>loss rate: transmitted chunks silently dropped, as unacknowledged notifications are</li>
+ *   <li>MTU: reported as the negotiated ATT MTU</li>
+ * </ul>
+ * Delivered chunks are handed, in order, to the subscriber on a dedicated thread.
+ */
+public class LoopbackBLEServer extends BLEServer {
+
+    /** Default number of chunks the simulated controller can hold */
+    public static final int DEFAULT_BUFFER_DEPTH = 16;
+
+    private static final class Chunk {
+        final byte[] data;
+        final long transmittedAt;
+        final long deliverAt;
+
+        Chunk(byte[] data, long transmittedAt, long deliverAt) {
+            this.data = data;
+            this.transmittedAt = transmittedAt;
+            this.deliverAt = deliverAt;
+        }
+    }
+
+    // Modèle de lien, modifiable à chaud
+    private volatile long bytesPerSecond = 0;
+    private volatile long latencyNanos = 0;
+    private volatile double lossRate = 0;
+    private volatile int bufferDepth = DEFAULT_BUFFER_DEPTH;
+    private volatile int mtu = 0;
+    private volatile Consumer<byte[]> subscriber = chunk -> { };
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    // Protégés par lock
+    private final ArrayDeque<Chunk> inFlight = new ArrayDeque<>();
+    private final Random random = new Random();
+    private long linkFreeAt;
+    private long deliveredChunks;
+    private long lostChunks;
+    private long rejectedChunks;
+    private boolean running;
+    private boolean delivering;
+    private Thread deliveryThread;
+
+    /**
+     * Loopback server whose link sends at unlimited bandwidth with no latency nor loss
+     */
+    public LoopbackBLEServer() {
+        setPacingStrategy(PacingStrategy.none());
+    }
+
+    /**
+     * The loopback never loads the native library
+     */
+    @Override
+    protected void loadNativeLibrary() {
+        // no-op
+    }
+
+    /**
+     * @param bytesPerSecond Link bandwidth, 0 for unlimited
+     */
+    public void setBandwidth(long bytesPerSecond) {
+        if (bytesPerSecond < 0) {
+            throw new IllegalArgumentException("Bandwidth must not be negative: " + bytesPerSecond);
+        }
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    public long getBandwidth() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * @param latency Delay between the end of a chunk's transmission and its delivery
+     * @param unit Unit of latency
+     */
+    public void setLatency(long latency, TimeUnit unit) {
+        if (latency < 0) {
+            throw new IllegalArgumentException("Latency must not be negative: " + latency);
+        }
+        this.latencyNanos = unit.toNanos(latency);
+    }
+
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    /**
+     * @param lossRate Probability, between 0 and 1, that a transmitted chunk is never delivered
+     */
+    public void setLossRate(double lossRate) {
+        if (!(lossRate >= 0 && lossRate <= 1)) {
+            throw new IllegalArgumentException("Loss rate must be between 0 and 1: " + lossRate);
+        }
+        this.lossRate = lossRate;
+    }
+
+    public double getLossRate() {
+        return lossRate;
+    }
+
+    /**
+     * Seed the loss model so that runs are reproducible
+     */
+    public void setRandomSeed(long seed) {
+        lock.lock();
+        try {
+            random.setSeed(seed);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param bufferDepth Chunks that can wait for the link before notify fails
+     */
+    public void setBufferDepth(int bufferDepth) {
+        if (bufferDepth <= 0) {
+            throw new IllegalArgumentException("Buffer depth must be positive: " + bufferDepth);
+        }
+        this.bufferDepth = bufferDepth;
+    }
+
+    public int getBufferDepth() {
+        return bufferDepth;
+    }
+
+    /**
+     * Simulate an MTU exchange with the central
+     * @param mtu Negotiated ATT MTU, 0 if unknown
+     */
+    public void setMtu(int mtu) {
+        this.mtu = mtu;
+        onMtuChanged(mtu);
+    }
+
+    /**
+     * @param subscriber Receives a copy of every delivered chunk, on the delivery thread
+     */
+    public void setSubscriber(Consumer<byte[]> subscriber) {
+        this.subscriber = (subscriber != null) ? subscriber : chunk -> { };
+    }
+
+    public long getDeliveredChunks() {
+        lock.lock();
+        try {
+            return deliveredChunks;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Chunks dropped by the loss model
+     */
+    public long getLostChunks() {
+        lock.lock();
+        try {
+            return lostChunks;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Notifies refused because the buffer was full
+     */
+    public long getRejectedChunks() {
+        lock.lock();
+        try {
+            return rejectedChunks;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until every accepted chunk has been delivered or lost
+     * @return false if chunks were still in flight after the timeout
+     */
+    public boolean awaitDelivery(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (!inFlight.isEmpty() || delivering) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = changed.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    protected int nativeStartServer(String serviceUuid, String charUuid) {
+        lock.lock();
+        try {
+            if (!running) {
+                running = true;
+                deliveryThread = new Thread(this::deliver, "loopback-ble-link");
+                deliveryThread.setDaemon(true);
+                deliveryThread.start();
+            }
+            return 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    protected void nativeStopServer() {
+        Thread thread;
+        lock.lock();
+        try {
+            running = false;
+            inFlight.clear();
+            changed.signalAll();
+            thread = deliveryThread;
+            deliveryThread = null;
+        } finally {
+            lock.unlock();
+        }
+        if (thread != null && thread != Thread.currentThread()) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    protected int nativeNotify(byte[] data) {
+        return enqueue(data.clone());
+    }
+
+    @Override
+    protected int nativeNotifyRange(byte[] data, int offset, int length) {
+        byte[] chunk = new byte[length];
+        System.arraycopy(data, offset, chunk, 0, length);
+        return enqueue(chunk);
+    }
+
+    @Override
+    protected int nativeNotifyDirect(ByteBuffer buffer, int offset, int length) {
+        byte[] chunk = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        source.limit(offset + length).position(offset);
+        source.get(chunk);
+        return enqueue(chunk);
+    }
+
+    @Override
+    protected int nativeNotifyBatch(byte[] payload, int offset, int length, int chunkSize) {
+        int index = 0;
+        for (int i = offset; i < offset + length; i += chunkSize, index++) {
+            if (nativeNotifyRange(payload, i, Math.min(chunkSize, offset + length - i)) != 0) {
+                return index;
+            }
+        }
+        return index;
+    }
+
+    @Override
+    protected int nativeGetMtu() {
+        return mtu;
+    }
+
+    // Place le chunk derrière ceux en attente du lien ; -1 si serveur arrêté ou tampon plein
+    private int enqueue(byte[] chunk) {
+        lock.lock();
+        try {
+            if (!running) {
+                return -1;
+            }
+            long now = System.nanoTime();
+            if (waitingChunks(now) >= bufferDepth) {
+                rejectedChunks++;
+                return -1;
+            }
+            long bandwidth = bytesPerSecond;
+            long transmitNanos = bandwidth > 0 ? chunk.length * 1_000_000_000L / bandwidth : 0;
+            long transmitStart = inFlight.isEmpty() ? now : Math.max(now, linkFreeAt);
+            linkFreeAt = transmitStart + transmitNanos;
+            inFlight.add(new Chunk(chunk, linkFreeAt, linkFreeAt + latencyNanos));
+            changed.signalAll();
+            return 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Chunks pas encore transmis (fin de transmission croissante : on part de la queue)
+    private int waitingChunks(long now) {
+        int waiting = 0;
+        Iterator<Chunk> it = inFlight.descendingIterator();
+        while (it.hasNext() && it.next().transmittedAt - now > 0) {
+            waiting++;
+        }
+        return waiting;
+    }
+
+    // Thread de livraison : remet chaque chunk à l'abonné à son heure d'arrivée
+    private void deliver() {
+        lock.lock();
+        try {
+            while (running) {
+                Chunk head = inFlight.peek();
+                if (head == null) {
+                    changed.awaitUninterruptibly();
+                    continue;
+                }
+                long wait = head.deliverAt - System.nanoTime();
+                if (wait > 0) {
+                    changed.awaitNanos(wait);
+                    continue;
+                }
+                inFlight.poll();
+                boolean lost = lossRate > 0 && random.nextDouble() < lossRate;
+                if (lost) {
+                    lostChunks++;
+                } else {
+                    delivering = true;
+                    lock.unlock();
+                    try {
+                        subscriber.accept(head.data);
+                    } catch (RuntimeException e) {
+                        // Un abonné défaillant ne coupe pas le lien simulé
+                    } finally {
+                        lock.lock();
+                        delivering = false;
+                    }
+                    deliveredChunks++;
+                }
+                changed.signalAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package main.java;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+
+/**
+ * Persistent cache of the native library extracted from the JAR
+ * Each library is stored under a directory named after the SHA-256 of its
+ * content, so a new build never reuses a stale file and an unchanged one is
+ * extracted only once. Files are written to a temporary name and renamed
+ * atomically while holding a file lock, which keeps concurrent JVMs safe.
+ *
+ * The cache root belongs to the current user: it is created owner-only
+ * (rwx------ where POSIX permissions exist) and refused if another user owns
+ * it. A cached file is hashed again before being returned, so a library
+ * planted or modified in place is never loaded.
+ * <p>
+ * {@link #extract(String, long, long, Resource)} avoids reading and hashing
+ * the library on every start: a stamp file records the size and modification
+ * time of the resource with the hash they produced, and the cached file is
+ * returned as long as the resource and the file are unchanged. The resource is
+ * read and hashed again only when that check fails.
+ */
+public final class NativeLibraryCache {
+
+    /** System property overriding the cache directory */
+    public static final String CACHE_DIR_PROPERTY = "vitalble.cache.dir";
+
+    private static final String LOCK_FILE = ".lock";
+    private static final String STAMP_SUFFIX = ".stamp";
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+
+    private final Path directory;
+
+    /**
+     * Library content, opened only when the cached copy cannot be trusted
+     */
+    @FunctionalInterface
+    public interface Resource {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * @param directory Cache root, created on first extraction
+     */
+    public NativeLibraryCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return {@value #CACHE_DIR_PROPERTY} if set, otherwise vital-ble-cache-&lt;user&gt; in java.io.tmpdir
+     */
+    public static Path defaultDirectory() {
+        String configured = System.getProperty(CACHE_DIR_PROPERTY);
+        if (configured != null && !configured.trim().isEmpty()) {
+            return Paths.get(configured.trim());
+        }
+        // Un répertoire par utilisateur : java.io.tmpdir est partagé et accessible à tous en écriture
+        String user = System.getProperty("user.name", "").replaceAll("[^A-Za-z0-9._-]", "_");
+        return Paths.get(System.getProperty("java.io.tmpdir"), "vital-ble-cache-" + user);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Return the cached copy of a library, extracting it first if needed
+     * @param libraryName File name expected by System.load (BLEServer.dll, libBLEServer.so)
+     * @param content Library bytes
+     * @return Absolute path of the cached library
+     * @throws IOException if the cache directory cannot be written or belongs to another user
+     */
+    public Path extract(String libraryName, byte[] content) throws IOException {
+        secureRoot();
+        return extract(libraryName, content, sha256(content));
+    }
+
+    /**
+     * Return the cached copy of a library, reading and hashing it only if the
+     * resource or the cached file changed since the last extraction
+     * @param libraryName File name expected by System.load (BLEServer.dll, libBLEServer.so)
+     * @param size Resource size in bytes, negative if unknown
+     * @param lastModified Resource modification time in milliseconds, 0 if unknown
+     * @param resource Opens the library bytes when they must be read
+     * @return Absolute path of the cached library
+     * @throws IOException if the cache directory cannot be written or belongs to another user
+     */
+    public Path extract(String libraryName, long size, long lastModified, Resource resource) throws IOException {
+        secureRoot();
+        Path stampFile = directory.resolve(libraryName + STAMP_SUFFIX);
+        // Taille ou date inconnue : rien ne prouve que la ressource est inchangée, elle est hachée
+        if (size >= 0 && lastModified != 0) {
+            Path cached = readStamp(stampFile, libraryName, size, lastModified);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        byte[] content;
+        try (InputStream in = resource.open()) {
+            content = in.readAllBytes();
+        }
+        String hash = sha256(content);
+        Path target = extract(libraryName, content, hash);
+        if (size == content.length && lastModified != 0) {
+            writeStamp(stampFile, size, lastModified, hash, target);
+        }
+        return target;
+    }
+
+    private Path extract(String libraryName, byte[] content, String hash) throws IOException {
+        Path entryDirectory = directory.resolve(hash);
+        Path target = entryDirectory.resolve(libraryName).toAbsolutePath();
+        if (isValid(target, content.length, hash)) {
+            return target;
+        }
+
+        Files.createDirectories(entryDirectory);
+        // Verrou JVM (FileLock n'exclut pas deux threads du même processus) puis verrou inter-JVM
+        synchronized (NativeLibraryCache.class) {
+            try (FileChannel lockChannel = FileChannel.open(entryDirectory.resolve(LOCK_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = lockChannel.lock();
+                try {
+                    // Une autre JVM a pu terminer l'extraction pendant l'attente du verrou
+                    if (isValid(target, content.length, hash)) {
+                        return target;
+                    }
+                    Path temp = Files.createTempFile(entryDirectory, libraryName, ".tmp");
+                    try {
+                        Files.write(temp, content);
+                        move(temp, target);
+                    } finally {
+                        Files.deleteIfExists(temp);
+                    }
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+        return target;
+    }
+
+    // Crée la racine réservée au propriétaire, ou vérifie qu'une racine existante appartient bien à l'utilisateur courant
+    private void secureRoot() throws IOException {
+        boolean posix = directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+        if (!Files.isDirectory(directory, LinkOption.NOFOLLOW_LINKS)) {
+            Files.createDirectories(directory.toAbsolutePath().getParent());
+            try {
+                if (posix) {
+                    Files.createDirectory(directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+                } else {
+                    Files.createDirectory(directory);
+                }
+            } catch (FileAlreadyExistsException e) {
+                // créé entre-temps (autre JVM, ou lien symbolique) : vérifié ci-dessous
+            }
+        }
+        if (!Files.isDirectory(directory)) {
+            throw new IOException("Native library cache is not a directory: " + directory);
+        }
+        UserPrincipal user = directory.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        // Le lien symbolique éventuel et sa cible doivent tous deux appartenir à l'utilisateur
+        for (UserPrincipal owner : new UserPrincipal[] {
+                Files.getOwner(directory, LinkOption.NOFOLLOW_LINKS), Files.getOwner(directory.toRealPath())}) {
+            if (!owner.equals(user)) {
+                throw new IOException("Native library cache " + directory + " is owned by " + owner.getName()
+                        + ", not by " + user.getName());
+            }
+        }
+        if (posix && !Files.getPosixFilePermissions(directory).equals(OWNER_ONLY)) {
+            Files.setPosixFilePermissions(directory, OWNER_ONLY); // racine créée par une version précédente
+        }
+    }
+
+    // Fichier en cache si la ressource et le fichier sont ceux enregistrés par writeStamp, sinon null
+    private Path readStamp(Path stampFile, String libraryName, long size, long lastModified) throws IOException {
+        if (!Files.isRegularFile(stampFile, LinkOption.NOFOLLOW_LINKS)) {
+            return null;
+        }
+        // size lastModified hash fileModified
+        String[] fields = new String(Files.readAllBytes(stampFile), StandardCharsets.US_ASCII).trim().split(" ");
+        try {
+            if (fields.length != 4 || Long.parseLong(fields[0]) != size || Long.parseLong(fields[1]) != lastModified
+                    || !fields[2].matches("[0-9a-f]{64}")) {
+                return null;
+            }
+            Path target = directory.resolve(fields[2]).resolve(libraryName).toAbsolutePath();
+            boolean unchanged = Files.isRegularFile(target, LinkOption.NOFOLLOW_LINKS)
+                    && Files.size(target) == size
+                    && Files.getLastModifiedTime(target, LinkOption.NOFOLLOW_LINKS).toMillis() == Long.parseLong(fields[3]);
+            return unchanged ? target : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void writeStamp(Path stampFile, long size, long lastModified, String hash, Path target) throws IOException {
+        FileTime written = Files.getLastModifiedTime(target, LinkOption.NOFOLLOW_LINKS);
+        String stamp = size + " " + lastModified + " " + hash + " " + written.toMillis() + "\n";
+        Path temp = Files.createTempFile(directory, stampFile.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, stamp.getBytes(StandardCharsets.US_ASCII));
+            move(temp, stampFile);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Contenu haché à nouveau : ni la taille ni le nom du répertoire ne prouvent que le fichier est celui attendu
+    private static boolean isValid(Path target, int length, String hash) throws IOException {
+        if (!Files.isRegularFile(target, LinkOption.NOFOLLOW_LINKS) || Files.size(target) != length) {
+            return false;
+        }
+        return hash.equals(sha256(Files.readAllBytes(target)));
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static String sha256(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package main.java;
+
+/**
+ * What an asynchronous send queue does when it is full
+ */
+public enum OverflowPolicy {
+
+    /**
+     * The producer waits until the transmit thread frees a slot
+     */
+    BLOCK,
+
+    /**
+     * The oldest queued payload is evicted (its future completes with false)
+     */
+    DROP_OLDEST,
+
+    /**
+     * The new payload is rejected immediately (its future fails with RejectedExecutionException)
+     */
+    FAIL_FAST
+}
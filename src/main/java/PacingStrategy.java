@@ -0,0 +1,50 @@
+package main.java;
+
+/**
+ * Pacing strategy applied by BLEServer before each chunk
+ * Lets the inter-chunk gap be tuned to the adapter instead of a fixed sleep
+ */
+public interface PacingStrategy {
+
+    /**
+     * No pacing: chunks are sent back to back
+     */
+    PacingStrategy NONE = new PacingStrategy() {
+        @Override
+        public void acquire(int chunkBytes) {
+        }
+
+        @Override
+        public int acquireBurst(int chunkBytes, int maxChunks) {
+            return maxChunks;
+        }
+    };
+
+    /**
+     * Block until the next chunk may be sent
+     * @param chunkBytes Size of the chunk about to be sent
+     * @throws InterruptedException if the sending thread is interrupted while waiting
+     */
+    void acquire(int chunkBytes) throws InterruptedException;
+
+    /**
+     * Block until the first of several chunks may be sent, then take the
+     * following ones whose slot is already open. Used to size a batch handed
+     * to the native layer, which sends its chunks back to back.
+     * @param chunkBytes Size of each chunk
+     * @param maxChunks Chunks waiting to be sent, at least 1
+     * @return Chunks that may go out back to back now, between 1 and maxChunks
+     * @throws InterruptedException if the sending thread is interrupted while waiting
+     */
+    default int acquireBurst(int chunkBytes, int maxChunks) throws InterruptedException {
+        acquire(chunkBytes);
+        return 1;
+    }
+
+    /**
+     * @return Strategy that never waits
+     */
+    static PacingStrategy none() {
+        return NONE;
+    }
+}
@@ -0,0 +1,222 @@
+package main.java;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Optional compression stage applied by BLEServer before chunking
+ * Once enabled, every payload starts with a one-byte header so that
+ * receivers can tell both forms apart:
+ * <pre>
+ *   [0x00][payload]                                stored
+ *   [0x01][original length, u32 BE][zlib stream]   deflated
+ * </pre>
+ * Payloads below the threshold, or that would not shrink, are stored.
+ */
+public final class PayloadCompressor {
+
+    public static final byte STORED = 0x00;
+    public static final byte DEFLATED = 0x01;
+
+    /** Largest growth of an encoded payload: the stored form adds only its header */
+    public static final int HEADER_SIZE = 1;
+
+    private static final int DEFLATED_HEADER = 5;
+    // Sortie initiale de decode, agrandie au fil de l'inflation jusqu'à la longueur annoncée
+    private static final int MIN_DECODE_CAPACITY = 256;
+
+    private final int thresholdBytes;
+    private final int level;
+
+    // Deflater et tampon de sortie réutilisés par thread d'émission
+    private final ThreadLocal<Workspace> workspace;
+
+    private static final class Workspace {
+        final Deflater deflater;
+        byte[] out = new byte[0];
+        ByteBuffer view = ByteBuffer.wrap(out);
+
+        Workspace(int level) {
+            this.deflater = new Deflater(level);
+        }
+
+        void ensureCapacity(int size) {
+            if (out.length < size) {
+                out = new byte[Math.max(size, out.length * 2)];
+                view = ByteBuffer.wrap(out);
+            }
+        }
+    }
+
+    /**
+     * Fast Deflate (level 1) for payloads of at least thresholdBytes
+     * @param thresholdBytes Smallest payload worth compressing
+     */
+    public PayloadCompressor(int thresholdBytes) {
+        this(thresholdBytes, Deflater.BEST_SPEED);
+    }
+
+    /**
+     * @param thresholdBytes Smallest payload worth compressing
+     * @param level Deflate level, 1 (fastest) to 9 (smallest)
+     */
+    public PayloadCompressor(int thresholdBytes, int level) {
+        if (thresholdBytes < 0) {
+            throw new IllegalArgumentException("Threshold must not be negative: " + thresholdBytes);
+        }
+        if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Deflate level must be between 1 and 9: " + level);
+        }
+        this.thresholdBytes = thresholdBytes;
+        this.level = level;
+        this.workspace = ThreadLocal.withInitial(() -> new Workspace(level));
+    }
+
+    public int getThresholdBytes() {
+        return thresholdBytes;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Encode an array region
+     * @return View of a per-thread buffer, valid until the next encode on the same thread
+     */
+    public ByteBuffer encode(byte[] data, int offset, int length) {
+        Workspace ws = workspace.get();
+        ws.ensureCapacity(length + 1);
+        if (length >= thresholdBytes) {
+            ws.deflater.reset();
+            ws.deflater.setInput(data, offset, length);
+            if (deflate(ws, length)) {
+                return ws.view;
+            }
+        }
+        ws.out[0] = STORED;
+        System.arraycopy(data, offset, ws.out, 1, length);
+        return result(ws, length + 1);
+    }
+
+    /**
+     * Encode a buffer region without changing the buffer's position
+     * @param offset Absolute index of the first byte
+     * @return View of a per-thread buffer, valid until the next encode on the same thread
+     */
+    public ByteBuffer encode(ByteBuffer data, int offset, int length) {
+        ByteBuffer source = data.duplicate();
+        source.limit(offset + length).position(offset);
+        Workspace ws = workspace.get();
+        ws.ensureCapacity(length + 1);
+        if (length >= thresholdBytes) {
+            ws.deflater.reset();
+            ws.deflater.setInput(source);
+            if (deflate(ws, length)) {
+                return ws.view;
+            }
+            source.position(offset);
+        }
+        ws.out[0] = STORED;
+        source.get(ws.out, 1, length);
+        return result(ws, length + 1);
+    }
+
+    // Compresse dans ws.out ; abandonne dès que le résultat n'est plus plus court que la forme stockée
+    private static boolean deflate(Workspace ws, int length) {
+        Deflater deflater = ws.deflater;
+        deflater.finish();
+        int limit = length + 1;
+        int pos = DEFLATED_HEADER;
+        while (!deflater.finished() && pos < limit) {
+            pos += deflater.deflate(ws.out, pos, limit - pos);
+        }
+        if (!deflater.finished() || pos >= limit) {
+            return false;
+        }
+        ws.out[0] = DEFLATED;
+        ws.out[1] = (byte) (length >>> 24);
+        ws.out[2] = (byte) (length >>> 16);
+        ws.out[3] = (byte) (length >>> 8);
+        ws.out[4] = (byte) length;
+        result(ws, pos);
+        return true;
+    }
+
+    private static ByteBuffer result(Workspace ws, int length) {
+        ws.view.clear();
+        ws.view.limit(length);
+        return ws.view;
+    }
+
+    /**
+     * Receiver side: decode a payload produced by {@link #encode(byte[], int, int)}
+     * The output grows as the stream inflates, so a corrupt length header
+     * alone does not allocate the announced size.
+     * @param payload Received message
+     * @param offset Index of the header byte
+     * @param length Message length including the header
+     * @return Original payload
+     * @throws DataFormatException if the header or the compressed stream is invalid
+     */
+    public static byte[] decode(byte[] payload, int offset, int length) throws DataFormatException {
+        return decode(payload, offset, length, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Receiver side: decode a payload, refusing original payloads above maxLength
+     * @param payload Received message
+     * @param offset Index of the header byte
+     * @param length Message length including the header
+     * @param maxLength Largest original payload accepted
+     * @return Original payload
+     * @throws DataFormatException if the header or the compressed stream is invalid, or maxLength is exceeded
+     */
+    public static byte[] decode(byte[] payload, int offset, int length, int maxLength) throws DataFormatException {
+        if (length < 1) {
+            throw new DataFormatException("Empty payload");
+        }
+        if (payload[offset] == STORED) {
+            if (length - 1 > maxLength) {
+                throw new DataFormatException("Payload of " + (length - 1) + " bytes exceeds " + maxLength);
+            }
+            return Arrays.copyOfRange(payload, offset + 1, offset + length);
+        }
+        if (payload[offset] != DEFLATED || length < DEFLATED_HEADER) {
+            throw new DataFormatException("Unknown compression header: " + payload[offset]);
+        }
+        int originalLength = ((payload[offset + 1] & 0xFF) << 24)
+                | ((payload[offset + 2] & 0xFF) << 16)
+                | ((payload[offset + 3] & 0xFF) << 8)
+                | (payload[offset + 4] & 0xFF);
+        if (originalLength < 0 || originalLength > maxLength) {
+            throw new DataFormatException("Invalid original length: " + originalLength + " (max " + maxLength + ")");
+        }
+        long guess = Math.max(MIN_DECODE_CAPACITY, 4L * (length - DEFLATED_HEADER));
+        byte[] original = new byte[(int) Math.min(originalLength, guess)];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(payload, offset + DEFLATED_HEADER, length - DEFLATED_HEADER);
+            int pos = 0;
+            while (!inflater.finished()) {
+                if (pos == original.length && pos < originalLength) {
+                    original = Arrays.copyOf(original, (int) Math.min(originalLength, 2L * original.length));
+                }
+                int n = inflater.inflate(original, pos, original.length - pos);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary() || pos == originalLength)) {
+                    break;
+                }
+                pos += n;
+            }
+            if (!inflater.finished() || pos != originalLength) {
+                throw new DataFormatException("Truncated compressed payload");
+            }
+        } finally {
+            inflater.end();
+        }
+        return original;
+    }
+}
@@ -0,0 +1,39 @@
+package main.java;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Priority class of a message sent through {@link PrioritySender}
+ * A chunk of a higher class is always sent before the next chunk of a lower
+ * one, so an alarm waits for at most one chunk of an in-flight bulk transfer.
+ */
+public enum Priority {
+
+    /**
+     * Clinical alarms, interleaved between the chunks of any other message
+     */
+    ALARM(100),
+
+    /**
+     * Periodic vital signs
+     */
+    VITALS(1_000),
+
+    /**
+     * Large transfers (history, waveforms, logs), sent when no other lane has data
+     */
+    BULK(30_000);
+
+    private final long defaultBudgetNanos;
+
+    Priority(long defaultBudgetMillis) {
+        this.defaultBudgetNanos = TimeUnit.MILLISECONDS.toNanos(defaultBudgetMillis);
+    }
+
+    /**
+     * @return Default latency budget, from submission to the last chunk, counted as missed in {@link BLEMetrics}
+     */
+    public long getDefaultBudgetNanos() {
+        return defaultBudgetNanos;
+    }
+}
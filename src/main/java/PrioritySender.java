@@ -0,0 +1,346 @@
+package main.java;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-priority send queues drained chunk by chunk by a dedicated transmit thread
+ * Before each chunk the thread picks the highest non-empty lane, so a message
+ * of a higher {@link Priority} is interleaved between the chunks of an
+ * in-flight lower one instead of waiting for its last chunk. Every chunk is
+ * framed ({@link FrameHeader}) and receivers rebuild the interleaved messages
+ * with a {@link FrameReassembler} accepting one in-flight message per lane.
+ * <p>
+ * On a {@link BLEServer}, framing must be enabled first
+ * ({@link BLEServer#setFraming(boolean)}). The sender then becomes the only
+ * transmit path of the server until {@link #shutdown()}: its other sends
+ * (sendData, sendBytes, sendBuffer) are queued on the {@link Priority#VITALS}
+ * lane, message ids come from the server's counter, and chunks follow its
+ * compressor, pacing and retry policy.
+ */
+public final class PrioritySender {
+
+    private static final Priority[] LANES = Priority.values();
+
+    private final BLEServerInterface server;
+    private final BLEMetrics metrics;
+    private final int capacityPerLane;
+
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<Message>[] lanes = (ArrayDeque<Message>[]) new ArrayDeque<?>[LANES.length];
+    private final long[] budgetNanos = new long[LANES.length];
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    // Protégé par lock
+    private boolean running = true;
+
+    // Utilisés par le seul thread d'émission
+    private final byte[] frame = new byte[BLEServer.MAX_CHUNK_SIZE];
+    private int nextMessageId; // serveurs autres que BLEServer
+
+    private final Thread transmitThread;
+
+    // Message en file, puis en cours d'émission en tête de sa voie
+    private static final class Message {
+        final byte[] data;
+        final Priority priority;
+        final long submitNanos;
+        final boolean recordMessage; // faux si le serveur mesure déjà le message
+        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        int messageId;
+        int payloadSize; // fixé au premier chunk
+        int position;
+        int chunkIndex;
+
+        Message(byte[] data, Priority priority, boolean recordMessage) {
+            this.data = data;
+            this.priority = priority;
+            this.recordMessage = recordMessage;
+            this.submitNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Create the lanes and start their transmit thread
+     * @param server Server whose notify() receives the framed chunks
+     * @param metrics Receives per-chunk and per-lane measurements
+     * @param capacityPerLane Messages waiting in each lane before submit() blocks
+     * @param threadName Name of the transmit thread
+     * @throws IllegalStateException if the BLEServer is not framing or another sender runs on it
+     */
+    public PrioritySender(BLEServerInterface server, BLEMetrics metrics, int capacityPerLane, String threadName) {
+        if (capacityPerLane <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacityPerLane);
+        }
+        this.server = Objects.requireNonNull(server, "server");
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+        this.capacityPerLane = capacityPerLane;
+        for (Priority priority : LANES) {
+            lanes[priority.ordinal()] = new ArrayDeque<>(capacityPerLane);
+            budgetNanos[priority.ordinal()] = priority.getDefaultBudgetNanos();
+        }
+        if (server instanceof BLEServer) {
+            ((BLEServer) server).attachLanes(this);
+        }
+        this.transmitThread = new Thread(this::drain, threadName);
+        this.transmitThread.setDaemon(true);
+        this.transmitThread.start();
+    }
+
+    /**
+     * Set the latency budget of a lane, from submission to the last chunk
+     * @param priority Lane to configure
+     * @param budget Budget, messages over it are counted by {@link BLEMetrics#getLaneBudgetMisses}
+     * @param unit Unit of budget
+     */
+    public void setLatencyBudget(Priority priority, long budget, TimeUnit unit) {
+        if (budget <= 0) {
+            throw new IllegalArgumentException("Latency budget must be positive: " + budget);
+        }
+        lock.lock();
+        try {
+            budgetNanos[priority.ordinal()] = unit.toNanos(budget);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getLatencyBudgetNanos(Priority priority) {
+        lock.lock();
+        try {
+            return budgetNanos[priority.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queue a message on its lane, waiting while the lane is full
+     * The data is copied, the caller may reuse its array.
+     * @return Future completed with true once the last chunk is sent, false if it failed or was discarded
+     */
+    public CompletableFuture<Boolean> submit(byte[] data, int offset, int length, Priority priority) {
+        if (offset < 0 || length < 0 || offset > data.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", size=" + data.length);
+        }
+        Objects.requireNonNull(priority, "priority");
+        PayloadCompressor compressor = (server instanceof BLEServer) ? ((BLEServer) server).getCompressor() : null;
+        byte[] copy;
+        if (compressor != null) {
+            ByteBuffer encoded = compressor.encode(data, offset, length);
+            copy = Arrays.copyOf(encoded.array(), encoded.limit());
+        } else {
+            copy = Arrays.copyOfRange(data, offset, offset + length);
+        }
+        return enqueue(new Message(copy, priority, true));
+    }
+
+    // Message déjà compressé et mesuré par BLEServer, lu dans array ou buffer (l'un des deux est null)
+    CompletableFuture<Boolean> submitEncoded(byte[] array, ByteBuffer buffer, int offset, int length,
+                                             Priority priority) {
+        byte[] copy;
+        if (array != null) {
+            copy = Arrays.copyOfRange(array, offset, offset + length);
+        } else {
+            copy = new byte[length];
+            ByteBuffer source = buffer.duplicate();
+            source.limit(offset + length).position(offset);
+            source.get(copy);
+        }
+        return enqueue(new Message(copy, priority, false));
+    }
+
+    private CompletableFuture<Boolean> enqueue(Message message) {
+        ArrayDeque<Message> lane = lanes[message.priority.ordinal()];
+        lock.lock();
+        try {
+            while (running && lane.size() == capacityPerLane) {
+                try {
+                    notFull.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    message.future.completeExceptionally(e);
+                    return message.future;
+                }
+            }
+            if (!running) {
+                message.future.completeExceptionally(new RejectedExecutionException("Sender is shut down"));
+                return message.future;
+            }
+            lane.addLast(message);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        return message.future;
+    }
+
+    /**
+     * @return Messages waiting or in flight on this lane
+     */
+    public int size(Priority priority) {
+        lock.lock();
+        try {
+            return lanes[priority.ordinal()].size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop the transmit thread. Queued and in-flight messages complete with false.
+     */
+    public void shutdown() {
+        if (server instanceof BLEServer) {
+            ((BLEServer) server).detachLanes(this); // les envois suivants repartent en direct
+        }
+        lock.lock();
+        try {
+            if (!running) {
+                return;
+            }
+            running = false;
+            for (ArrayDeque<Message> lane : lanes) {
+                Message message;
+                while ((message = lane.pollFirst()) != null) {
+                    message.future.complete(false);
+                }
+            }
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        transmitThread.interrupt();
+        if (Thread.currentThread() != transmitThread) {
+            try {
+                transmitThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Message message = null;
+            lock.lock();
+            try {
+                while (running && (message = highestPending()) == null) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                if (!running) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            boolean sent;
+            try {
+                sent = sendNextChunk(message);
+            } catch (InterruptedException e) {
+                return; // shutdown : le message a déjà été complété avec false
+            } catch (RuntimeException e) {
+                sent = false;
+            }
+            if (!sent || message.position == message.data.length) {
+                complete(message, sent);
+            }
+        }
+    }
+
+    // Tête de la voie la plus prioritaire (appelé sous lock)
+    private Message highestPending() {
+        for (ArrayDeque<Message> lane : lanes) {
+            Message head = lane.peekFirst();
+            if (head != null) {
+                return head;
+            }
+        }
+        return null;
+    }
+
+    // Envoie un chunk tramé du message ; le dernier chunk porte le drapeau de fin
+    private boolean sendNextChunk(Message message) throws InterruptedException {
+        if (message.chunkIndex == 0) {
+            message.payloadSize = Math.min(server.getChunkSize(), frame.length) - FrameHeader.SIZE;
+            if (message.payloadSize <= 0
+                    || (message.data.length + message.payloadSize - 1) / message.payloadSize > FrameHeader.MAX_CHUNKS) {
+                return false;
+            }
+            message.messageId = (server instanceof BLEServer)
+                    ? ((BLEServer) server).allocateMessageId()
+                    : nextMessageId++ & 0xFFFF;
+        }
+        int size = Math.min(message.payloadSize, message.data.length - message.position);
+        boolean last = message.position + size == message.data.length;
+        FrameHeader.write(frame, 0, message.messageId, message.chunkIndex, last, message.data.length);
+        System.arraycopy(message.data, message.position, frame, FrameHeader.SIZE, size);
+
+        if (!notifyChunk(FrameHeader.SIZE + size)) {
+            return false;
+        }
+        message.position += size;
+        message.chunkIndex++;
+        return true;
+    }
+
+    // Comme BLEServer.notifyChunk : pacing puis nouveaux essais selon la politique de reprise du serveur
+    private boolean notifyChunk(int size) throws InterruptedException {
+        PacingStrategy pacing = null;
+        RetryPolicy retry = RetryPolicy.none();
+        if (server instanceof BLEServer) {
+            pacing = ((BLEServer) server).getPacingStrategy();
+            retry = ((BLEServer) server).getRetryPolicy();
+        }
+        for (int attempt = 0; ; attempt++) {
+            if (attempt > 0) {
+                retry.await(attempt);
+            }
+            if (pacing != null) {
+                pacing.acquire(size);
+            }
+
+            long notifyStart = System.nanoTime();
+            int result = server.notify(frame, 0, size);
+            metrics.recordNotify(size, System.nanoTime() - notifyStart, result == 0);
+            if (result == 0) {
+                return true;
+            }
+            if (attempt >= retry.getMaxRetries()) {
+                return false;
+            }
+        }
+    }
+
+    private void complete(Message message, boolean sent) {
+        long budget;
+        lock.lock();
+        try {
+            ArrayDeque<Message> lane = lanes[message.priority.ordinal()];
+            if (lane.peekFirst() == message) {
+                lane.pollFirst();
+                notFull.signalAll();
+            }
+            budget = budgetNanos[message.priority.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+        long nanos = System.nanoTime() - message.submitNanos;
+        if (message.recordMessage) {
+            metrics.recordMessage(message.data.length, nanos, sent);
+        }
+        metrics.recordLane(message.priority, nanos, budget);
+        message.future.complete(sent);
+    }
+}
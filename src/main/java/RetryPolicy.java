@@ -0,0 +1,88 @@
+package main.java;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retry of a failed chunk by BLEServer
+ * A chunk whose notify fails is sent again after a backoff that doubles
+ * from the initial delay up to the maximum, at most maxRetries times in a
+ * row; the count starts over after every chunk that goes through.
+ */
+public final class RetryPolicy {
+
+    /**
+     * No retry: the first failed notify ends the send
+     */
+    public static final RetryPolicy NONE = new RetryPolicy(0, 0, 0);
+
+    private final int maxRetries;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+
+    private RetryPolicy(int maxRetries, long initialBackoffNanos, long maxBackoffNanos) {
+        this.maxRetries = maxRetries;
+        this.initialBackoffNanos = initialBackoffNanos;
+        this.maxBackoffNanos = maxBackoffNanos;
+    }
+
+    /**
+     * @return Policy that never retries
+     */
+    public static RetryPolicy none() {
+        return NONE;
+    }
+
+    /**
+     * @param maxRetries Retries of a chunk before the send fails
+     * @param initialBackoff Wait before the first retry (0 to retry at once)
+     * @param maxBackoff Longest wait between two retries
+     * @param unit Unit of both backoffs
+     * @return Policy with exponential backoff
+     */
+    public static RetryPolicy exponentialBackoff(int maxRetries, long initialBackoff, long maxBackoff, TimeUnit unit) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("Max retries must not be negative: " + maxRetries);
+        }
+        if (initialBackoff < 0 || maxBackoff < initialBackoff) {
+            throw new IllegalArgumentException("Backoff must satisfy 0 <= initial <= max: " + initialBackoff + ", " + maxBackoff);
+        }
+        return new RetryPolicy(maxRetries, unit.toNanos(initialBackoff), unit.toNanos(maxBackoff));
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * @param retry Retry number, starting at 1
+     * @return Wait before that retry in nanoseconds
+     */
+    public long backoffNanos(int retry) {
+        if (retry < 1) {
+            throw new IllegalArgumentException("Retry number must be positive: " + retry);
+        }
+        // Doublement plafonné, sans dépassement de capacité
+        long backoff = initialBackoffNanos;
+        for (int i = 1; i < retry && backoff < maxBackoffNanos; i++) {
+            backoff = backoff > maxBackoffNanos / 2 ? maxBackoffNanos : backoff << 1;
+        }
+        return backoff;
+    }
+
+    /**
+     * Wait before a retry
+     * @param retry Retry number, starting at 1
+     * @throws InterruptedException if the sending thread is interrupted while waiting
+     */
+    void await(int retry) throws InterruptedException {
+        long backoff = backoffNanos(retry);
+        if (backoff > 0) {
+            TimeUnit.NANOSECONDS.sleep(backoff);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RetryPolicy[maxRetries=%d, backoff=%d..%d ns]", maxRetries, initialBackoffNanos, maxBackoffNanos);
+    }
+}
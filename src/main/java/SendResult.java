@@ -0,0 +1,58 @@
+package main.java;
+
+/**
+ * Outcome of a send, with the number of bytes the receiver already has
+ * After a failure, sending again from {@link #getResumeOffset()} completes
+ * the payload without resending what went through. Compressed and framed
+ * sends cannot be resumed (the receiver discards a partial message), so
+ * they report 0 bytes delivered unless complete.
+ */
+public final class SendResult {
+
+    private final int offset;
+    private final int length;
+    private final int bytesDelivered;
+
+    SendResult(int offset, int length, int bytesDelivered) {
+        this.offset = offset;
+        this.length = length;
+        this.bytesDelivered = bytesDelivered;
+    }
+
+    /**
+     * @return true if every byte was delivered
+     */
+    public boolean isComplete() {
+        return length > 0 && bytesDelivered == length;
+    }
+
+    /**
+     * @return Leading bytes of the payload delivered, 0 to length
+     */
+    public int getBytesDelivered() {
+        return bytesDelivered;
+    }
+
+    /**
+     * @return Bytes still to send, 0 when complete
+     */
+    public int getRemaining() {
+        return length - bytesDelivered;
+    }
+
+    /**
+     * @return Index in the caller's array or buffer of the first byte not delivered
+     */
+    public int getResumeOffset() {
+        return offset + bytesDelivered;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SendResult[%d/%d bytes%s]", bytesDelivered, length, isComplete() ? ", complete" : "");
+    }
+}
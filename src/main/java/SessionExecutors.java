@@ -0,0 +1,50 @@
+package main.java;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors running the per-session send loops
+ * This Java 11 version shares a small pool of daemon platform threads
+ * between sessions: a session blocked in a native call holds one of them,
+ * so the number of sessions stalled at the same time should stay below
+ * the pool size. The multi-release JAR replaces this class on Java 21+
+ * (src/main/java21) with one virtual thread per task.
+ */
+public final class SessionExecutors {
+
+    // Petit pool : les envois sont bloquants mais courts, les attentes de pacing aussi
+    private static final int PLATFORM_POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors());
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private SessionExecutors() {
+    }
+
+    /**
+     * @param name Prefix of the thread names
+     * @return Executor for session send tasks; shut it down when the sessions end
+     */
+    public static ExecutorService newSessionExecutor(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = task -> {
+            Thread thread = new Thread(task, name + "-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(PLATFORM_POOL_SIZE, PLATFORM_POOL_SIZE,
+            KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory);
+        executor.allowCoreThreadTimeOut(true); // aucun thread conservé sans session active
+        return executor;
+    }
+
+    /**
+     * @return true if session tasks run on virtual threads (Java 21+)
+     */
+    public static boolean usesVirtualThreads() {
+        return false;
+    }
+}
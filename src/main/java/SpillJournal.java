@@ -0,0 +1,387 @@
+package main.java;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Persistent outbound journal for payloads produced while the link is down
+ * Payloads are appended to memory-mapped segment files of a fixed size, so
+ * the heap does not grow however long the outage lasts, and replayed in
+ * order once the link is back. The replay position is kept in each segment,
+ * so payloads still pending when the JVM stops are replayed after a restart.
+ * When the retention limit is reached the oldest segment is dropped.
+ *
+ * Segment layout: magic u32, replay position u32, then records of
+ * [length u32, payload]; a zero length marks the end of the written area.
+ * Consumed segments are deleted; where the OS refuses to delete a file that
+ * is still mapped (Windows), it is deleted when the journal is next opened.
+ */
+public final class SpillJournal implements Closeable {
+
+    /** Default segment file size */
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 20;
+    /** Smallest segment file size */
+    public static final int MIN_SEGMENT_SIZE = 64;
+
+    static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 4;
+    private static final int MAGIC = 0x56424A31; // "VBJ1"
+    private static final String PREFIX = "spill-";
+    private static final String SUFFIX = ".seg";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private static final class Segment {
+        final Path path;
+        final MappedByteBuffer buffer;
+        final ByteBuffer writer; // vue réutilisée pour les copies en bloc
+        int readPosition;
+        int writePosition;
+
+        Segment(Path path, MappedByteBuffer buffer) {
+            this.path = path;
+            this.buffer = buffer;
+            this.writer = buffer.duplicate();
+        }
+    }
+
+    // Protégés par lock
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private long nextSegmentId;
+    private long droppedRecords;
+    private boolean closed;
+
+    // Lecture sans verrou pour le chemin d'envoi courant (journal vide)
+    private volatile long pendingRecords;
+
+    /**
+     * Open a journal, picking up the segments left by a previous run
+     * @param directory Directory of the segment files, created if needed
+     * @param segmentSize Size of each segment file; a payload must fit in one segment
+     * @param maxSegments Segments kept before the oldest is dropped
+     * @throws IOException if the directory or an existing segment cannot be read
+     */
+    public SpillJournal(Path directory, int segmentSize, int maxSegments) throws IOException {
+        if (segmentSize < MIN_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Segment size must be at least " + MIN_SEGMENT_SIZE + ": " + segmentSize);
+        }
+        if (maxSegments <= 0) {
+            throw new IllegalArgumentException("Max segments must be positive: " + maxSegments);
+        }
+        this.directory = Objects.requireNonNull(directory, "directory");
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public int getMaxSegments() {
+        return maxSegments;
+    }
+
+    /**
+     * @return Largest payload a segment can hold
+     */
+    public int getMaxPayloadSize() {
+        return segmentSize - HEADER_SIZE - RECORD_HEADER_SIZE;
+    }
+
+    /**
+     * Append a payload
+     * @return false if the payload is empty, larger than {@link #getMaxPayloadSize()},
+     *         or the journal is closed or cannot create a segment
+     */
+    public boolean append(byte[] data, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > data.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", size=" + data.length);
+        }
+        lock.lock();
+        try {
+            Segment segment = reserve(length);
+            if (segment == null) {
+                return false;
+            }
+            segment.writer.position(segment.writePosition + RECORD_HEADER_SIZE);
+            segment.writer.put(data, offset, length);
+            commit(segment, length);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Append the bytes between the buffer's position and limit (the position is left unchanged)
+     * @see #append(byte[], int, int)
+     */
+    public boolean append(ByteBuffer data) {
+        lock.lock();
+        try {
+            int length = data.remaining();
+            Segment segment = reserve(length);
+            if (segment == null) {
+                return false;
+            }
+            segment.writer.position(segment.writePosition + RECORD_HEADER_SIZE);
+            segment.writer.put(data.duplicate());
+            commit(segment, length);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Segment courant s'il reste de la place, sinon un nouveau (en abandonnant le plus ancien si besoin)
+    private Segment reserve(int length) {
+        if (closed || length == 0 || length > getMaxPayloadSize()) {
+            return null;
+        }
+        Segment last = segments.peekLast();
+        if (last != null && last.writePosition + RECORD_HEADER_SIZE + length <= last.buffer.capacity()) {
+            return last;
+        }
+        if (segments.size() >= maxSegments) {
+            Segment oldest = segments.pollFirst();
+            long dropped = countRecords(oldest);
+            droppedRecords += dropped;
+            pendingRecords -= dropped;
+            oldest.buffer.putInt(4, oldest.writePosition); // jamais rejoué, même si la suppression échoue
+            delete(oldest);
+        }
+        try {
+            Segment segment = createSegment(nextSegmentId++);
+            segments.addLast(segment);
+            return segment;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // La longueur est écrite en dernier : un ajout interrompu se lit comme la fin du segment
+    private void commit(Segment segment, int length) {
+        segment.buffer.putInt(segment.writePosition, length);
+        segment.writePosition += RECORD_HEADER_SIZE + length;
+        pendingRecords++;
+    }
+
+    /**
+     * Hand the pending payloads to sink, oldest first
+     * Each payload is a read-only view of the mapped file, valid only during
+     * the call. Replay stops at the first payload the sink refuses; that
+     * payload is offered again on the next replay. A sink that advanced the
+     * view's position before refusing it has sent that prefix: only the rest
+     * is offered again.
+     * @param sink Sends a payload, returns false if it could not
+     * @return true if the journal is now empty
+     */
+    public boolean replay(Predicate<ByteBuffer> sink) {
+        if (pendingRecords == 0) {
+            return true;
+        }
+        lock.lock();
+        try {
+            while (!segments.isEmpty()) {
+                Segment segment = segments.peekFirst();
+                while (segment.readPosition < segment.writePosition) {
+                    int length = segment.buffer.getInt(segment.readPosition);
+                    int start = segment.readPosition + RECORD_HEADER_SIZE;
+                    ByteBuffer payload = segment.buffer.asReadOnlyBuffer();
+                    payload.limit(start + length).position(start);
+                    ByteBuffer view = payload.slice();
+                    if (!sink.test(view)) {
+                        int consumed = view.position();
+                        if (consumed > 0 && consumed < length) {
+                            // Le reste devient un record plus court, écrit sur les octets déjà envoyés
+                            segment.readPosition = start + consumed - RECORD_HEADER_SIZE;
+                            segment.buffer.putInt(segment.readPosition, length - consumed);
+                            segment.buffer.putInt(4, segment.readPosition);
+                        }
+                        return false;
+                    }
+                    segment.readPosition = start + length;
+                    segment.buffer.putInt(4, segment.readPosition);
+                    pendingRecords--;
+                }
+                if (segment == segments.peekLast()) {
+                    break; // segment courant, encore ouvert aux ajouts
+                }
+                segments.pollFirst();
+                delete(segment);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return true if no payload is waiting for replay
+     */
+    public boolean isEmpty() {
+        return pendingRecords == 0;
+    }
+
+    /**
+     * @return Payloads waiting for replay
+     */
+    public long getPendingRecords() {
+        return pendingRecords;
+    }
+
+    /**
+     * @return Payloads lost because the retention limit dropped their segment
+     */
+    public long getDroppedRecords() {
+        lock.lock();
+        try {
+            return droppedRecords;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write the mapped segments to the storage device, to survive a power loss
+     * (a JVM crash alone loses nothing once append returned)
+     */
+    public void force() {
+        lock.lock();
+        try {
+            for (Segment segment : segments) {
+                segment.buffer.force();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flush the segments and stop accepting payloads; pending payloads stay on disk
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (!closed) {
+                force();
+                segments.clear();
+                pendingRecords = 0;
+                closed = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null); // identifiants de longueur fixe : ordre lexicographique = ordre d'écriture
+
+        long pending = 0;
+        for (Path file : files) {
+            nextSegmentId = Math.max(nextSegmentId, segmentId(file) + 1);
+            Segment segment = openSegment(file);
+            if (segment.readPosition == segment.writePosition) {
+                delete(segment); // déjà rejoué
+            } else {
+                segments.addLast(segment);
+                pending += countRecords(segment);
+            }
+        }
+        pendingRecords = pending;
+    }
+
+    private Segment createSegment(long id) throws IOException {
+        Path path = directory.resolve(String.format("%s%016d%s", PREFIX, id, SUFFIX));
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, HEADER_SIZE);
+        Segment segment = new Segment(path, buffer);
+        segment.readPosition = HEADER_SIZE;
+        segment.writePosition = HEADER_SIZE;
+        return segment;
+    }
+
+    private static Segment openSegment(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Invalid spill segment size: " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a spill segment: " + path);
+        }
+        Segment segment = new Segment(path, buffer);
+        // Fin de la zone écrite : première longueur nulle ou enregistrement tronqué
+        int position = HEADER_SIZE;
+        while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > buffer.capacity() - position - RECORD_HEADER_SIZE) {
+                break;
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+        segment.writePosition = position;
+        int readPosition = buffer.getInt(4);
+        segment.readPosition = (readPosition >= HEADER_SIZE && readPosition <= position) ? readPosition : HEADER_SIZE;
+        return segment;
+    }
+
+    private static long countRecords(Segment segment) {
+        long count = 0;
+        for (int position = segment.readPosition; position < segment.writePosition; count++) {
+            position += RECORD_HEADER_SIZE + segment.buffer.getInt(position);
+        }
+        return count;
+    }
+
+    private static long segmentId(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid spill segment name: " + file, e);
+        }
+    }
+
+    private static void delete(Segment segment) {
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            // Fichier encore mappé (Windows) : supprimé à la prochaine ouverture, sa position de relecture étant à jour
+        }
+    }
+}
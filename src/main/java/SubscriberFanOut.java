@@ -0,0 +1,397 @@
+package main.java;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Fan-out of payloads to every subscribed central, each at its own pace
+ * Every subscriber gets a bounded queue, a pacing strategy and a send loop
+ * of its own, so a slow display only fills its own queue instead of
+ * throttling the others. A published payload is encoded once, with the
+ * compressor and framing of a {@link BLEServer}, and the same array is
+ * queued for every subscriber.
+ *
+ * Servers that cannot notify a single central
+ * ({@link BLEServerInterface#supportsSubscriberNotify()} is false) get one
+ * shared queue instead, identified by {@link #BROADCAST}, so that each
+ * payload is notified once to all the centrals.
+ *
+ * Send loops run on {@link SessionExecutors}: virtual threads on Java 21+,
+ * a small shared platform pool on Java 11. A loop drains at most one queue
+ * length before yielding, so busy subscribers take turns on the pool.
+ */
+public final class SubscriberFanOut implements SubscriptionListener, AutoCloseable {
+
+    /** Default payloads queued per subscriber */
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    /** Identity of the shared queue used when the server cannot notify a single central */
+    public static final int BROADCAST = -1;
+
+    private final BLEServerInterface server;
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Supplier<PacingStrategy> pacingFactory;
+    private final BLEMetrics metrics;
+    private final Map<Integer, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService executor = SessionExecutors.newSessionExecutor("VitalBLE-fanout");
+    private final Subscriber broadcast;
+    private volatile boolean closed;
+
+    // Payload encodé une fois, partagé par toutes les files, découpé en chunks de chunkSize octets
+    private static final class Payload {
+        final byte[] data;
+        final int chunkSize;
+
+        Payload(byte[] data, int chunkSize) {
+            this.data = data;
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    /**
+     * Queue and send loop of one central
+     */
+    private final class Subscriber {
+        final int id;
+        final PacingStrategy pacing;
+        final ReentrantLock lock = new ReentrantLock();
+        final LongAdder sent = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final LongAdder failed = new LongAdder();
+
+        // Protégés par lock
+        final ArrayDeque<Payload> queue = new ArrayDeque<>();
+        boolean running = true;
+        boolean scheduled; // une boucle d'envoi est soumise ou en cours
+        Thread worker;
+
+        Subscriber(int id) {
+            this.id = id;
+            this.pacing = Objects.requireNonNull(pacingFactory.get(), "pacing");
+        }
+
+        boolean offer(Payload payload) {
+            lock.lock();
+            try {
+                if (!running) {
+                    return false;
+                }
+                if (queue.size() == queueCapacity) {
+                    dropped.increment();
+                    if (overflowPolicy == OverflowPolicy.FAIL_FAST) {
+                        return false;
+                    }
+                    queue.pollFirst();
+                }
+                queue.addLast(payload);
+                if (!scheduled) {
+                    scheduled = true;
+                    schedule();
+                }
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Appelé sous lock
+        private void schedule() {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled = false; // fan-out fermé
+            }
+        }
+
+        int queued() {
+            lock.lock();
+            try {
+                return queue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void stop() {
+            lock.lock();
+            try {
+                running = false;
+                queue.clear();
+                if (worker != null) {
+                    worker.interrupt(); // interrompt aussi une attente de pacing
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void drain() {
+            lock.lock();
+            try {
+                worker = Thread.currentThread();
+            } finally {
+                lock.unlock();
+            }
+            try {
+                for (int batch = 0; batch < queueCapacity; batch++) {
+                    Payload payload;
+                    lock.lock();
+                    try {
+                        if (!running || queue.isEmpty()) {
+                            return;
+                        }
+                        payload = queue.pollFirst();
+                    } finally {
+                        lock.unlock();
+                    }
+                    try {
+                        if (transmit(payload)) {
+                            sent.increment();
+                        } else {
+                            failed.increment();
+                        }
+                    } catch (InterruptedException e) {
+                        return; // désabonné pendant l'envoi
+                    } catch (RuntimeException e) {
+                        failed.increment();
+                    }
+                }
+            } finally {
+                lock.lock();
+                try {
+                    worker = null;
+                    Thread.interrupted(); // le thread du pool sert ensuite d'autres abonnés
+                    if (running && !queue.isEmpty()) {
+                        schedule(); // laisse passer les autres abonnés avant de continuer
+                    } else {
+                        scheduled = false;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        // Découpe le payload partagé, sans copie : chaque chunk est une région du même tableau
+        private boolean transmit(Payload payload) throws InterruptedException {
+            byte[] data = payload.data;
+            int chunkSize = payload.chunkSize;
+            for (int i = 0; i < data.length; i += chunkSize) {
+                int size = Math.min(chunkSize, data.length - i);
+                pacing.acquire(size);
+                long start = System.nanoTime();
+                int result = (id == BROADCAST) ? server.notify(data, i, size) : server.notify(id, data, i, size);
+                if (metrics != null) {
+                    metrics.recordNotify(size, System.nanoTime() - start, result == 0);
+                }
+                if (result != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Fan-out with {@value #DEFAULT_QUEUE_CAPACITY} payloads per subscriber,
+     * dropping the oldest, paced like BLEServer
+     * @param server Server notifying the centrals
+     */
+    public SubscriberFanOut(BLEServerInterface server) {
+        this(server, DEFAULT_QUEUE_CAPACITY, OverflowPolicy.DROP_OLDEST, () -> TokenBucketPacer.chunksPerSecond(1000, 1));
+    }
+
+    /**
+     * Register with the server and open a queue for each central already subscribed
+     * @param server Server notifying the centrals
+     * @param queueCapacity Payloads queued per subscriber
+     * @param overflowPolicy DROP_OLDEST or FAIL_FAST; BLOCK is refused, a slow
+     *                       subscriber would then stall the producer and every other subscriber
+     * @param pacingFactory Creates the pacing strategy of each new subscriber
+     */
+    public SubscriberFanOut(BLEServerInterface server, int queueCapacity, OverflowPolicy overflowPolicy,
+                            Supplier<PacingStrategy> pacingFactory) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+        }
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            throw new IllegalArgumentException("BLOCK would let one subscriber stall the others");
+        }
+        this.server = Objects.requireNonNull(server, "server");
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = Objects.requireNonNull(overflowPolicy, "overflowPolicy");
+        this.pacingFactory = Objects.requireNonNull(pacingFactory, "pacingFactory");
+        this.metrics = server.getMetrics();
+        this.broadcast = new Subscriber(BROADCAST);
+        server.setSubscriptionListener(this);
+        int[] current = server.getSubscribers();
+        if (current != null) {
+            for (int subscriberId : current) {
+                onSubscribed(subscriberId);
+            }
+        }
+    }
+
+    /**
+     * Queue a payload for every subscriber
+     * The region is encoded once; all subscribers share that copy.
+     * @return Number of subscribers the payload was queued for, 1 for the
+     *         {@link #BROADCAST} queue, 0 if it is too large to be framed
+     */
+    public int publish(byte[] data, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > data.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", size=" + data.length);
+        }
+        boolean perSubscriber = server.supportsSubscriberNotify();
+        if (length == 0 || (perSubscriber && subscribers.isEmpty())) {
+            return 0;
+        }
+        Payload shared = encode(data, offset, length);
+        if (shared == null) {
+            return 0;
+        }
+        if (!perSubscriber) {
+            // notify(subscriberId, ...) atteindrait chaque central : une seule file pour tous
+            return (!closed && broadcast.offer(shared)) ? 1 : 0;
+        }
+        int queued = 0;
+        for (Subscriber subscriber : subscribers.values()) {
+            if (subscriber.offer(shared)) {
+                queued++;
+            }
+        }
+        return queued;
+    }
+
+    // Compression puis trames de BLEServer, comme pour ses propres envois ; null si trop de chunks
+    private Payload encode(byte[] data, int offset, int length) {
+        int chunkSize = server.getChunkSize();
+        if (chunkSize <= 0) {
+            chunkSize = BLEServer.DEFAULT_CHUNK_SIZE;
+        }
+        if (!(server instanceof BLEServer)) {
+            return new Payload(Arrays.copyOfRange(data, offset, offset + length), chunkSize);
+        }
+        BLEServer ble = (BLEServer) server;
+        PayloadCompressor compressor = ble.getCompressor();
+        if (compressor != null) {
+            ByteBuffer encoded = compressor.encode(data, offset, length);
+            data = encoded.array();
+            offset = 0;
+            length = encoded.limit();
+        }
+        if (!ble.isFraming()) {
+            return new Payload(Arrays.copyOfRange(data, offset, offset + length), chunkSize);
+        }
+
+        int payloadSize = chunkSize - FrameHeader.SIZE;
+        int chunkCount = payloadSize > 0 ? (length + payloadSize - 1) / payloadSize : 0;
+        if (chunkCount == 0 || chunkCount > FrameHeader.MAX_CHUNKS) {
+            return null;
+        }
+        byte[] framed = new byte[length + chunkCount * FrameHeader.SIZE];
+        int messageId = ble.allocateMessageId();
+        int position = 0;
+        for (int index = 0; index < chunkCount; index++) {
+            int size = Math.min(payloadSize, length - index * payloadSize);
+            FrameHeader.write(framed, position, messageId, index, index == chunkCount - 1, length);
+            System.arraycopy(data, offset + index * payloadSize, framed, position + FrameHeader.SIZE, size);
+            position += FrameHeader.SIZE + size;
+        }
+        return new Payload(framed, chunkSize);
+    }
+
+    /**
+     * @see #publish(byte[], int, int)
+     */
+    public int publish(byte[] data) {
+        return publish(data, 0, data.length);
+    }
+
+    @Override
+    public void onSubscribed(int subscriberId) {
+        if (closed) {
+            return;
+        }
+        subscribers.computeIfAbsent(subscriberId, Subscriber::new);
+    }
+
+    /**
+     * The subscriber's queue is discarded
+     */
+    @Override
+    public void onUnsubscribed(int subscriberId) {
+        Subscriber subscriber = subscribers.remove(subscriberId);
+        if (subscriber != null) {
+            subscriber.stop();
+        }
+    }
+
+    /**
+     * @return Identities of the subscribers being served
+     */
+    public int[] getSubscribers() {
+        return subscribers.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    /**
+     * @param subscriberId Identity of the central, or {@link #BROADCAST}
+     * @return Payloads waiting for a subscriber, 0 if unknown
+     */
+    public int getQueued(int subscriberId) {
+        Subscriber subscriber = subscriber(subscriberId);
+        return subscriber == null ? 0 : subscriber.queued();
+    }
+
+    /**
+     * @return Payloads fully notified to a subscriber
+     */
+    public long getSent(int subscriberId) {
+        Subscriber subscriber = subscriber(subscriberId);
+        return subscriber == null ? 0 : subscriber.sent.sum();
+    }
+
+    /**
+     * @return Payloads a subscriber lost because its queue was full
+     */
+    public long getDropped(int subscriberId) {
+        Subscriber subscriber = subscriber(subscriberId);
+        return subscriber == null ? 0 : subscriber.dropped.sum();
+    }
+
+    /**
+     * @return Payloads whose notify failed for a subscriber
+     */
+    public long getFailed(int subscriberId) {
+        Subscriber subscriber = subscriber(subscriberId);
+        return subscriber == null ? 0 : subscriber.failed.sum();
+    }
+
+    private Subscriber subscriber(int subscriberId) {
+        return subscriberId == BROADCAST ? broadcast : subscribers.get(subscriberId);
+    }
+
+    /**
+     * Unregister from the server and stop every send loop; queued payloads are discarded
+     */
+    @Override
+    public void close() {
+        closed = true;
+        server.setSubscriptionListener(null);
+        for (Integer subscriberId : subscribers.keySet()) {
+            onUnsubscribed(subscriberId);
+        }
+        broadcast.stop();
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,19 @@
+package main.java;
+
+/**
+ * Subscribe and unsubscribe events of the centrals connected to a BLE server
+ * Each central that enables notifications gets an id, valid until it
+ * unsubscribes or disconnects. Called from the BLE stack thread: keep it short.
+ */
+public interface SubscriptionListener {
+
+    /**
+     * @param subscriberId Identity to pass to {@link BLEServerInterface#notify(int, byte[], int, int)}
+     */
+    void onSubscribed(int subscriberId);
+
+    /**
+     * @param subscriberId Identity of a central that unsubscribed or disconnected
+     */
+    void onUnsubscribed(int subscriberId);
+}
@@ -0,0 +1,129 @@
+package main.java;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Token bucket pacer driven by System.nanoTime
+ * The rate is expressed either in bytes/sec or in chunks/sec. Waits are done
+ * with LockSupport.parkNanos, optionally finishing with a short spin so that
+ * sub-millisecond gaps are not rounded up by the OS timer.
+ */
+public final class TokenBucketPacer implements PacingStrategy {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final long unitsPerSecond;
+    private final long burstUnits;
+    private final boolean countBytes;
+    private final long spinThresholdNanos;
+
+    // Instant théorique à partir duquel la prochaine unité est disponible (seau plein au départ)
+    private final AtomicLong nextFreeNanos = new AtomicLong(Long.MIN_VALUE);
+
+    private TokenBucketPacer(long unitsPerSecond, long burstUnits, boolean countBytes, long spinThresholdNanos) {
+        if (unitsPerSecond <= 0) {
+            throw new IllegalArgumentException("Rate must be positive: " + unitsPerSecond);
+        }
+        if (burstUnits < 0) {
+            throw new IllegalArgumentException("Burst must not be negative: " + burstUnits);
+        }
+        if (spinThresholdNanos < 0) {
+            throw new IllegalArgumentException("Spin threshold must not be negative: " + spinThresholdNanos);
+        }
+        this.unitsPerSecond = unitsPerSecond;
+        this.burstUnits = burstUnits;
+        this.countBytes = countBytes;
+        this.spinThresholdNanos = spinThresholdNanos;
+    }
+
+    /**
+     * Pace by throughput
+     * @param bytesPerSecond Sustained rate
+     * @param burstBytes Bytes that may go out back to back after an idle period
+     * @return New pacer
+     */
+    public static TokenBucketPacer bytesPerSecond(long bytesPerSecond, long burstBytes) {
+        return new TokenBucketPacer(bytesPerSecond, burstBytes, true, 0);
+    }
+
+    /**
+     * Pace by notification count, whatever the chunk size
+     * @param chunksPerSecond Sustained rate
+     * @param burstChunks Chunks that may go out back to back after an idle period
+     * @return New pacer
+     */
+    public static TokenBucketPacer chunksPerSecond(long chunksPerSecond, long burstChunks) {
+        return new TokenBucketPacer(chunksPerSecond, burstChunks, false, 0);
+    }
+
+    /**
+     * Spin-then-park mode: the last part of every wait is spent spinning
+     * @param spinThresholdNanos Remaining wait below which the pacer spins instead of parking
+     * @return New pacer with the same rate and burst
+     */
+    public TokenBucketPacer withSpinThreshold(long spinThresholdNanos) {
+        return new TokenBucketPacer(unitsPerSecond, burstUnits, countBytes, spinThresholdNanos);
+    }
+
+    public long getSpinThresholdNanos() {
+        return spinThresholdNanos;
+    }
+
+    @Override
+    public void acquire(int chunkBytes) throws InterruptedException {
+        long cost = costNanos(countBytes ? chunkBytes : 1);
+        long tolerance = Math.max(0, costNanos(burstUnits) - cost);
+
+        // Réserver un créneau sans verrou, puis attendre hors de toute section critique
+        long sendAt;
+        while (true) {
+            long previous = nextFreeNanos.get();
+            long now = System.nanoTime();
+            sendAt = Math.max(previous, now - tolerance);
+            if (nextFreeNanos.compareAndSet(previous, sendAt + cost)) {
+                break;
+            }
+        }
+        awaitNanos(sendAt);
+    }
+
+    @Override
+    public int acquireBurst(int chunkBytes, int maxChunks) throws InterruptedException {
+        acquire(chunkBytes);
+        long cost = costNanos(countBytes ? chunkBytes : 1);
+        long tolerance = Math.max(0, costNanos(burstUnits) - cost);
+
+        // Chunks suivants seulement si leur créneau est déjà ouvert : aucune attente supplémentaire
+        int granted = 1;
+        while (granted < maxChunks) {
+            long previous = nextFreeNanos.get();
+            long now = System.nanoTime();
+            if (previous > now) {
+                break;
+            }
+            if (nextFreeNanos.compareAndSet(previous, Math.max(previous, now - tolerance) + cost)) {
+                granted++;
+            }
+        }
+        return granted;
+    }
+
+    private long costNanos(long units) {
+        return units * NANOS_PER_SECOND / unitsPerSecond;
+    }
+
+    private void awaitNanos(long deadline) throws InterruptedException {
+        long remaining = deadline - System.nanoTime();
+        while (remaining > spinThresholdNanos) {
+            LockSupport.parkNanos(this, remaining - spinThresholdNanos);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            remaining = deadline - System.nanoTime();
+        }
+        while (deadline - System.nanoTime() > 0) {
+            Thread.onSpinWait();
+        }
+    }
+}
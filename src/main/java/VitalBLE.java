@@ -1,27 +1,92 @@
 package main.java;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
  * Vital BLE - Ultra simple avec UUIDs configurables
  */
 public class VitalBLE {
     
-    private static BLEServerInterface server = new BLEServer();
-    private static boolean isStarted = false;
+    /**
+     * Server lifecycle: STOPPED -> STARTING -> STARTED -> STOPPING -> STOPPED
+     */
+    public enum State {
+        STOPPED,
+        STARTING,
+        STARTED,
+        STOPPING
+    }
+    
+    private static volatile BLEServerInterface server = new BLEServer();
+    
+    // Seul le thread qui réussit le CAS STOPPED -> STARTING démarre le serveur
+    private static final AtomicReference<State> state = new AtomicReference<>(State.STOPPED);
+    
+    // Attente active courte avant de céder le CPU pendant une transition
+    private static final int TRANSITION_SPINS = 100;
+    private static final long TRANSITION_PARK_NANOS = 50_000;
+    
+    // Envoi asynchrone : file bornée vidée par un thread d'émission dédié
+    private static final int DEFAULT_ASYNC_CAPACITY = 64;
+    private static volatile int asyncCapacity = DEFAULT_ASYNC_CAPACITY;
+    private static volatile OverflowPolicy asyncOverflowPolicy = OverflowPolicy.BLOCK;
+    // Créé au premier sendAsync() par CAS, sans prendre le moniteur de la classe
+    private static final AtomicReference<AsyncSender> asyncSender = new AtomicReference<>();
+    
+    // Voies de priorité (désactivées par défaut) : créées au démarrage du serveur
+    private static final long[] latencyBudgetNanos = defaultLatencyBudgets();
+    private static volatile boolean priorityLanesEnabled;
+    private static volatile PrioritySender prioritySender;
+    
+    // Mesures cardiaques encodées sans allocation, un tampon par thread émetteur
+    private static final ThreadLocal<byte[]> HEART_RATE_BUFFER =
+            ThreadLocal.withInitial(() -> new byte[BLEServer.MAX_CHUNK_SIZE]);
+    
+    // Un encodeur de forme d'onde par canal, créé au premier envoi sur ce canal
+    private static final AtomicReferenceArray<WaveformEncoder> waveformEncoders = new AtomicReferenceArray<>(256);
+    // Verrous plutôt que synchronized : un thread virtuel en attente de pacing n'épingle pas son porteur
+    private static final ReentrantLock[] waveformLocks = new ReentrantLock[waveformEncoders.length()];
+    static {
+        Arrays.setAll(waveformLocks, channel -> new ReentrantLock());
+    }
+    
+    // Regroupement des petits messages (0 = désactivé), créé au démarrage du serveur
+    private static volatile long coalescingDelayNanos;
+    private static volatile WriteCoalescer coalescer;
+    
+    // Suppression des envois inchangés (0 = désactivée), cache recréé à chaque démarrage
+    private static volatile long heartbeatNanos;
+    private static volatile boolean heartbeatCompareBytes;
+    private static volatile LastValueCache lastValueCache;
+    
+    // Journal des messages produits pendant une coupure (null = désactivé), conservé d'un démarrage à l'autre
+    private static volatile SpillJournal spillJournal;
     
     /**
      * Set custom BLE server implementation (mainly for testing)
      * @param serverImplementation Custom server implementation
      */
     public static void setServer(BLEServerInterface serverImplementation) {
-        if (isStarted) {
+        if (state.get() != State.STOPPED) {
             throw new IllegalStateException("Cannot change server implementation after server is started");
         }
         server = serverImplementation;
     }
     
     // UUIDs par défaut (Heart Rate Service)
-    private static String serviceUuid = "0000180D-0000-1000-8000-00805F9B34FB";
-    private static String charUuid = "00002A37-0000-1000-8000-00805F9B34FB";
+    private static volatile String serviceUuid = "0000180D-0000-1000-8000-00805F9B34FB";
+    private static volatile String charUuid = "00002A37-0000-1000-8000-00805F9B34FB";
     
     /**
      * Configurer les UUIDs avant le premier envoi
@@ -29,7 +94,7 @@ public class VitalBLE {
      * @param characteristicUuid UUID de la caractéristique
      */
     public static void configure(String serviceUuid, String characteristicUuid) {
-        if (isStarted) {
+        if (state.get() != State.STOPPED) {
             throw new IllegalStateException("Cannot configure UUIDs after server is started. Call configure() before send()");
         }
         
@@ -46,51 +111,811 @@ public class VitalBLE {
      * MÉTHODE PRINCIPALE - Envoyer données
      */
     public static boolean send(String data) {
-        if (!isStarted) {
-            start();
+        if (data != null && spillJournal != null) {
+            return sendBytes(data.getBytes(StandardCharsets.UTF_8));
+        }
+        if (state.get() != State.STARTED && !start()) {
+            return false;
         }
         
-        if (data != null && isStarted) {
+        if (data != null) {
+            LastValueCache cache = lastValueCache;
+            if (cache != null) {
+                byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+                return sendIfChanged(cache, bytes, 0, bytes.length, true);
+            }
+            WriteCoalescer pending = coalescer;
+            if (pending != null) {
+                byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+                return pending.write(bytes, 0, bytes.length);
+            }
             return server.sendData(data);
         }
         return false;
     }
     
+    /**
+     * Envoyer des données binaires, sans passer par String ni UTF-8
+     * @param data Trame binaire
+     * @return true si l'envoi a réussi
+     */
+    public static boolean sendBytes(byte[] data) {
+        return sendBytes(data, 0, data == null ? 0 : data.length);
+    }
+    
+    /**
+     * Envoyer une partie d'un tableau, découpée directement depuis le tampon de l'appelant
+     * @param data Tampon source
+     * @param offset Index du premier octet à envoyer
+     * @param length Nombre d'octets à envoyer
+     * @return true si l'envoi a réussi
+     */
+    public static boolean sendBytes(byte[] data, int offset, int length) {
+        return sendBytes(data, offset, length, true);
+    }
+    
+    // suppressible = false : transmis même s'il est identique au dernier envoi (mesures 0x2A37)
+    private static boolean sendBytes(byte[] data, int offset, int length, boolean suppressible) {
+        SpillJournal journal = spillJournal;
+        if (state.get() != State.STARTED && !start()) {
+            return journal != null && data != null && journal.append(data, offset, length);
+        }
+        
+        if (data != null) {
+            if (journal != null) {
+                // Le journal est rejoué avant tout nouvel envoi pour conserver l'ordre ;
+                // seule la partie non livrée d'un envoi interrompu y est ajoutée
+                if (!journal.replay(VitalBLE::replayRecord)) {
+                    return journal.append(data, offset, length);
+                }
+                int delivered = deliverPrefix(data, offset, length, suppressible);
+                return delivered == length || journal.append(data, offset + delivered, length - delivered);
+            }
+            return deliver(data, offset, length, suppressible);
+        }
+        return false;
+    }
+    
+    // Comme deliver, en renvoyant les octets de tête livrés : un BLEServer s'arrête au chunk refusé,
+    // un message mis en lot ou un autre serveur compte comme livré en entier ou pas du tout
+    private static int deliverPrefix(byte[] data, int offset, int length, boolean suppressible) {
+        BLEServerInterface target = server;
+        if (coalescer != null || !(target instanceof BLEServer) || length == 0) {
+            return deliver(data, offset, length, suppressible) ? length : 0;
+        }
+        LastValueCache cache = lastValueCache;
+        String key = charUuid;
+        if (suppressible && cache != null && cache.suppress(key, data, offset, length)) {
+            return length;
+        }
+        int delivered = ((BLEServer) target).sendResumable(data, offset, length).getBytesDelivered();
+        if (cache != null && delivered == length) {
+            cache.update(key, data, offset, length);
+        }
+        return delivered;
+    }
+    
+    // Rejeu : la position avance des octets livrés, le journal ne garde que la suite d'un envoi interrompu
+    private static boolean replayRecord(ByteBuffer record) {
+        record.position(record.position() + deliverPrefix(record));
+        return !record.hasRemaining();
+    }
+    
+    private static boolean deliver(byte[] data, int offset, int length, boolean suppressible) {
+        LastValueCache cache = lastValueCache;
+        if (cache != null) {
+            return sendIfChanged(cache, data, offset, length, suppressible);
+        }
+        WriteCoalescer pending = coalescer;
+        if (pending != null) {
+            return pending.write(data, offset, length);
+        }
+        return server.sendBytes(data, offset, length);
+    }
+    
+    // Un contenu identique au dernier envoi réussi est considéré comme déjà transmis ;
+    // non suppressible, il part quand même et devient la dernière valeur de la caractéristique
+    private static boolean sendIfChanged(LastValueCache cache, byte[] data, int offset, int length,
+                                         boolean suppressible) {
+        String key = charUuid;
+        if (suppressible && cache.suppress(key, data, offset, length)) {
+            return true;
+        }
+        WriteCoalescer pending = coalescer;
+        boolean sent = pending != null ? pending.write(data, offset, length) : server.sendBytes(data, offset, length);
+        if (sent) {
+            cache.update(key, data, offset, length);
+        }
+        return sent;
+    }
+    
+    /**
+     * Envoyer les octets entre position et limit (la position n'est pas modifiée)
+     * Un DirectByteBuffer est transmis sans copie.
+     * @param data Tampon source
+     * @return true si l'envoi a réussi
+     */
+    public static boolean sendBuffer(ByteBuffer data) {
+        SpillJournal journal = spillJournal;
+        if (state.get() != State.STARTED && !start()) {
+            return journal != null && data != null && journal.append(data);
+        }
+        
+        if (data != null) {
+            if (journal != null) {
+                if (!journal.replay(VitalBLE::replayRecord)) {
+                    return journal.append(data);
+                }
+                int delivered = deliverPrefix(data);
+                if (delivered == data.remaining()) {
+                    return true;
+                }
+                ByteBuffer remainder = data.duplicate();
+                remainder.position(remainder.position() + delivered);
+                return journal.append(remainder);
+            }
+            return deliver(data);
+        }
+        return false;
+    }
+    
+    // Octets livrés à partir de la position, laissée inchangée
+    private static int deliverPrefix(ByteBuffer data) {
+        BLEServerInterface target = server;
+        if (coalescer != null || !(target instanceof BLEServer) || !data.hasRemaining()) {
+            return deliver(data) ? data.remaining() : 0;
+        }
+        LastValueCache cache = lastValueCache;
+        String key = charUuid;
+        if (cache != null && cache.suppress(key, data)) {
+            return data.remaining();
+        }
+        int delivered = ((BLEServer) target).sendResumable(data).getBytesDelivered();
+        if (cache != null && delivered == data.remaining()) {
+            cache.update(key, data);
+        }
+        return delivered;
+    }
+    
+    private static boolean deliver(ByteBuffer data) {
+        LastValueCache cache = lastValueCache;
+        String key = charUuid;
+        if (cache != null && cache.suppress(key, data)) {
+            return true;
+        }
+        WriteCoalescer pending = coalescer;
+        boolean sent = pending != null ? pending.write(data) : server.sendBuffer(data);
+        if (sent && cache != null) {
+            cache.update(key, data);
+        }
+        return sent;
+    }
+    
+    /**
+     * Envoyer une mesure de fréquence cardiaque au format binaire 0x2A37
+     * @param bpm Fréquence cardiaque (0 à 65535)
+     * @return true si l'envoi a réussi
+     */
+    public static boolean sendHeartRate(int bpm) {
+        return sendHeartRate(bpm, HeartRateMeasurement.NO_ENERGY_EXPENDED, null, HeartRateMeasurement.SensorContact.NOT_SUPPORTED);
+    }
+    
+    /**
+     * Envoyer une mesure de fréquence cardiaque avec ses intervalles RR
+     * @param bpm Fréquence cardiaque (0 à 65535)
+     * @param rrIntervalsMillis Intervalles RR en millisecondes, du plus ancien au plus récent
+     * @return true si l'envoi a réussi
+     */
+    public static boolean sendHeartRate(int bpm, int[] rrIntervalsMillis) {
+        return sendHeartRate(bpm, HeartRateMeasurement.NO_ENERGY_EXPENDED, rrIntervalsMillis, HeartRateMeasurement.SensorContact.NOT_SUPPORTED);
+    }
+    
+    /**
+     * Envoyer une mesure complète au format binaire de la caractéristique 0x2A37
+     * La mesure est écrite dans un tampon réutilisé puis envoyée comme par
+     * {@link #sendBytes(byte[], int, int)} : métriques, pacing, reprise et
+     * journal s'appliquent. Elle n'est jamais supprimée par
+     * {@link #configureChangeSuppression} : deux mesures identiques restent deux
+     * battements que le client doit recevoir. Elle reste lisible par tout
+     * client Heart Rate Service tant que compression, tramage et regroupement
+     * sont désactivés. Les intervalles RR qui ne tiennent pas dans une
+     * notification partent dans les suivantes, les plus anciens d'abord.
+     * @param bpm Fréquence cardiaque (0 à 65535)
+     * @param energyExpended Énergie dépensée en kJ, {@link HeartRateMeasurement#NO_ENERGY_EXPENDED} si absente
+     * @param rrIntervalsMillis Intervalles RR en millisecondes, null si absents
+     * @param contact État du contact du capteur
+     * @return true si toutes les notifications ont réussi
+     */
+    public static boolean sendHeartRate(int bpm, int energyExpended, int[] rrIntervalsMillis,
+                                        HeartRateMeasurement.SensorContact contact) {
+        if (state.get() != State.STARTED && !start()) {
+            return false;
+        }
+        
+        byte[] buffer = HEART_RATE_BUFFER.get();
+        int maxSize = Math.min(buffer.length, payloadSize(server));
+        int rrTotal = rrIntervalsMillis == null ? 0 : rrIntervalsMillis.length;
+        int rrFrom = 0;
+        int energy = energyExpended;
+        if (HeartRateMeasurement.size(bpm, energy != HeartRateMeasurement.NO_ENERGY_EXPENDED, 0) > maxSize
+                || (rrTotal > 0 && HeartRateMeasurement.rrCapacity(maxSize, bpm, false) == 0)) {
+            return false; // notification trop petite pour la mesure
+        }
+        do {
+            int rrCount = Math.min(rrTotal - rrFrom,
+                    HeartRateMeasurement.rrCapacity(maxSize, bpm, energy != HeartRateMeasurement.NO_ENERGY_EXPENDED));
+            int length = HeartRateMeasurement.encode(buffer, 0, bpm, energy, rrIntervalsMillis, rrFrom, rrCount, contact);
+            if (!sendBytes(buffer, 0, length, false)) {
+                return false;
+            }
+            rrFrom += rrCount;
+            energy = HeartRateMeasurement.NO_ENERGY_EXPENDED; // l'énergie n'est envoyée qu'une fois
+        } while (rrFrom < rrTotal);
+        return true;
+    }
+    
+    /**
+     * Envoyer des échantillons de forme d'onde 16 bits (ECG, PPG)
+     * @param channel Canal (0 à 255)
+     * @param samples Échantillons
+     * @return true si toutes les trames ont été envoyées
+     * @see #sendWaveform(int, int[])
+     */
+    public static boolean sendWaveform(int channel, short[] samples) {
+        if (samples == null) {
+            return false;
+        }
+        if (state.get() != State.STARTED && !start()) {
+            return false;
+        }
+        WaveformEncoder encoder = waveformEncoder(channel);
+        BLEServerInterface target = server;
+        ReentrantLock lock = waveformLocks[channel];
+        lock.lock();
+        try {
+            return encoder.encode(samples, 0, samples.length, frameSize(target), target::sendBytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Envoyer des échantillons de forme d'onde en codage delta compact
+     * Les deltas sont compressés par blocs à largeur de bits variable, dans des
+     * trames d'une notification chacune ; le récepteur les décode avec
+     * {@link WaveformEncoder.Decoder}.
+     * @param channel Canal (0 à 255)
+     * @param samples Échantillons
+     * @return true si toutes les trames ont été envoyées
+     */
+    public static boolean sendWaveform(int channel, int[] samples) {
+        if (samples == null) {
+            return false;
+        }
+        if (state.get() != State.STARTED && !start()) {
+            return false;
+        }
+        WaveformEncoder encoder = waveformEncoder(channel);
+        BLEServerInterface target = server;
+        ReentrantLock lock = waveformLocks[channel];
+        lock.lock();
+        try {
+            return encoder.encode(samples, 0, samples.length, frameSize(target), target::sendBytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private static WaveformEncoder waveformEncoder(int channel) {
+        if (channel < 0 || channel >= waveformEncoders.length()) {
+            throw new IllegalArgumentException("Channel out of range: " + channel);
+        }
+        WaveformEncoder encoder = waveformEncoders.get(channel);
+        if (encoder == null) {
+            // Deux premiers envois concurrents : l'encodeur perdant est abandonné, il n'a rien émis
+            waveformEncoders.compareAndSet(channel, null, new WaveformEncoder(channel));
+            encoder = waveformEncoders.get(channel);
+        }
+        return encoder;
+    }
+    
+    // Une trame par notification
+    private static int frameSize(BLEServerInterface target) {
+        return Math.max(WaveformEncoder.MIN_FRAME_SIZE, payloadSize(target));
+    }
+    
+    // Charge utile d'une notification : taille de chunk, moins les en-têtes de trame et de compression
+    private static int payloadSize(BLEServerInterface target) {
+        int chunkSize = target.getChunkSize();
+        if (target instanceof BLEServer) {
+            BLEServer ble = (BLEServer) target;
+            if (ble.isFraming()) {
+                chunkSize -= FrameHeader.SIZE;
+            }
+            if (ble.getCompressor() != null) {
+                chunkSize -= PayloadCompressor.HEADER_SIZE;
+            }
+        }
+        return chunkSize;
+    }
+    
+    /**
+     * Envoyer un message dans une voie de priorité, en attendant son dernier chunk
+     * Un message ALARM est intercalé entre les chunks d'un transfert BULK en cours
+     * au lieu d'attendre sa fin. Les chunks sont tramés : le récepteur les
+     * rassemble avec un {@link FrameReassembler} acceptant un message par voie.
+     * Les voies doivent être activées par {@link #configurePriorityLanes(boolean)}.
+     * @param data Données à envoyer
+     * @param priority Voie du message
+     * @return true si l'envoi a réussi
+     * @throws IllegalStateException si les voies de priorité ne sont pas activées
+     */
+    public static boolean send(String data, Priority priority) {
+        if (data == null) {
+            return false;
+        }
+        return await(sendAsync(data, priority));
+    }
+    
+    /**
+     * Envoyer des données binaires dans une voie de priorité, en attendant leur dernier chunk
+     * @param data Trame binaire
+     * @param priority Voie du message
+     * @return true si l'envoi a réussi
+     */
+    public static boolean sendBytes(byte[] data, Priority priority) {
+        if (data == null) {
+            return false;
+        }
+        return await(submit(data, priority));
+    }
+    
+    /**
+     * Placer un message dans une voie de priorité sans attendre son envoi
+     * @param data Données à envoyer
+     * @param priority Voie du message
+     * @return Future complétée avec true une fois le dernier chunk envoyé
+     */
+    public static CompletableFuture<Boolean> sendAsync(String data, Priority priority) {
+        if (data == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return submit(data.getBytes(StandardCharsets.UTF_8), priority);
+    }
+    
+    private static CompletableFuture<Boolean> submit(byte[] data, Priority priority) {
+        if (priority == null) {
+            throw new IllegalArgumentException("Priority must not be null");
+        }
+        if (!priorityLanesEnabled) {
+            throw new IllegalStateException("Priority lanes are not enabled. Call configurePriorityLanes(true) before send()");
+        }
+        if (state.get() != State.STARTED && !start()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        PrioritySender lanes = prioritySender;
+        if (lanes == null) {
+            return CompletableFuture.completedFuture(false); // arrêté entre-temps
+        }
+        return lanes.submit(data, 0, data.length, priority);
+    }
+    
+    /**
+     * Activer les voies de priorité avant le premier envoi
+     * Au démarrage, le tramage est activé sur un {@link BLEServer} et tous ses
+     * envois (send, sendBytes, sendBuffer, sendHeartRate) passent, tramés, par
+     * la voie VITALS : les clients doivent alors utiliser un {@link FrameReassembler}.
+     * Sans cette option, seuls les envois avec priorité sont refusés et les
+     * autres restent directs, au format d'origine.
+     * @param enabled true pour activer les voies
+     */
+    public static void configurePriorityLanes(boolean enabled) {
+        if (state.get() != State.STOPPED) {
+            throw new IllegalStateException("Cannot configure priority lanes after server is started. Call configurePriorityLanes() before send()");
+        }
+        priorityLanesEnabled = enabled;
+    }
+    
+    private static boolean await(CompletableFuture<Boolean> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Configurer le budget de latence d'une voie, de la soumission au dernier chunk
+     * Les dépassements sont comptés dans les métriques (getAlarmBudgetMisses...).
+     * @param priority Voie à configurer
+     * @param budget Budget de latence
+     * @param unit Unité du budget
+     */
+    public static synchronized void configureLatencyBudget(Priority priority, long budget, TimeUnit unit) {
+        if (priority == null) {
+            throw new IllegalArgumentException("Priority must not be null");
+        }
+        if (budget <= 0) {
+            throw new IllegalArgumentException("Latency budget must be positive: " + budget);
+        }
+        latencyBudgetNanos[priority.ordinal()] = unit.toNanos(budget);
+        PrioritySender lanes = prioritySender;
+        if (lanes != null) {
+            lanes.setLatencyBudget(priority, budget, unit);
+        }
+    }
+    
+    private static long[] defaultLatencyBudgets() {
+        long[] budgets = new long[Priority.values().length];
+        for (Priority priority : Priority.values()) {
+            budgets[priority.ordinal()] = priority.getDefaultBudgetNanos();
+        }
+        return budgets;
+    }
+    
+    // Sous le même verrou que configureLatencyBudget : aucun budget n'est perdu
+    private static synchronized void startPrioritySender(BLEServerInterface target) {
+        if (target instanceof BLEServer) {
+            ((BLEServer) target).setFraming(true);
+        }
+        BLEMetrics metrics = target.getMetrics();
+        PrioritySender created = new PrioritySender(target, metrics != null ? metrics : new BLEMetrics(),
+                asyncCapacity, "VitalBLE-lanes");
+        for (Priority priority : Priority.values()) {
+            created.setLatencyBudget(priority, latencyBudgetNanos[priority.ordinal()], TimeUnit.NANOSECONDS);
+        }
+        prioritySender = created;
+    }
+    
+    /**
+     * Configurer la file d'envoi asynchrone avant le premier sendAsync()
+     * @param capacity Nombre de messages en attente avant débordement
+     * @param overflowPolicy Comportement quand la file est pleine
+     */
+    public static synchronized void configureAsync(int capacity, OverflowPolicy overflowPolicy) {
+        if (asyncSender.get() != null) {
+            throw new IllegalStateException("Cannot configure async queue after sendAsync(). Call configureAsync() before sendAsync()");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        if (overflowPolicy == null) {
+            throw new IllegalArgumentException("Overflow policy must not be null");
+        }
+        asyncCapacity = capacity;
+        asyncOverflowPolicy = overflowPolicy;
+    }
+    
+    /**
+     * Activer le regroupement des petits messages avant le premier envoi
+     * Les messages consécutifs sont préfixés par leur longueur et envoyés ensemble
+     * quand ils remplissent un chunk ou après maxDelay ; le récepteur les sépare
+     * avec {@link WriteCoalescer.Decoder}.
+     * @param maxDelay Attente maximale d'un message, de quelques microsecondes à quelques millisecondes (0 = désactivé)
+     * @param unit Unité de maxDelay
+     */
+    public static void configureCoalescing(long maxDelay, TimeUnit unit) {
+        if (state.get() != State.STOPPED) {
+            throw new IllegalStateException("Cannot configure coalescing after server is started. Call configureCoalescing() before send()");
+        }
+        if (maxDelay < 0) {
+            throw new IllegalArgumentException("Max delay must not be negative: " + maxDelay);
+        }
+        coalescingDelayNanos = unit.toNanos(maxDelay);
+    }
+    
+    /**
+     * Activer la suppression des envois inchangés avant le premier envoi
+     * send, sendBytes et sendBuffer ne transmettent plus un contenu identique au
+     * dernier envoi réussi sur la caractéristique (et renvoient true), sauf si
+     * heartbeatInterval s'est écoulé depuis cet envoi. Les envois prioritaires,
+     * de fréquence cardiaque (sendHeartRate, toujours transmis) et de forme
+     * d'onde ne sont pas concernés.
+     * @param heartbeatInterval Délai après lequel un contenu inchangé est renvoyé quand même (0 = désactivé)
+     * @param unit Unité de heartbeatInterval
+     * @param compareBytes true pour comparer les octets et pas seulement un hash de 64 bits
+     */
+    public static void configureChangeSuppression(long heartbeatInterval, TimeUnit unit, boolean compareBytes) {
+        if (state.get() != State.STOPPED) {
+            throw new IllegalStateException("Cannot configure change suppression after server is started. Call configureChangeSuppression() before send()");
+        }
+        if (heartbeatInterval < 0) {
+            throw new IllegalArgumentException("Heartbeat interval must not be negative: " + heartbeatInterval);
+        }
+        heartbeatNanos = unit.toNanos(heartbeatInterval);
+        heartbeatCompareBytes = compareBytes;
+    }
+    
+    /**
+     * Activer le journal persistant des messages produits pendant une coupure
+     * Quand le serveur ne démarre pas ou qu'un envoi échoue, send, sendBytes et
+     * sendBuffer ajoutent le message au journal et renvoient true ; les messages
+     * journalisés sont rejoués dans l'ordre avant l'envoi suivant, ou par
+     * {@link #replaySpilled()}. Les messages d'une exécution précédente sont repris.
+     * @param directory Dossier des segments (null = désactivé)
+     * @param segmentSize Taille de chaque segment mappé, un message doit tenir dans un segment
+     * @param maxSegments Segments conservés avant d'abandonner le plus ancien
+     * @throws IOException si le dossier ou un segment existant ne peut pas être lu
+     */
+    public static synchronized void configureSpillJournal(Path directory, int segmentSize, int maxSegments) throws IOException {
+        if (state.get() != State.STOPPED) {
+            throw new IllegalStateException("Cannot configure spill journal after server is started. Call configureSpillJournal() before send()");
+        }
+        SpillJournal journal = directory == null ? null : new SpillJournal(directory, segmentSize, maxSegments);
+        closeSpillJournal();
+        spillJournal = journal;
+    }
+    
+    /**
+     * Rejouer les messages journalisés sans attendre le prochain envoi
+     * @return true si le journal est vide (ou désactivé)
+     */
+    public static boolean replaySpilled() {
+        SpillJournal journal = spillJournal;
+        if (journal == null || journal.isEmpty()) {
+            return true;
+        }
+        if (state.get() != State.STARTED && !start()) {
+            return false;
+        }
+        return journal.replay(VitalBLE::replayRecord);
+    }
+    
+    /**
+     * @return Messages journalisés en attente de rejeu
+     */
+    public static long getSpilledPending() {
+        SpillJournal journal = spillJournal;
+        return journal == null ? 0 : journal.getPendingRecords();
+    }
+    
+    private static synchronized void closeSpillJournal() {
+        if (spillJournal != null) {
+            spillJournal.close();
+            spillJournal = null;
+        }
+    }
+    
+    /**
+     * @return Envois ignorés car inchangés depuis le dernier démarrage
+     */
+    public static long getSuppressedSends() {
+        LastValueCache cache = lastValueCache;
+        return cache == null ? 0 : cache.getSuppressed();
+    }
+    
+    /**
+     * Envoyer données sans bloquer l'appelant
+     * Le message est placé dans une file bornée et transmis par un thread dédié.
+     * @param data Données à envoyer
+     * @return Future complétée avec le résultat de send(), false si le message a été évincé
+     */
+    public static CompletableFuture<Boolean> sendAsync(String data) {
+        if (data == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return asyncSender().submit(() -> send(data));
+    }
+    
+    /**
+     * Charger la bibliothèque native et démarrer le serveur sur un thread d'arrière-plan
+     * Un send() concurrent attend la fin de ce démarrage au lieu d'en lancer un second.
+     * @return Future complétée avec true si le serveur est démarré
+     */
+    public static CompletableFuture<Boolean> warmUp() {
+        CompletableFuture<Boolean> started = new CompletableFuture<>();
+        Thread warmUpThread = new Thread(() -> {
+            try {
+                started.complete(start());
+            } catch (RuntimeException | LinkageError e) {
+                started.completeExceptionally(e);
+            }
+        }, "VitalBLE-warmup");
+        warmUpThread.setDaemon(true);
+        warmUpThread.start();
+        return started;
+    }
+    
+    private static AsyncSender asyncSender() {
+        AsyncSender current = asyncSender.get();
+        if (current != null) {
+            return current;
+        }
+        AsyncSender created = new AsyncSender(asyncCapacity, asyncOverflowPolicy, "VitalBLE-tx");
+        if (asyncSender.compareAndSet(null, created)) {
+            return created;
+        }
+        created.shutdown(); // un autre thread l'a créé le premier
+        current = asyncSender.get();
+        return current != null ? current : asyncSender();
+    }
+    
     /**
      * Démarrer serveur BLE avec les UUIDs configurés
+     * Sans verrou : les threads concurrents attendent la fin du démarrage en cours.
+     * @return true si le serveur est démarré
      */
-    private static void start() {
-        if (!isStarted && server != null) {
-            int result = server.startServer(serviceUuid, charUuid);
-            // Convention: 1 = succès pour toutes les implémentations
-            isStarted = (result == 1);
+    private static boolean start() {
+        boolean sawStarting = false;
+        for (int spins = 0; ; spins++) {
+            State current = state.get();
+            if (current == State.STARTED) {
+                return true;
+            }
+            if (current == State.STOPPED) {
+                if (sawStarting) {
+                    return false; // le démarrage attendu a échoué, pas de nouvelle tentative
+                }
+                BLEServerInterface target = server;
+                if (target == null) {
+                    return false;
+                }
+                if (state.compareAndSet(State.STOPPED, State.STARTING)) {
+                    boolean started = false;
+                    try {
+                        // Convention: 1 = succès pour toutes les implémentations
+                        started = target.startServer(serviceUuid, charUuid) == 1;
+                        if (started && priorityLanesEnabled) {
+                            try {
+                                startPrioritySender(target);
+                            } catch (RuntimeException e) {
+                                started = false; // voies refusées : le serveur ne reste pas démarré sans elles
+                                target.stopServer();
+                                throw e;
+                            }
+                        }
+                        // Avant STARTED, pour que les envois ne contournent pas le regroupement
+                        long delay = coalescingDelayNanos;
+                        if (started && delay > 0) {
+                            WriteCoalescer created = new WriteCoalescer(target, delay, TimeUnit.NANOSECONDS);
+                            // Un lot refusé, même vidé par le timer après que send() a renvoyé true, part au journal
+                            SpillJournal journal = spillJournal;
+                            if (journal != null) {
+                                created.setFailureHandler(message -> journal.append(message, 0, message.length));
+                            }
+                            coalescer = created;
+                        }
+                        // Cache vide : un client reconnecté reçoit d'abord la valeur courante
+                        long heartbeat = heartbeatNanos;
+                        lastValueCache = started && heartbeat > 0
+                            ? new LastValueCache(heartbeat, TimeUnit.NANOSECONDS, heartbeatCompareBytes) : null;
+                    } finally {
+                        state.set(started ? State.STARTED : State.STOPPED);
+                    }
+                    if (started) {
+                        registerMetrics(target);
+                    }
+                    return started;
+                }
+            } else {
+                sawStarting |= current == State.STARTING;
+                awaitTransition(spins);
+            }
         }
     }
     
+    private static void awaitTransition(int spins) {
+        if (spins < TRANSITION_SPINS) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(TRANSITION_PARK_NANOS);
+        }
+    }
+    
+    // Exposition JMX des métriques du serveur démarré (ignorée si JMX refuse l'enregistrement)
+    private static void registerMetrics(BLEServerInterface target) {
+        BLEMetrics metrics = target.getMetrics();
+        if (metrics != null) {
+            metrics.registerMBean();
+        }
+    }
+    
+    /**
+     * Obtenir les métriques d'envoi du serveur
+     * @return Copie instantanée des compteurs et latences (vide si le serveur n'en collecte pas)
+     */
+    public static BLEMetrics.Snapshot getMetrics() {
+        BLEServerInterface target = server;
+        BLEMetrics metrics = target == null ? null : target.getMetrics();
+        return (metrics != null ? metrics : new BLEMetrics()).snapshot();
+    }
+    
+    /**
+     * @return Current server lifecycle state
+     */
+    public static State getState() {
+        return state.get();
+    }
+    
     /**
      * Obtenir les UUIDs actuellement configurés
      * @return String avec les UUIDs configurés
      */
     public static String getConfiguration() {
         return String.format("Service UUID: %s\nCharacteristic UUID: %s\nServer started: %s", 
-                           serviceUuid, charUuid, isStarted);
+                           serviceUuid, charUuid, state.get() == State.STARTED);
     }
     
     /**
      * Arrêter serveur
+     * Attend la fin d'un démarrage ou d'un arrêt en cours sur un autre thread.
      */
     public static void shutdown() {
-        if (isStarted) {
-            server.stopServer();
-            isStarted = false;
+        stopAsyncSender();
+        for (int spins = 0; ; spins++) {
+            State current = state.get();
+            if (current == State.STOPPED) {
+                return;
+            }
+            if (current == State.STARTED) {
+                if (state.compareAndSet(State.STARTED, State.STOPPING)) {
+                    try {
+                        closeCoalescer();
+                        stopPrioritySender();
+                        server.stopServer();
+                    } finally {
+                        state.set(State.STOPPED);
+                    }
+                    return;
+                }
+            } else {
+                awaitTransition(spins);
+            }
         }
     }
     
+    // Envoie les messages en attente avant l'arrêt du serveur
+    private static void closeCoalescer() {
+        WriteCoalescer pending = coalescer;
+        coalescer = null;
+        if (pending != null) {
+            pending.close();
+        }
+    }
+    
+    private static void stopPrioritySender() {
+        PrioritySender lanes = prioritySender;
+        prioritySender = null;
+        if (lanes != null) {
+            lanes.shutdown();
+        }
+    }
+    
+    // Hors du moniteur : shutdown() attend jusqu'à 5 s la fin du thread d'émission
+    private static void stopAsyncSender() {
+        AsyncSender sender = asyncSender.getAndSet(null);
+        if (sender != null) {
+            sender.shutdown();
+        }
+    }
+    
+    private static void resetWaveformEncoders() {
+        for (int channel = 0; channel < waveformEncoders.length(); channel++) {
+            waveformEncoders.set(channel, null);
+        }
+    }
+    
+    private static synchronized void resetLatencyBudgets() {
+        System.arraycopy(defaultLatencyBudgets(), 0, latencyBudgetNanos, 0, latencyBudgetNanos.length);
+    }
+    
     /**
      * Réinitialiser complètement VitalBLE (pour les tests)
      */
     public static void reset() {
         shutdown();
+        asyncCapacity = DEFAULT_ASYNC_CAPACITY;
+        asyncOverflowPolicy = OverflowPolicy.BLOCK;
+        coalescingDelayNanos = 0;
+        heartbeatNanos = 0;
+        heartbeatCompareBytes = false;
+        priorityLanesEnabled = false;
+        closeSpillJournal();
+        resetWaveformEncoders();
+        resetLatencyBudgets();
         // Restaurer les UUIDs par défaut
         serviceUuid = "0000180D-0000-1000-8000-00805F9B34FB";
         charUuid = "00002A37-0000-1000-8000-00805F9B34FB";
@@ -0,0 +1,292 @@
+package main.java;
+
+import java.util.Arrays;
+
+/**
+ * Compact encoder for high-rate waveform samples (ECG, PPG)
+ * Samples are delta-encoded, zig-zag mapped and bit-packed by blocks of
+ * {@value #BLOCK_SIZE} deltas, each block using the width of its largest
+ * delta (frame-of-reference packing). Frames are cut to a maximum size so
+ * that each one fits a single notification, and each frame can be decoded
+ * on its own: a lost notification only loses its own samples.
+ *
+ * Frame layout (big-endian):
+ * channel u8, sequence u16, sample count u16, first sample (zig-zag varint),
+ * then blocks of [width u8, BLOCK_SIZE deltas of width bits, byte-aligned].
+ * An encoder is not thread-safe; use one per channel and producer.
+ */
+public final class WaveformEncoder {
+
+    /** Deltas per bit-packed block */
+    public static final int BLOCK_SIZE = 16;
+
+    /** Smallest frame able to hold the header and one block */
+    public static final int MIN_FRAME_SIZE = 16;
+
+    // channel, séquence, nombre d'échantillons, premier échantillon (varint de 5 octets au plus)
+    static final int FIXED_HEADER_SIZE = 5;
+    private static final int MAX_SAMPLES_PER_FRAME = 0xFFFF;
+
+    private final int channel;
+    private final byte[] frame = new byte[BLEServer.MAX_CHUNK_SIZE];
+    private final long[] zigzag = new long[BLOCK_SIZE];
+    private int[] widened = new int[0];
+    private int sequence;
+
+    /**
+     * Receives each encoded frame; the array is reused for the next frame
+     */
+    @FunctionalInterface
+    public interface FrameSink {
+        /**
+         * @return false to stop encoding
+         */
+        boolean send(byte[] frame, int offset, int length);
+    }
+
+    /**
+     * @param channel Channel number carried by every frame, 0 to 255
+     */
+    public WaveformEncoder(int channel) {
+        if (channel < 0 || channel > 0xFF) {
+            throw new IllegalArgumentException("Channel out of range: " + channel);
+        }
+        this.channel = channel;
+    }
+
+    public int getChannel() {
+        return channel;
+    }
+
+    /**
+     * Encode 16-bit samples (widened once into a reused buffer)
+     * @see #encode(int[], int, int, int, FrameSink)
+     */
+    public boolean encode(short[] samples, int offset, int length, int maxFrameSize, FrameSink sink) {
+        if (offset < 0 || length < 0 || offset > samples.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", size=" + samples.length);
+        }
+        if (widened.length < length) {
+            widened = new int[Math.max(length, widened.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            widened[i] = samples[offset + i];
+        }
+        return encode(widened, 0, length, maxFrameSize, sink);
+    }
+
+    /**
+     * Encode samples into as many frames as needed
+     * @param samples Sample array
+     * @param offset Index of the first sample
+     * @param length Number of samples
+     * @param maxFrameSize Largest frame, usually the chunk size of the server
+     * @param sink Receives the frames in order
+     * @return false if the sink refused a frame
+     */
+    public boolean encode(int[] samples, int offset, int length, int maxFrameSize, FrameSink sink) {
+        if (offset < 0 || length < 0 || offset > samples.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", size=" + samples.length);
+        }
+        if (maxFrameSize < MIN_FRAME_SIZE) {
+            throw new IllegalArgumentException("Frame size must be at least " + MIN_FRAME_SIZE + ": " + maxFrameSize);
+        }
+        int frameSize = Math.min(maxFrameSize, frame.length);
+        int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            frame[0] = (byte) channel;
+            frame[1] = (byte) (sequence >>> 8);
+            frame[2] = (byte) sequence;
+            int position = writeVarint(frame, FIXED_HEADER_SIZE, zigzag(samples[i++]));
+            int count = 1;
+
+            while (i < end && count < MAX_SAMPLES_PER_FRAME) {
+                int n = Math.min(BLOCK_SIZE, Math.min(end - i, MAX_SAMPLES_PER_FRAME - count));
+                int available = frameSize - position - 1;
+                if (available < 0) {
+                    break;
+                }
+                int width = blockWidth(samples, i, n);
+                boolean partial = ((long) n * width + 7) / 8 > available;
+                if (partial) {
+                    // Bloc partiel, forcément le dernier de la trame : la largeur ne peut que diminuer
+                    n = (int) ((long) available * 8 / width);
+                    if (n == 0) {
+                        break;
+                    }
+                    width = blockWidth(samples, i, n);
+                }
+                position = writeBlock(position, n, width);
+                i += n;
+                count += n;
+                if (partial) {
+                    break;
+                }
+            }
+
+            frame[3] = (byte) (count >>> 8);
+            frame[4] = (byte) count;
+            sequence = (sequence + 1) & 0xFFFF;
+            if (!sink.send(frame, 0, position)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Calcule les deltas zig-zag du bloc dans le tampon de travail et renvoie leur largeur
+    private int blockWidth(int[] samples, int from, int n) {
+        long bits = 0;
+        for (int k = 0; k < n; k++) {
+            long delta = (long) samples[from + k] - samples[from + k - 1];
+            zigzag[k] = (delta << 1) ^ (delta >> 63);
+            bits |= zigzag[k];
+        }
+        return 64 - Long.numberOfLeadingZeros(bits);
+    }
+
+    // Écrit la largeur puis les n deltas du tampon de travail, bits de poids fort d'abord
+    private int writeBlock(int position, int n, int width) {
+        frame[position++] = (byte) width;
+        long accumulator = 0;
+        int pending = 0;
+        for (int k = 0; k < n; k++) {
+            accumulator = (accumulator << width) | zigzag[k];
+            pending += width;
+            while (pending >= 8) {
+                pending -= 8;
+                frame[position++] = (byte) (accumulator >>> pending);
+            }
+        }
+        if (pending > 0) {
+            frame[position++] = (byte) (accumulator << (8 - pending));
+        }
+        return position;
+    }
+
+    private static long zigzag(int value) {
+        return ((long) value << 1) ^ (value >> 31);
+    }
+
+    private static int writeVarint(byte[] dst, int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            dst[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        dst[offset++] = (byte) value;
+        return offset;
+    }
+
+    /**
+     * Receiver side: rebuilds the samples of each frame and counts lost frames per channel
+     */
+    public static final class Decoder {
+
+        // Dernière séquence reçue par canal (-1 : aucune)
+        private final int[] lastSequence = new int[256];
+        private long lostFrames;
+        private int channel = -1;
+
+        public Decoder() {
+            Arrays.fill(lastSequence, -1);
+        }
+
+        /**
+         * @return Number of samples carried by a frame, to size the destination array
+         */
+        public static int sampleCount(byte[] frame, int offset) {
+            return ((frame[offset + 3] & 0xFF) << 8) | (frame[offset + 4] & 0xFF);
+        }
+
+        /**
+         * Decode one frame
+         * @param frame Array holding the frame
+         * @param offset Index of the frame
+         * @param length Frame length
+         * @param dst Destination of the samples
+         * @param dstOffset Index of the first sample in dst
+         * @return Number of samples written
+         * @throws IllegalArgumentException if the frame is truncated or corrupt
+         */
+        public int decode(byte[] frame, int offset, int length, int[] dst, int dstOffset) {
+            int end = offset + length;
+            if (length < FIXED_HEADER_SIZE + 1) {
+                throw new IllegalArgumentException("Truncated waveform frame: " + length + " bytes");
+            }
+            int count = sampleCount(frame, offset);
+            if (dstOffset < 0 || dstOffset > dst.length - count) {
+                throw new IndexOutOfBoundsException("dstOffset=" + dstOffset + ", samples=" + count + ", size=" + dst.length);
+            }
+
+            int position = offset + FIXED_HEADER_SIZE;
+            long zig = 0;
+            int shift = 0;
+            int b;
+            do {
+                if (position == end || shift > 28) {
+                    throw new IllegalArgumentException("Corrupt first sample");
+                }
+                b = frame[position++] & 0xFF;
+                zig |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            long previous = (zig >>> 1) ^ -(zig & 1);
+            dst[dstOffset] = (int) previous;
+
+            int decoded = 1;
+            while (decoded < count) {
+                if (position == end) {
+                    throw new IllegalArgumentException("Truncated waveform frame");
+                }
+                int width = frame[position++];
+                if (width < 0 || width > 33) {
+                    throw new IllegalArgumentException("Corrupt block width: " + width);
+                }
+                int n = Math.min(BLOCK_SIZE, count - decoded);
+                if (position + ((long) n * width + 7) / 8 > end) {
+                    throw new IllegalArgumentException("Truncated waveform frame");
+                }
+                long accumulator = 0;
+                int available = 0;
+                long mask = (1L << width) - 1;
+                for (int k = 0; k < n; k++) {
+                    while (available < width) {
+                        accumulator = (accumulator << 8) | (frame[position++] & 0xFF);
+                        available += 8;
+                    }
+                    available -= width;
+                    long value = (accumulator >>> available) & mask;
+                    previous += (value >>> 1) ^ -(value & 1);
+                    dst[dstOffset + decoded++] = (int) previous;
+                }
+            }
+
+            trackSequence(frame[offset] & 0xFF, ((frame[offset + 1] & 0xFF) << 8) | (frame[offset + 2] & 0xFF));
+            return count;
+        }
+
+        private void trackSequence(int frameChannel, int sequence) {
+            int last = lastSequence[frameChannel];
+            if (last >= 0) {
+                lostFrames += (sequence - last - 1) & 0xFFFF;
+            }
+            lastSequence[frameChannel] = sequence;
+            channel = frameChannel;
+        }
+
+        /**
+         * @return Channel of the last decoded frame, -1 before the first one
+         */
+        public int getChannel() {
+            return channel;
+        }
+
+        /**
+         * @return Frames missing from the sequence numbers, all channels together
+         */
+        public long getLostFrames() {
+            return lostFrames;
+        }
+    }
+}
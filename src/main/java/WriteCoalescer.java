@@ -0,0 +1,418 @@
+package main.java;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Packs consecutive small messages into full chunks (Nagle-style)
+ * Each message becomes a record prefixed with its length as an unsigned
+ * LEB128 varint (1 byte up to 127 bytes, 2 bytes up to 16 KB), so boundaries
+ * survive the packing. Pending records are sent with one sendBytes call when
+ * they fill a chunk, or when the oldest one has waited maxDelay.
+ * {@link Decoder} splits the received notifications back into messages.
+ *
+ * A batch only holds whole records. With framing enabled on the server,
+ * each batch is one framed message, and {@link Decoder#acceptBatch} decodes
+ * it on its own: a batch lost halfway does not corrupt the following ones.
+ * Messages of a failed flush, including those flushed by the timer after
+ * their write returned, are handed to the failure handler if one is set.
+ */
+public final class WriteCoalescer implements AutoCloseable {
+
+    private final BLEServerInterface server;
+    private final long maxDelayNanos;
+    private final ScheduledExecutorService timer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Protégés par lock
+    private byte[] pending = new byte[2 * BLEServer.MAX_CHUNK_SIZE];
+    private int pendingLength;
+    private int pendingMessages;
+    private long generation;
+    private long failedFlushes;
+    private boolean closed;
+    private final List<byte[]> failedMessages = new ArrayList<>();
+
+    private volatile Consumer<byte[]> failureHandler;
+
+    /**
+     * @param server Server receiving the packed chunks
+     * @param maxDelay Longest time a message may wait for others, microseconds to milliseconds
+     * @param unit Unit of maxDelay
+     */
+    public WriteCoalescer(BLEServerInterface server, long maxDelay, TimeUnit unit) {
+        this.server = Objects.requireNonNull(server, "server");
+        if (maxDelay <= 0) {
+            throw new IllegalArgumentException("Max delay must be positive: " + maxDelay);
+        }
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        this.timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "VitalBLE-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public long getMaxDelayNanos() {
+        return maxDelayNanos;
+    }
+
+    /**
+     * Receive the messages of every failed flush, oldest first, so they can be
+     * journaled or sent again. Messages the receiver already got entirely are
+     * not handed over. Called outside the coalescer's lock, on the writing
+     * thread or on the timer thread.
+     * @param handler Receives a copy of each message, null to only count failures
+     */
+    public void setFailureHandler(Consumer<byte[]> handler) {
+        this.failureHandler = handler;
+    }
+
+    /**
+     * Queue one message
+     * @return false if the coalescer is closed, or if a flush performed by this
+     *         call failed and no failure handler is set
+     */
+    public boolean write(byte[] data, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > data.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", size=" + data.length);
+        }
+        boolean sent;
+        lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            sent = prepareRecord(length);
+            System.arraycopy(data, offset, pending, pendingLength, length);
+            sent &= completeRecord(length);
+        } finally {
+            lock.unlock();
+        }
+        return reportFailures() || sent;
+    }
+
+    /**
+     * Queue the bytes between the buffer's position and limit (the position is left unchanged)
+     * @return false if the coalescer is closed, or if a flush performed by this
+     *         call failed and no failure handler is set
+     */
+    public boolean write(ByteBuffer data) {
+        int length = data.remaining();
+        boolean sent;
+        lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            sent = prepareRecord(length);
+            data.duplicate().get(pending, pendingLength, length);
+            sent &= completeRecord(length);
+        } finally {
+            lock.unlock();
+        }
+        return reportFailures() || sent;
+    }
+
+    // Vide le lot si le record n'y tient plus, puis écrit l'en-tête de longueur
+    private boolean prepareRecord(int length) {
+        int recordSize = varintSize(length) + length;
+        boolean sent = true;
+        if (pendingLength > 0 && pendingLength + recordSize > targetSize()) {
+            sent = flushLocked();
+        }
+        ensureCapacity(pendingLength + recordSize);
+        pendingLength = writeVarint(pending, pendingLength, length);
+        return sent;
+    }
+
+    // Envoie le lot s'il remplit un chunk, sinon arme le timer pour le premier record du lot
+    private boolean completeRecord(int length) {
+        pendingLength += length;
+        pendingMessages++;
+        if (pendingLength >= targetSize()) {
+            return flushLocked();
+        }
+        if (pendingMessages == 1) {
+            long batch = generation;
+            timer.schedule(() -> flushExpired(batch), maxDelayNanos, TimeUnit.NANOSECONDS);
+        }
+        return true;
+    }
+
+    // Charge utile d'un chunk : taille de chunk, moins les en-têtes de trame et de compression
+    private int targetSize() {
+        int chunkSize = server.getChunkSize();
+        if (server instanceof BLEServer) {
+            BLEServer ble = (BLEServer) server;
+            if (ble.isFraming()) {
+                chunkSize -= FrameHeader.SIZE;
+            }
+            if (ble.getCompressor() != null) {
+                chunkSize -= PayloadCompressor.HEADER_SIZE;
+            }
+        }
+        return Math.max(1, chunkSize);
+    }
+
+    private void ensureCapacity(int size) {
+        if (pending.length < size) {
+            byte[] larger = new byte[Math.max(size, pending.length * 2)];
+            System.arraycopy(pending, 0, larger, 0, pendingLength);
+            pending = larger;
+        }
+    }
+
+    private void flushExpired(long batch) {
+        lock.lock();
+        try {
+            if (batch == generation && pendingLength > 0) {
+                flushLocked();
+            }
+        } finally {
+            lock.unlock();
+        }
+        reportFailures();
+    }
+
+    /**
+     * Send pending messages now
+     * @return false if the server refused them and no failure handler is set
+     */
+    public boolean flush() {
+        boolean sent;
+        lock.lock();
+        try {
+            sent = pendingLength == 0 || flushLocked();
+        } finally {
+            lock.unlock();
+        }
+        return reportFailures() || sent;
+    }
+
+    // Envoi sous le verrou : l'ordre des messages est celui des write()
+    private boolean flushLocked() {
+        int delivered;
+        try {
+            delivered = (server instanceof BLEServer)
+                    ? ((BLEServer) server).sendResumable(pending, 0, pendingLength).getBytesDelivered()
+                    : (server.sendBytes(pending, 0, pendingLength) ? pendingLength : 0);
+        } catch (RuntimeException e) {
+            delivered = 0;
+        }
+        boolean sent = delivered == pendingLength;
+        if (!sent) {
+            failedFlushes++;
+            if (failureHandler != null) {
+                collectFailed(delivered);
+            }
+        }
+        pendingLength = 0;
+        pendingMessages = 0;
+        generation++;
+        return sent;
+    }
+
+    // Copie les records que le récepteur n'a pas reçus en entier
+    private void collectFailed(int delivered) {
+        int position = 0;
+        while (position < pendingLength) {
+            int length = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = pending[position++] & 0xFF;
+                length |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            if (position + length > delivered) {
+                failedMessages.add(Arrays.copyOfRange(pending, position, position + length));
+            }
+            position += length;
+        }
+    }
+
+    // Hors verrou : le gestionnaire peut écrire dans un journal qui appelle lui-même write()
+    // @return true si des messages en échec ont été remis au gestionnaire
+    private boolean reportFailures() {
+        Consumer<byte[]> handler = failureHandler;
+        byte[][] messages;
+        lock.lock();
+        try {
+            if (failedMessages.isEmpty()) {
+                return false;
+            }
+            messages = failedMessages.toArray(new byte[0][]);
+            failedMessages.clear();
+        } finally {
+            lock.unlock();
+        }
+        if (handler != null) {
+            for (byte[] message : messages) {
+                try {
+                    handler.accept(message);
+                } catch (RuntimeException e) {
+                    // un gestionnaire défaillant ne doit pas bloquer le timer
+                }
+            }
+        }
+        return true;
+    }
+
+    public int getPendingBytes() {
+        lock.lock();
+        try {
+            return pendingLength;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Flushes refused by the server, including those triggered by the timer
+     */
+    public long getFailedFlushes() {
+        lock.lock();
+        try {
+            return failedFlushes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flush pending messages and stop the timer
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            if (pendingLength > 0) {
+                flushLocked();
+            }
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        timer.shutdownNow();
+        reportFailures();
+    }
+
+    static int varintSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    private static int writeVarint(byte[] dst, int offset, int value) {
+        while ((value & ~0x7F) != 0) {
+            dst[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        dst[offset++] = (byte) value;
+        return offset;
+    }
+
+    /**
+     * Receiver side: splits the notification stream back into messages
+     * Records may span several notifications; notifications must be fed in order.
+     * The raw stream has no resynchronisation point: after a lost notification,
+     * call {@link #reset()}, or use framing and feed each rebuilt batch to
+     * {@link #acceptBatch}.
+     */
+    public static final class Decoder {
+
+        private final Consumer<byte[]> sink;
+
+        // Longueur varint en cours de lecture, puis record en cours de remplissage
+        private int lengthValue;
+        private int lengthShift;
+        private byte[] record;
+        private int filled;
+
+        /**
+         * @param sink Receives each complete message
+         */
+        public Decoder(Consumer<byte[]> sink) {
+            this.sink = Objects.requireNonNull(sink, "sink");
+        }
+
+        /**
+         * Decode one whole batch, such as a message rebuilt by a {@link FrameReassembler}
+         * Batches hold whole records, so decoding starts afresh: a record left
+         * incomplete by a previous batch is discarded, as is a truncated or
+         * corrupt batch.
+         * @return false if the batch did not end on a record boundary
+         */
+        public boolean acceptBatch(byte[] batch, int offset, int length) {
+            reset();
+            try {
+                accept(batch, offset, length);
+            } catch (IllegalStateException e) {
+                reset();
+                return false;
+            }
+            boolean complete = record == null && lengthShift == 0;
+            reset();
+            return complete;
+        }
+
+        /**
+         * Discard the partly received record, if any
+         */
+        public void reset() {
+            record = null;
+            filled = 0;
+            lengthValue = 0;
+            lengthShift = 0;
+        }
+
+        public void accept(byte[] chunk, int offset, int length) {
+            int end = offset + length;
+            int i = offset;
+            while (i < end) {
+                if (record == null) {
+                    int b = chunk[i++] & 0xFF;
+                    lengthValue |= (b & 0x7F) << lengthShift;
+                    if ((b & 0x80) != 0) {
+                        lengthShift += 7;
+                        if (lengthShift > 28) {
+                            throw new IllegalStateException("Corrupt record length");
+                        }
+                        continue;
+                    }
+                    if (lengthValue < 0) {
+                        throw new IllegalStateException("Corrupt record length");
+                    }
+                    record = new byte[lengthValue];
+                    filled = 0;
+                    lengthValue = 0;
+                    lengthShift = 0;
+                }
+                int n = Math.min(record.length - filled, end - i);
+                System.arraycopy(chunk, i, record, filled, n);
+                filled += n;
+                i += n;
+                if (filled == record.length) {
+                    byte[] complete = record;
+                    record = null;
+                    sink.accept(complete);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package main.java;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executors running the per-session send loops, Java 21+ version
+ * Each task gets its own virtual thread, so hundreds of sessions cost no
+ * more than their queues. A virtual thread stays mounted on its carrier
+ * only while inside a native call: pacing waits park it, and the send
+ * paths guard their state with java.util.concurrent locks and atomics,
+ * never a monitor, around notify. The one exception is the first native
+ * call of a server, which loads the library under a monitor.
+ */
+public final class SessionExecutors {
+
+    private SessionExecutors() {
+    }
+
+    /**
+     * @param name Prefix of the thread names
+     * @return Executor for session send tasks; shut it down when the sessions end
+     */
+    public static ExecutorService newSessionExecutor(String name) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+    }
+
+    /**
+     * @return true if session tasks run on virtual threads (Java 21+)
+     */
+    public static boolean usesVirtualThreads() {
+        return true;
+    }
+}
@@ -0,0 +1,160 @@
+package test.java;
+
+import main.java.AsyncSender;
+import main.java.OverflowPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AsyncSenderTest {
+
+    private AsyncSender sender;
+
+    @AfterEach
+    void tearDown() {
+        if (sender != null) {
+            sender.shutdown();
+        }
+    }
+
+    // Tâche qui occupe le thread d'émission jusqu'à release.countDown()
+    private static BooleanSupplier blocking(CountDownLatch started, CountDownLatch release) {
+        return () -> {
+            started.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("submit should run tasks in order on the transmit thread")
+    void testSubmitRunsInOrder() throws Exception {
+        sender = new AsyncSender(4, OverflowPolicy.BLOCK, "test-tx");
+        List<String> order = new CopyOnWriteArrayList<>();
+        String caller = Thread.currentThread().getName();
+
+        CompletableFuture<Boolean> first = sender.submit(() -> order.add("1:" + Thread.currentThread().getName()));
+        CompletableFuture<Boolean> second = sender.submit(() -> order.add("2:" + Thread.currentThread().getName()));
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(order).containsExactly("1:test-tx", "2:test-tx");
+        assertThat(caller).isNotEqualTo("test-tx");
+        assertThat(sender.capacity()).isEqualTo(4);
+        assertThat(sender.getOverflowPolicy()).isEqualTo(OverflowPolicy.BLOCK);
+    }
+
+    @Test
+    @DisplayName("submit should propagate task failures through the future")
+    void testSubmitPropagatesFailure() {
+        sender = new AsyncSender(2, OverflowPolicy.BLOCK, "test-tx");
+
+        CompletableFuture<Boolean> failed = sender.submit(() -> {
+            throw new IllegalStateException("boom");
+        });
+        CompletableFuture<Boolean> refused = sender.submit(() -> false);
+
+        assertThatThrownBy(() -> failed.get(5, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(refused.join()).isFalse();
+    }
+
+    @Test
+    @DisplayName("BLOCK policy should make the producer wait for a free slot")
+    void testBlockPolicy() throws Exception {
+        sender = new AsyncSender(1, OverflowPolicy.BLOCK, "test-tx");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        sender.submit(blocking(started, release));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        sender.submit(() -> true); // remplit l'unique slot
+
+        CompletableFuture<CompletableFuture<Boolean>> producer =
+            CompletableFuture.supplyAsync(() -> sender.submit(() -> true));
+        Thread.sleep(100);
+        assertThat(producer).isNotDone();
+
+        release.countDown();
+        assertThat(producer.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("DROP_OLDEST policy should evict the oldest queued payload")
+    void testDropOldestPolicy() throws Exception {
+        sender = new AsyncSender(2, OverflowPolicy.DROP_OLDEST, "test-tx");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        sender.submit(blocking(started, release));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Boolean> oldest = sender.submit(() -> true);
+        CompletableFuture<Boolean> middle = sender.submit(() -> true);
+        CompletableFuture<Boolean> newest = sender.submit(() -> true);
+
+        assertThat(oldest.getNow(null)).isFalse();
+        assertThat(sender.size()).isEqualTo(2);
+        release.countDown();
+        assertThat(middle.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(newest.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("FAIL_FAST policy should reject new payloads when full")
+    void testFailFastPolicy() throws Exception {
+        sender = new AsyncSender(1, OverflowPolicy.FAIL_FAST, "test-tx");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        sender.submit(blocking(started, release));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Boolean> queued = sender.submit(() -> true);
+        CompletableFuture<Boolean> rejected = sender.submit(() -> true);
+
+        assertThat(rejected).isCompletedExceptionally();
+        assertThatThrownBy(rejected::join).hasCauseInstanceOf(RejectedExecutionException.class);
+        release.countDown();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("shutdown should complete queued tasks with false and reject new ones")
+    void testShutdown() throws Exception {
+        sender = new AsyncSender(4, OverflowPolicy.BLOCK, "test-tx");
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Boolean> inFlight = sender.submit(blocking(started, new CountDownLatch(1)));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> queued = sender.submit(() -> true);
+
+        sender.shutdown();
+        sender.shutdown(); // idempotent
+
+        assertThat(queued.getNow(null)).isFalse();
+        assertThat(inFlight.get(5, TimeUnit.SECONDS)).isFalse(); // interrompue
+        assertThatThrownBy(() -> sender.submit(() -> true).join())
+            .hasCauseInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    @DisplayName("constructor should reject invalid settings")
+    void testInvalidSettings() {
+        assertThatThrownBy(() -> new AsyncSender(0, OverflowPolicy.BLOCK, "x"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AsyncSender(1, null, "x"))
+            .isInstanceOf(NullPointerException.class);
+    }
+}
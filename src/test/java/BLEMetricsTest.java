@@ -0,0 +1,136 @@
+package test.java;
+
+import main.java.BLEMetrics;
+import main.java.LatencyHistogram;
+import main.java.Priority;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.assertj.core.api.Assertions.*;
+
+class BLEMetricsTest {
+
+    @Test
+    @DisplayName("LatencyHistogram should report percentiles within the bucket precision")
+    void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value * 1000); // 1 µs à 1 ms
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(1000);
+        assertThat(histogram.getMax()).isEqualTo(1_000_000);
+        assertThat(histogram.valueAtPercentile(50)).isBetween(500_000L, 562_500L);
+        assertThat(histogram.valueAtPercentile(99)).isBetween(990_000L, 1_000_000L);
+        assertThat(histogram.valueAtPercentile(100)).isEqualTo(1_000_000);
+    }
+
+    @Test
+    @DisplayName("LatencyHistogram should handle small, negative and huge values")
+    void testHistogramEdgeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.valueAtPercentile(50)).isZero();
+
+        histogram.record(-5);
+        histogram.record(3);
+        histogram.record(Long.MAX_VALUE);
+
+        assertThat(histogram.valueAtPercentile(0)).isZero();
+        assertThat(histogram.valueAtPercentile(50)).isEqualTo(3);
+        assertThat(histogram.valueAtPercentile(100)).isEqualTo(Long.MAX_VALUE);
+        assertThatThrownBy(() -> histogram.valueAtPercentile(101))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        histogram.reset();
+        assertThat(histogram.getCount()).isZero();
+        assertThat(histogram.getMax()).isZero();
+    }
+
+    @Test
+    @DisplayName("BLEMetrics should count messages, notifies and failures")
+    void testRecordAndSnapshot() {
+        BLEMetrics metrics = new BLEMetrics();
+        metrics.recordNotify(200, 1_000, true);
+        metrics.recordNotify(200, 3_000, false);
+        metrics.recordNotifyBatch(4, 1, 600);
+        metrics.recordMessage(400, 10_000, true);
+        metrics.recordMessage(50, 2_000, false);
+
+        BLEMetrics.Snapshot snapshot = metrics.snapshot();
+
+        assertThat(snapshot.getNotifyCount()).isEqualTo(6);
+        assertThat(snapshot.getNotifyFailures()).isEqualTo(2);
+        assertThat(snapshot.getWireBytes()).isEqualTo(800);
+        assertThat(snapshot.getFailureRate()).isCloseTo(2.0 / 6, within(1e-9));
+        assertThat(snapshot.getMessagesSent()).isEqualTo(1);
+        assertThat(snapshot.getMessageFailures()).isEqualTo(1);
+        assertThat(snapshot.getPayloadBytes()).isEqualTo(400);
+        assertThat(snapshot.getBytesPerSecond()).isPositive();
+        assertThat(snapshot.getNotifyLatencyMaxNanos()).isEqualTo(3_000);
+        assertThat(snapshot.getNotifyLatencyP50Nanos()).isBetween(1_000L, 1_023L);
+        assertThat(snapshot.getNotifyLatencyP99Nanos()).isEqualTo(3_000);
+        assertThat(snapshot.getSendLatencyMaxNanos()).isEqualTo(10_000);
+        assertThat(snapshot.getSendLatencyP50Nanos()).isBetween(2_000L, 2_047L);
+        assertThat(snapshot.getSendLatencyP99Nanos()).isEqualTo(10_000);
+        assertThat(snapshot.toString()).contains("Notifies: 6, 2 failed");
+
+        metrics.reset();
+        assertThat(metrics.getNotifyCount()).isZero();
+        assertThat(metrics.getFailureRate()).isZero();
+        assertThat(metrics.getSendLatency().getCount()).isZero();
+        assertThat(metrics.getNotifyLatency().getCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("BLEMetrics should track latency and budget misses per priority lane")
+    void testLaneMetrics() {
+        BLEMetrics metrics = new BLEMetrics();
+        metrics.recordLane(Priority.ALARM, 40_000_000, Priority.ALARM.getDefaultBudgetNanos());
+        metrics.recordLane(Priority.ALARM, 150_000_000, Priority.ALARM.getDefaultBudgetNanos());
+        metrics.recordLane(Priority.BULK, 2_000_000_000, Priority.BULK.getDefaultBudgetNanos());
+
+        assertThat(metrics.getAlarmBudgetMisses()).isEqualTo(1);
+        assertThat(metrics.getAlarmLatencyP99Nanos()).isEqualTo(150_000_000);
+        assertThat(metrics.getBulkBudgetMisses()).isZero();
+        assertThat(metrics.getBulkLatencyP99Nanos()).isEqualTo(2_000_000_000);
+        assertThat(metrics.getVitalsLatencyP99Nanos()).isZero();
+        assertThat(metrics.getLaneLatency(Priority.ALARM).getCount()).isEqualTo(2);
+
+        BLEMetrics.Snapshot snapshot = metrics.snapshot();
+        assertThat(snapshot.getLaneBudgetMisses(Priority.ALARM)).isEqualTo(1);
+        assertThat(snapshot.getLaneLatencyP99Nanos(Priority.BULK)).isEqualTo(2_000_000_000);
+        assertThat(snapshot.toString()).contains("alarm 150000000 ns (1 over budget)");
+
+        metrics.reset();
+        assertThat(metrics.getLaneBudgetMisses(Priority.ALARM)).isZero();
+        assertThat(metrics.getLaneLatency(Priority.BULK).getCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("registerMBean should expose the metrics over JMX and replace a previous instance")
+    void testRegisterMBean() throws Exception {
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(BLEMetrics.OBJECT_NAME);
+        BLEMetrics first = new BLEMetrics();
+        BLEMetrics second = new BLEMetrics();
+        second.recordNotify(20, 100, true);
+
+        try {
+            assertThat(first.registerMBean()).isTrue();
+            assertThat(second.registerMBean()).isTrue();
+
+            assertThat(mbeanServer.getAttribute(name, "NotifyCount")).isEqualTo(1L);
+            assertThat(mbeanServer.getAttribute(name, "WireBytes")).isEqualTo(20L);
+            mbeanServer.invoke(name, "reset", null, null);
+            assertThat(second.getNotifyCount()).isZero();
+        } finally {
+            if (mbeanServer.isRegistered(name)) {
+                mbeanServer.unregisterMBean(name);
+            }
+        }
+    }
+}
@@ -1,24 +1,55 @@
 package test.java;
 
+import main.java.BLEMetrics;
 import main.java.BLEServer;
+import main.java.FrameHeader;
+import main.java.FrameReassembler;
+import main.java.NativeLibraryCache;
+import main.java.PacingStrategy;
+import main.java.PayloadCompressor;
+import main.java.RetryPolicy;
+import main.java.SendResult;
+import main.java.SubscriptionListener;
+import main.java.TokenBucketPacer;
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.FileNotFoundException;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 class BLEServerTest {
 
     // Fake BLEServer for tests (no real DLL)
     static class FakeBLEServer extends BLEServer {
         int notifyCalls = 0;
+        int directCalls = 0;
+        int lastOffset = -1;
+        int lastLength = -1;
+        byte[] lastData;
         boolean failOnNotify = false;
         int startResult = 0; // native result
 
+        @Override
+        protected void loadNativeLibrary() {
+            // natives simulées : aucune bibliothèque à charger
+        }
+
         @Override
         protected int nativeStartServer(String serviceUuid, String charUuid) {
             return startResult;
@@ -32,11 +63,25 @@ class BLEServerTest {
         @Override
         protected int nativeNotify(byte[] data) {
             notifyCalls++;
+            lastData = data;
             if (failOnNotify) {
                 return -1; // simulate native error
             }
             return 0; // simulate success
         }
+
+        @Override
+        protected int nativeNotifyDirect(ByteBuffer buffer, int offset, int length) {
+            directCalls++;
+            lastOffset = offset;
+            lastLength = length;
+            return failOnNotify ? -1 : 0;
+        }
+
+        // onMtuChanged est appelé par la couche native
+        void simulateMtuChanged(int mtu) {
+            onMtuChanged(mtu);
+        }
     }
 
     @Test
@@ -72,6 +117,66 @@ class BLEServerTest {
         assertThat(server.notifyCalls).isEqualTo(1);
     }
 
+    @Test
+    @DisplayName("notify(ByteBuffer) should pass direct buffers to nativeNotifyDirect without copying")
+    void testNotifyDirectBuffer() {
+        FakeBLEServer server = new FakeBLEServer();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+
+        assertThat(server.notify(buffer, 10, 20)).isZero();
+        assertThat(server.directCalls).isEqualTo(1);
+        assertThat(server.lastOffset).isEqualTo(10);
+        assertThat(server.lastLength).isEqualTo(20);
+        assertThat(server.notifyCalls).isZero();
+    }
+
+    @Test
+    @DisplayName("notify(ByteBuffer) should copy heap buffers and delegate to nativeNotify")
+    void testNotifyHeapBuffer() {
+        FakeBLEServer server = new FakeBLEServer();
+        ByteBuffer buffer = ByteBuffer.wrap("hello world".getBytes());
+
+        assertThat(server.notify(buffer, 6, 5)).isZero();
+        assertThat(server.directCalls).isZero();
+        assertThat(server.notifyCalls).isEqualTo(1);
+        assertThat(new String(server.lastData)).isEqualTo("world");
+        assertThat(buffer.position()).isZero();
+    }
+
+    @Test
+    @DisplayName("notify(ByteBuffer) should reject regions outside the buffer limit")
+    void testNotifyDirectBufferOutOfBounds() {
+        FakeBLEServer server = new FakeBLEServer();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(16);
+
+        assertThatThrownBy(() -> server.notify(buffer, 10, 10))
+            .isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> server.notify(ByteBuffer.allocate(4), -1, 2))
+            .isInstanceOf(IndexOutOfBoundsException.class);
+        assertThat(server.directCalls).isZero();
+    }
+
+    @Test
+    @DisplayName("notify(ByteBuffer) should fall back to nativeNotify when nativeNotifyDirect is missing")
+    void testNotifyDirectFallbackWhenUnsupported() {
+        FakeBLEServer server = new FakeBLEServer() {
+            @Override
+            protected int nativeNotifyDirect(ByteBuffer buffer, int offset, int length) {
+                directCalls++;
+                throw new UnsatisfiedLinkError("nativeNotifyDirect");
+            }
+        };
+        ByteBuffer buffer = ByteBuffer.allocateDirect(8);
+        buffer.put(0, (byte) 42);
+
+        assertThat(server.notify(buffer, 0, 1)).isZero();
+        assertThat(server.notify(buffer, 0, 1)).isZero();
+        // La détection n'est faite qu'une fois
+        assertThat(server.directCalls).isEqualTo(1);
+        assertThat(server.notifyCalls).isEqualTo(2);
+        assertThat(server.lastData).containsExactly(42);
+    }
+
     @Test
     @DisplayName("sendData should split data into 200-byte chunks and call notify")
     void testSendDataChunkingSuccess() {
@@ -82,6 +187,709 @@ class BLEServerTest {
         assertThat(server.notifyCalls).isEqualTo((int) Math.ceil(450.0 / 200.0));
     }
 
+    @Test
+    @DisplayName("sendData in batch mode should cross JNI once for the whole payload")
+    void testSendDataBatchMode() {
+        int[] batchArgs = new int[3];
+        FakeBLEServer server = new FakeBLEServer() {
+            @Override
+            protected int nativeNotifyBatch(byte[] payload, int offset, int length, int chunkSize) {
+                batchArgs[0] = offset;
+                batchArgs[1] = length;
+                batchArgs[2] = chunkSize;
+                return (length + chunkSize - 1) / chunkSize;
+            }
+        };
+        server.setBatchNotify(true);
+        server.setPacingStrategy(PacingStrategy.none());
+
+        assertThat(server.isBatchNotify()).isTrue();
+        assertThat(server.sendData("x".repeat(450))).isTrue();
+        assertThat(batchArgs).containsExactly(0, 450, 200);
+        assertThat(server.notifyCalls).isZero();
+    }
+
+    @Test
+    @DisplayName("batch mode should keep the Java pacing, batching only the chunks it lets through")
+    void testSendDataBatchModePacing() {
+        List<int[]> batches = new ArrayList<>();
+        FakeBLEServer server = new FakeBLEServer() {
+            @Override
+            protected int nativeNotifyBatch(byte[] payload, int offset, int length, int chunkSize) {
+                batches.add(new int[] {offset, length});
+                return (length + chunkSize - 1) / chunkSize;
+            }
+        };
+        StringBuilder paced = new StringBuilder();
+        server.setPacingStrategy(chunkBytes -> paced.append(chunkBytes).append(' '));
+        server.setBatchNotify(true);
+
+        assertThat(server.sendData("x".repeat(450))).isTrue();
+        // La couche native envoie un lot sans temporiser : un chunk par appel, chacun précédé de son attente
+        assertThat(paced.toString()).isEqualTo("200 200 200 ");
+        assertThat(batches).extracting(batch -> batch[0]).containsExactly(0, 200, 400);
+        assertThat(batches).extracting(batch -> batch[1]).containsExactly(200, 200, 50);
+
+        batches.clear();
+        server.setPacingStrategy(TokenBucketPacer.chunksPerSecond(1, 3));
+        assertThat(server.sendData("x".repeat(450))).isTrue();
+        assertThat(batches).hasSize(1); // rafale de 3 chunks autorisée
+    }
+
+    @Test
+    @DisplayName("sendData in batch mode should fail when a chunk fails natively")
+    void testSendDataBatchModePartialFailure() {
+        FakeBLEServer server = new FakeBLEServer() {
+            @Override
+            protected int nativeNotifyBatch(byte[] payload, int offset, int length, int chunkSize) {
+                return 1; // second chunk failed
+            }
+        };
+        server.setBatchNotify(true);
+        server.setPacingStrategy(PacingStrategy.none());
+
+        assertThat(server.sendData("x".repeat(450))).isFalse();
+        // 1 chunk envoyé, le deuxième refusé, le troisième jamais tenté
+        BLEMetrics.Snapshot snapshot = server.getMetrics().snapshot();
+        assertThat(snapshot.getNotifyCount()).isEqualTo(2);
+        assertThat(snapshot.getNotifyFailures()).isEqualTo(1);
+        assertThat(snapshot.getWireBytes()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("notifyBatch should fall back to per-chunk notify and report the first failed chunk")
+    void testNotifyBatchFallback() {
+        FakeBLEServer server = new FakeBLEServer() {
+            @Override
+            protected int nativeNotifyBatch(byte[] payload, int offset, int length, int chunkSize) {
+                throw new UnsatisfiedLinkError("nativeNotifyBatch");
+            }
+
+            @Override
+            protected int nativeNotify(byte[] data) {
+                notifyCalls++;
+                lastData = data;
+                return notifyCalls == 3 ? -1 : 0;
+            }
+        };
+        byte[] payload = "abcdefghij".getBytes();
+
+        assertThat(server.notifyBatch(payload, 1, 8, 3)).isEqualTo(2);
+        assertThat(new String(server.lastData)).isEqualTo("hi");
+
+        server.notifyCalls = 0;
+        assertThat(server.notifyBatch(payload, 0, 4, 3)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("notifyBatch should validate its arguments")
+    void testNotifyBatchArguments() {
+        FakeBLEServer server = new FakeBLEServer();
+
+        assertThatThrownBy(() -> server.notifyBatch(new byte[4], 2, 4, 2))
+            .isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> server.notifyBatch(new byte[4], 0, 4, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("sendData should apply the configured pacing strategy before each chunk")
+    void testSendDataPacingStrategy() {
+        FakeBLEServer server = new FakeBLEServer();
+        StringBuilder paced = new StringBuilder();
+        server.setPacingStrategy(chunkBytes -> paced.append(chunkBytes).append(' '));
+
+        assertThat(server.sendData("x".repeat(450))).isTrue();
+        assertThat(paced.toString().trim()).isEqualTo("200 200 50");
+        assertThat(server.getPacingStrategy()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("sendData should stop and keep the interrupt flag when pacing is interrupted")
+    void testSendDataPacingInterrupted() {
+        FakeBLEServer server = new FakeBLEServer();
+        server.setPacingStrategy(chunkBytes -> {
+            throw new InterruptedException("paced");
+        });
+
+        assertThat(server.sendData("hello")).isFalse();
+        assertThat(Thread.interrupted()).isTrue();
+        assertThat(server.notifyCalls).isZero();
+    }
+
+    @Test
+    @DisplayName("setPacingStrategy should reject null")
+    void testSetPacingStrategyNull() {
+        FakeBLEServer server = new FakeBLEServer();
+        assertThatThrownBy(() -> server.setPacingStrategy(null))
+            .isInstanceOf(NullPointerException.class);
+        server.setPacingStrategy(PacingStrategy.none());
+        assertThat(server.getPacingStrategy()).isSameAs(PacingStrategy.NONE);
+    }
+
+    @Test
+    @DisplayName("a failed chunk should be retried alone, up to the retry policy limit")
+    void testSendDataRetry() {
+        int[] failures = {2};
+        FakeBLEServer server = new FakeBLEServer() {
+            @Override
+            protected int nativeNotify(byte[] data) {
+                notifyCalls++;
+                // Le deuxième chunk échoue deux fois avant de passer
+                return notifyCalls >= 2 && failures[0]-- > 0 ? -1 : 0;
+            }
+        };
+        server.setPacingStrategy(PacingStrategy.none());
+
+        assertThat(server.getRetryPolicy()).isSameAs(RetryPolicy.NONE);
+        assertThat(server.sendData("x".repeat(450))).isFalse(); // sans reprise : échec immédiat
+        assertThat(server.notifyCalls).isEqualTo(2);
+
+        server.notifyCalls = 0;
+        failures[0] = 2;
+        server.setRetryPolicy(RetryPolicy.exponentialBackoff(2, 0, 0, TimeUnit.MILLISECONDS));
+        assertThat(server.sendData("x".repeat(450))).isTrue();
+        assertThat(server.notifyCalls).isEqualTo(5);
+        assertThat(server.getMetrics().getNotifyFailures()).isEqualTo(3);
+
+        assertThatThrownBy(() -> server.setRetryPolicy(null)).isInstanceOf(NullPointerException.class);
+    }
+
+    @Test
+    @DisplayName("sendResumable should report the bytes delivered so that a resend completes the payload")
+    void testSendResumable() {
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        boolean[] linkDown = {false};
+        FakeBLEServer server = new FakeBLEServer() {
+            @Override
+            protected int nativeNotify(byte[] data) {
+                notifyCalls++;
+                if (linkDown[0] && notifyCalls == 3) {
+                    return -1;
+                }
+                received.write(data, 0, data.length);
+                return 0;
+            }
+        };
+        server.setPacingStrategy(PacingStrategy.none());
+        byte[] payload = new byte[1000];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+
+        linkDown[0] = true; // le troisième chunk échoue
+        SendResult result = server.sendResumable(payload, 0, payload.length);
+        assertThat(result.isComplete()).isFalse();
+        assertThat(result.getBytesDelivered()).isEqualTo(400);
+        assertThat(result.getRemaining()).isEqualTo(600);
+        assertThat(result.getResumeOffset()).isEqualTo(400);
+
+        linkDown[0] = false;
+        SendResult resumed = server.sendResumable(payload, result.getResumeOffset(), result.getRemaining());
+        assertThat(resumed.isComplete()).isTrue();
+        assertThat(resumed.toString()).isEqualTo("SendResult[600/600 bytes, complete]");
+        assertThat(received.toByteArray()).isEqualTo(payload);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(10);
+        assertThat(server.sendResumable(direct).isComplete()).isTrue();
+        assertThat(server.sendResumable(new byte[0], 0, 0).isComplete()).isFalse();
+    }
+
+    @Test
+    @DisplayName("batch mode should resend the batch from the failed chunk")
+    void testSendDataBatchModeRetry() {
+        List<int[]> batches = new ArrayList<>();
+        FakeBLEServer server = new FakeBLEServer() {
+            @Override
+            protected int nativeNotifyBatch(byte[] payload, int offset, int length, int chunkSize) {
+                batches.add(new int[] {offset, length});
+                return batches.size() == 1 ? 1 : (length + chunkSize - 1) / chunkSize;
+            }
+        };
+        server.setBatchNotify(true);
+        server.setPacingStrategy(PacingStrategy.none());
+        server.setRetryPolicy(RetryPolicy.exponentialBackoff(1, 1, 1, TimeUnit.MILLISECONDS));
+
+        SendResult result = server.sendResumable("x".repeat(450).getBytes(StandardCharsets.UTF_8), 0, 450);
+
+        assertThat(result.isComplete()).isTrue();
+        assertThat(batches).hasSize(2);
+        assertThat(batches.get(1)).containsExactly(200, 250);
+    }
+
+    @Test
+    @DisplayName("retry backoff should double up to its maximum and stop on interrupt")
+    void testRetryPolicyBackoff() {
+        RetryPolicy policy = RetryPolicy.exponentialBackoff(5, 10, 50, TimeUnit.MILLISECONDS);
+        assertThat(policy.backoffNanos(1)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(10));
+        assertThat(policy.backoffNanos(3)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(40));
+        assertThat(policy.backoffNanos(4)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(RetryPolicy.exponentialBackoff(100, 1, Long.MAX_VALUE, TimeUnit.NANOSECONDS).backoffNanos(100))
+            .isEqualTo(Long.MAX_VALUE);
+        assertThatThrownBy(() -> RetryPolicy.exponentialBackoff(-1, 0, 0, TimeUnit.MILLISECONDS))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RetryPolicy.exponentialBackoff(1, 10, 5, TimeUnit.MILLISECONDS))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        FakeBLEServer server = new FakeBLEServer();
+        server.failOnNotify = true;
+        server.setPacingStrategy(PacingStrategy.none());
+        server.setRetryPolicy(RetryPolicy.exponentialBackoff(3, 1, 1, TimeUnit.HOURS));
+        Thread.currentThread().interrupt();
+        assertThat(server.sendData("hello")).isFalse(); // pas d'attente d'une heure
+        assertThat(Thread.interrupted()).isTrue();
+        assertThat(server.notifyCalls).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("sendData(String) should encode as UTF-8")
+    void testSendDataUtf8() {
+        FakeBLEServer server = new FakeBLEServer();
+
+        assertThat(server.sendData("é")).isTrue();
+        assertThat(server.lastData).containsExactly(0xC3, 0xA9);
+    }
+
+    @Test
+    @DisplayName("sendBytes(byte[], offset, length) should chunk directly from the caller's array")
+    void testSendDataByteArrayRegion() {
+        FakeBLEServer server = new FakeBLEServer();
+        server.setPacingStrategy(PacingStrategy.none());
+        byte[] payload = new byte[500];
+        payload[100] = 1;
+        payload[499] = 9;
+
+        assertThat(server.sendBytes(payload, 100, 400)).isTrue();
+        assertThat(server.notifyCalls).isEqualTo(2);
+        assertThat(server.lastData).hasSize(200).endsWith((byte) 9);
+        assertThat(server.sendBytes(new byte[0])).isFalse();
+        assertThatThrownBy(() -> server.sendBytes(payload, 450, 100))
+            .isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    @DisplayName("sendBuffer(ByteBuffer) should send direct buffers chunk by chunk without copying")
+    void testSendDataDirectByteBuffer() {
+        List<Integer> offsets = new ArrayList<>();
+        FakeBLEServer server = new FakeBLEServer() {
+            @Override
+            protected int nativeNotifyDirect(ByteBuffer buffer, int offset, int length) {
+                offsets.add(offset);
+                offsets.add(length);
+                return 0;
+            }
+        };
+        server.setPacingStrategy(PacingStrategy.none());
+        ByteBuffer buffer = ByteBuffer.allocateDirect(512);
+        buffer.position(50).limit(500);
+
+        assertThat(server.sendBuffer(buffer)).isTrue();
+        assertThat(offsets).containsExactly(50, 200, 250, 200, 450, 50);
+        assertThat(server.notifyCalls).isZero();
+        assertThat(buffer.position()).isEqualTo(50);
+    }
+
+    @Test
+    @DisplayName("sendBuffer(ByteBuffer) should use the backing array of heap buffers")
+    void testSendDataHeapByteBuffer() {
+        FakeBLEServer server = new FakeBLEServer();
+        ByteBuffer buffer = ByteBuffer.wrap("xxhello".getBytes());
+        buffer.position(2);
+
+        assertThat(server.sendBuffer(buffer)).isTrue();
+        assertThat(new String(server.lastData)).isEqualTo("hello");
+        assertThat(server.sendBuffer(ByteBuffer.wrap("ro".getBytes()).asReadOnlyBuffer())).isTrue();
+        assertThat(new String(server.lastData)).isEqualTo("ro");
+    }
+
+    @Test
+    @DisplayName("notify(byte[], offset, length) should pass the region to nativeNotifyRange")
+    void testNotifyRange() {
+        int[] range = new int[2];
+        FakeBLEServer server = new FakeBLEServer() {
+            @Override
+            protected int nativeNotifyRange(byte[] data, int offset, int length) {
+                range[0] = offset;
+                range[1] = length;
+                return 0;
+            }
+        };
+
+        assertThat(server.notify(new byte[10], 3, 4)).isZero();
+        assertThat(range).containsExactly(3, 4);
+        assertThat(server.notifyCalls).isZero();
+        assertThatThrownBy(() -> server.notify(new byte[10], 8, 4))
+            .isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    @DisplayName("notify(byte[], offset, length) fallback should reuse a per-thread chunk buffer")
+    void testNotifyRangeFallbackReusesBuffer() {
+        List<byte[]> sent = new ArrayList<>();
+        FakeBLEServer server = new FakeBLEServer() {
+            @Override
+            protected int nativeNotify(byte[] data) {
+                sent.add(data);
+                return 0;
+            }
+        };
+        server.setPacingStrategy(PacingStrategy.none());
+        byte[] payload = "x".repeat(450).getBytes();
+
+        assertThat(server.sendBytes(payload, 0, payload.length)).isTrue();
+        assertThat(server.sendBytes(payload, 0, payload.length)).isTrue();
+
+        assertThat(sent).hasSize(6);
+        assertThat(sent.get(0)).hasSize(200).isSameAs(sent.get(1)).isSameAs(sent.get(3));
+        assertThat(sent.get(2)).hasSize(50).isSameAs(sent.get(5));
+        // Un tableau entier n'est pas recopié
+        assertThat(server.notify(payload, 0, payload.length)).isZero();
+        assertThat(sent.get(6)).isSameAs(payload);
+    }
+
+    @Test
+    @DisplayName("sendBytes should not allocate per chunk in steady state")
+    void testSendBytesAllocationFree() {
+        FakeBLEServer server = new FakeBLEServer() {
+            @Override
+            protected int nativeNotifyRange(byte[] data, int offset, int length) {
+                notifyCalls++;
+                return 0;
+            }
+        };
+        server.setPacingStrategy(PacingStrategy.none());
+        byte[] payload = new byte[1024 * 1024];
+        int chunks = (payload.length + 199) / 200;
+
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeAllocationCounting(threads);
+        long threadId = Thread.currentThread().getId();
+
+        // Chauffe : chargement des classes et compilation JIT
+        for (int i = 0; i < 5; i++) {
+            server.sendBytes(payload, 0, payload.length);
+        }
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        boolean result = server.sendBytes(payload, 0, payload.length);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertThat(result).isTrue();
+        assertThat(server.notifyCalls).isEqualTo(6 * chunks);
+        assertThat(allocated / (double) chunks).isLessThan(1.0);
+    }
+
+    private static void assumeAllocationCounting(ThreadMXBean threads) {
+        Assumptions.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    @DisplayName("chunk size should default to 200 bytes while the MTU is unknown")
+    void testChunkSizeDefault() {
+        FakeBLEServer server = new FakeBLEServer();
+        server.startServer("svc", "char"); // pas de nativeGetMtu dans la bibliothèque
+
+        assertThat(server.getNegotiatedMtu()).isZero();
+        assertThat(server.getChunkSize()).isEqualTo(BLEServer.DEFAULT_CHUNK_SIZE);
+    }
+
+    @Test
+    @DisplayName("chunk size should follow the MTU reported at start (MTU - 3)")
+    void testChunkSizeFromNativeMtu() {
+        FakeBLEServer server = new FakeBLEServer() {
+            @Override
+            protected int nativeGetMtu() {
+                return 247;
+            }
+        };
+        server.setPacingStrategy(PacingStrategy.none());
+
+        assertThat(server.startServer("svc", "char")).isEqualTo(1);
+        assertThat(server.getChunkSize()).isEqualTo(244);
+        assertThat(server.sendData("x".repeat(450))).isTrue();
+        assertThat(server.notifyCalls).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("chunk size should be re-evaluated when the MTU changes")
+    void testChunkSizeOnMtuChanged() {
+        FakeBLEServer server = new FakeBLEServer();
+        server.setPacingStrategy(PacingStrategy.none());
+
+        server.simulateMtuChanged(23);
+        assertThat(server.getChunkSize()).isEqualTo(20);
+        assertThat(server.sendData("x".repeat(45))).isTrue();
+        assertThat(server.notifyCalls).isEqualTo(3);
+
+        server.simulateMtuChanged(1000);
+        assertThat(server.getNegotiatedMtu()).isEqualTo(517);
+        assertThat(server.getChunkSize()).isEqualTo(BLEServer.MAX_CHUNK_SIZE);
+
+        server.simulateMtuChanged(5); // invalide : MTU inconnu
+        assertThat(server.getChunkSize()).isEqualTo(BLEServer.DEFAULT_CHUNK_SIZE);
+    }
+
+    @Test
+    @DisplayName("an MTU of 517 should give notifications of at most 512 bytes")
+    void testChunkSizeAtMaxMtu() {
+        FakeBLEServer server = new FakeBLEServer();
+        server.setPacingStrategy(PacingStrategy.none());
+
+        server.simulateMtuChanged(517);
+        assertThat(server.getChunkSize()).isEqualTo(512);
+        assertThat(server.sendData("x".repeat(1024))).isTrue();
+        assertThat(server.notifyCalls).isEqualTo(2);
+        assertThat(server.lastData).hasSize(512);
+
+        server.simulateMtuChanged(515);
+        assertThat(server.getChunkSize()).isEqualTo(512);
+        server.simulateMtuChanged(514);
+        assertThat(server.getChunkSize()).isEqualTo(511);
+    }
+
+    @Test
+    @DisplayName("setChunkSize should override the MTU until reset to 0")
+    void testSetChunkSizeOverride() {
+        FakeBLEServer server = new FakeBLEServer();
+        server.simulateMtuChanged(185);
+
+        server.setChunkSize(100);
+        assertThat(server.getChunkSize()).isEqualTo(100);
+        server.setChunkSize(0);
+        assertThat(server.getChunkSize()).isEqualTo(182);
+
+        assertThatThrownBy(() -> server.setChunkSize(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> server.setChunkSize(BLEServer.MAX_CHUNK_SIZE + 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("sendData should compress large payloads before chunking when a compressor is set")
+    void testSendDataCompression() throws Exception {
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        FakeBLEServer server = new FakeBLEServer() {
+            @Override
+            protected int nativeNotify(byte[] data) {
+                notifyCalls++;
+                received.write(data, 0, data.length);
+                return 0;
+            }
+        };
+        server.setPacingStrategy(PacingStrategy.none());
+        server.setCompressor(new PayloadCompressor(512));
+        String payload = "{\"hr\":72,\"spo2\":98}".repeat(200);
+
+        assertThat(server.getCompressor()).isNotNull();
+        assertThat(server.sendData(payload)).isTrue();
+        byte[] wire = received.toByteArray();
+        assertThat(wire[0]).isEqualTo(PayloadCompressor.DEFLATED);
+        assertThat(server.notifyCalls).isLessThan(payload.length() / 200);
+        assertThat(new String(PayloadCompressor.decode(wire, 0, wire.length))).isEqualTo(payload);
+
+        received.reset();
+        assertThat(server.sendData("small")).isTrue();
+        assertThat(received.toByteArray()).containsExactly(0, 's', 'm', 'a', 'l', 'l');
+
+        server.setCompressor(null);
+        received.reset();
+        assertThat(server.sendData("small")).isTrue();
+        assertThat(received.toString()).isEqualTo("small");
+    }
+
+    @Test
+    @DisplayName("framing should prefix each chunk with a header the reassembler can rebuild")
+    void testFramingRoundTrip() {
+        FrameReassembler reassembler = new FrameReassembler(4096);
+        List<byte[]> messages = new ArrayList<>();
+        List<Integer> chunkLengths = new ArrayList<>();
+        FakeBLEServer server = new FakeBLEServer() {
+            @Override
+            protected int nativeNotify(byte[] data) {
+                notifyCalls++;
+                chunkLengths.add(data.length);
+                byte[] message = reassembler.accept(data, 0, data.length);
+                if (message != null) {
+                    messages.add(message);
+                }
+                return 0;
+            }
+        };
+        server.setPacingStrategy(PacingStrategy.none());
+        server.setFraming(true);
+        server.setChunkSize(20);
+        byte[] payload = new byte[100];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+        ByteBuffer direct = ByteBuffer.allocateDirect(payload.length);
+        direct.put(payload).flip();
+
+        assertThat(server.isFraming()).isTrue();
+        assertThat(server.sendBytes(payload)).isTrue();
+        assertThat(server.sendBuffer(direct)).isTrue();
+
+        // 100 octets / 12 octets utiles par chunk = 9 chunks par message
+        assertThat(server.notifyCalls).isEqualTo(18);
+        assertThat(chunkLengths).allMatch(length -> length <= 20);
+        assertThat(messages).hasSize(2);
+        assertThat(messages.get(0)).isEqualTo(payload);
+        assertThat(messages.get(1)).isEqualTo(payload);
+        assertThat(direct.position()).isZero();
+        assertThat(reassembler.getDroppedMessages()).isZero();
+    }
+
+    @Test
+    @DisplayName("framing should give each message its own id and refuse chunks too small for the header")
+    void testFramingMessageIds() {
+        List<Integer> ids = new ArrayList<>();
+        FakeBLEServer server = new FakeBLEServer() {
+            @Override
+            protected int nativeNotify(byte[] data) {
+                notifyCalls++;
+                ids.add(FrameHeader.messageId(data, 0));
+                return 0;
+            }
+        };
+        server.setPacingStrategy(PacingStrategy.none());
+        server.setFraming(true);
+
+        assertThat(server.sendData("first")).isTrue();
+        assertThat(server.sendData("second")).isTrue();
+        assertThat(ids).hasSize(2);
+        assertThat(ids.get(1)).isEqualTo(ids.get(0) + 1);
+
+        server.setChunkSize(FrameHeader.SIZE);
+        assertThat(server.sendData("third")).isFalse();
+
+        server.setFraming(false);
+        assertThat(server.isFraming()).isFalse();
+        assertThat(server.sendData("third")).isTrue();
+        assertThat(server.notifyCalls).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("subscription events should be tracked, forwarded and closed on stop")
+    void testSubscriptionEvents() {
+        List<String> events = new ArrayList<>();
+        FakeBLEServer server = new FakeBLEServer() {
+            @Override
+            protected int[] nativeGetSubscribers() {
+                return new int[] {7};
+            }
+        };
+        server.setSubscriptionListener(new SubscriptionListener() {
+            @Override
+            public void onSubscribed(int subscriberId) {
+                events.add("+" + subscriberId);
+            }
+
+            @Override
+            public void onUnsubscribed(int subscriberId) {
+                events.add("-" + subscriberId);
+            }
+        });
+
+        assertThat(server.startServer("svc", "char")).isEqualTo(1);
+        assertThat(server.getSubscribers()).containsExactly(7); // centraux déjà abonnés au démarrage
+        server.startServer("svc", "char");
+
+        server.stopServer();
+        assertThat(server.getSubscribers()).isEmpty();
+        assertThat(events).containsExactly("+7", "-7");
+    }
+
+    @Test
+    @DisplayName("notify to a subscriber should use nativeNotifySubscriber, else notify every central")
+    void testNotifySubscriber() {
+        int[] targeted = new int[3];
+        FakeBLEServer server = new FakeBLEServer() {
+            @Override
+            protected int nativeNotifySubscriber(int subscriberId, byte[] data, int offset, int length) {
+                targeted[0] = subscriberId;
+                targeted[1] = offset;
+                targeted[2] = length;
+                return 0;
+            }
+        };
+        byte[] payload = "abcdef".getBytes();
+
+        assertThat(server.notify(3, payload, 2, 4)).isZero();
+        assertThat(targeted).containsExactly(3, 2, 4);
+        assertThat(server.notifyCalls).isZero();
+        assertThatThrownBy(() -> server.notify(3, payload, 4, 4)).isInstanceOf(IndexOutOfBoundsException.class);
+
+        FakeBLEServer legacy = new FakeBLEServer(); // bibliothèque sans nativeNotifySubscriber
+        assertThat(legacy.notify(3, payload, 2, 4)).isZero();
+        assertThat(legacy.notify(4, payload, 0, 2)).isZero();
+        assertThat(legacy.notifyCalls).isEqualTo(2);
+        assertThat(new String(legacy.lastData)).isEqualTo("ab");
+        assertThat(legacy.getSubscribers()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("getMetrics should count every notify and message sent")
+    void testMetrics() {
+        FakeBLEServer server = new FakeBLEServer();
+        server.setPacingStrategy(PacingStrategy.none());
+        server.setChunkSize(100);
+
+        assertThat(server.sendBytes(new byte[250])).isTrue();
+        server.failOnNotify = true;
+        assertThat(server.sendData("x")).isFalse();
+
+        BLEMetrics.Snapshot snapshot = server.getMetrics().snapshot();
+        assertThat(snapshot.getNotifyCount()).isEqualTo(4);
+        assertThat(snapshot.getNotifyFailures()).isEqualTo(1);
+        assertThat(snapshot.getWireBytes()).isEqualTo(250);
+        assertThat(snapshot.getMessagesSent()).isEqualTo(1);
+        assertThat(snapshot.getMessageFailures()).isEqualTo(1);
+        assertThat(snapshot.getPayloadBytes()).isEqualTo(250);
+        assertThat(server.getMetrics().getSendLatency().getCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("the native library should be loaded on the first native call, once per instance")
+    void testLazyNativeLibraryLoading() {
+        int[] loads = {0};
+        FakeBLEServer server = new FakeBLEServer() {
+            @Override
+            protected void loadNativeLibrary() {
+                loads[0]++;
+            }
+        };
+        server.setPacingStrategy(PacingStrategy.none());
+
+        assertThat(loads[0]).isZero();
+        assertThat(server.startServer("svc", "char")).isEqualTo(1);
+        assertThat(server.sendData("hello")).isTrue();
+        server.stopServer();
+        assertThat(loads[0]).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("a failed native library load should surface on use and be retried")
+    void testLazyNativeLibraryLoadingFailure() {
+        int[] loads = {0};
+        FakeBLEServer server = new FakeBLEServer() {
+            @Override
+            protected void loadNativeLibrary() {
+                loads[0]++;
+                if (loads[0] < 3) {
+                    throw new RuntimeException("Impossible de charger BLEServer.dll");
+                }
+            }
+        };
+        server.setPacingStrategy(PacingStrategy.none());
+
+        assertThatThrownBy(() -> server.startServer("svc", "char"))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessage("Impossible de charger BLEServer.dll");
+        assertThat(server.sendData("hello")).isFalse();
+        assertThat(server.notifyCalls).isZero();
+        assertThat(server.startServer("svc", "char")).isEqualTo(1);
+        assertThat(loads[0]).isEqualTo(3);
+    }
+
     @Test
     @DisplayName("sendData should return false if notify fails")
     void testSendDataNotifyFailure() {
@@ -486,6 +1294,33 @@ class BLEServerTest {
         }
     }
 
+    @Test
+    @DisplayName("extractLibraryFromResources should fall back to a temp file when the cache cannot be used")
+    void testExtractLibraryUntrustedCache() throws Exception {
+        BLEServer server = new BLEServer() {
+            @Override
+            protected void loadNativeLibrary() {} // Skip loading
+        };
+        Method method = BLEServer.class.getDeclaredMethod("extractLibraryFromResources");
+        method.setAccessible(true);
+
+        Path notADirectory = Files.createTempFile("vital-ble-cache", ".file");
+        String originalOS = System.getProperty("os.name");
+        try {
+            System.setProperty("os.name", "Linux");
+            System.setProperty(NativeLibraryCache.CACHE_DIR_PROPERTY, notADirectory.toString());
+            Path extracted = Paths.get((String) method.invoke(server));
+
+            assertThat(extracted.startsWith(notADirectory)).isFalse();
+            assertThat(extracted.getFileName().toString()).startsWith("BLEServer").endsWith(".so");
+            assertThat(Files.size(extracted)).isPositive();
+        } finally {
+            System.setProperty("os.name", originalOS);
+            System.clearProperty(NativeLibraryCache.CACHE_DIR_PROPERTY);
+            Files.deleteIfExists(notADirectory);
+        }
+    }
+
     @Test
     @DisplayName("extractLibraryFromResources should handle unknown OS")
     void testExtractLibraryMissingResource() throws Exception {
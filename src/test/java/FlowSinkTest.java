@@ -0,0 +1,199 @@
+package test.java;
+
+import main.java.FlowSink;
+import main.java.LoopbackBLEServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+class FlowSinkTest {
+
+    private final LoopbackBLEServer server = new LoopbackBLEServer();
+
+    @AfterEach
+    void tearDown() {
+        server.stopServer();
+    }
+
+    /**
+     * Collecte les résultats publiés par le sink
+     */
+    static class DeliveryCollector implements Flow.Subscriber<FlowSink.Delivery> {
+        final List<FlowSink.Delivery> deliveries = new CopyOnWriteArrayList<>();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(FlowSink.Delivery item) {
+            deliveries.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+    }
+
+    /**
+     * Abonnement amont qui compte les demandes du sink
+     */
+    static class CountingSubscription implements Flow.Subscription {
+        final AtomicLong requested = new AtomicLong();
+        final AtomicBoolean cancelled = new AtomicBoolean();
+
+        @Override
+        public void request(long n) {
+            requested.addAndGet(n);
+        }
+
+        @Override
+        public void cancel() {
+            cancelled.set(true);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    @DisplayName("every item should be sent in order and acknowledged before completion")
+    void testDeliversAndAcknowledges() throws Exception {
+        List<byte[]> received = new CopyOnWriteArrayList<>();
+        server.setSubscriber(received::add);
+        server.setBufferDepth(1000);
+        server.startServer("svc", "char");
+        FlowSink sink = new FlowSink(server, 4);
+        DeliveryCollector collector = new DeliveryCollector();
+        sink.deliveries().subscribe(collector);
+
+        try (SubmissionPublisher<byte[]> upstream = new SubmissionPublisher<>()) {
+            upstream.subscribe(sink);
+            for (int i = 0; i < 50; i++) {
+                upstream.submit(new byte[] {(byte) i, 1, 2});
+            }
+        }
+
+        collector.done.get(5, TimeUnit.SECONDS);
+        assertThat(server.awaitDelivery(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(collector.deliveries).hasSize(50);
+        for (int i = 0; i < 50; i++) {
+            assertThat(collector.deliveries.get(i).getSequence()).isEqualTo(i);
+            assertThat(collector.deliveries.get(i).isSuccess()).isTrue();
+            assertThat(received.get(i)[0]).isEqualTo((byte) i);
+        }
+        assertThat(collector.deliveries.get(0).getLength()).isEqualTo(3);
+        assertThat(sink.getDroppedDeliveries()).isZero();
+    }
+
+    @Test
+    @DisplayName("the sink should request one item per item sent, never more than the window ahead")
+    void testRequestsFollowTheLink() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        server.setSubscriber(chunk -> { });
+        server.startServer("svc", "char");
+        LoopbackBLEServer gated = new LoopbackBLEServer() {
+            @Override
+            public boolean sendBytes(byte[] data, int offset, int length) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return server.sendBytes(data, offset, length);
+            }
+        };
+        FlowSink sink = new FlowSink(gated, 3);
+        DeliveryCollector collector = new DeliveryCollector();
+        sink.deliveries().subscribe(collector);
+        CountingSubscription subscription = new CountingSubscription();
+
+        sink.onSubscribe(subscription);
+        assertThat(subscription.requested.get()).isEqualTo(3);
+        for (int i = 0; i < 3; i++) {
+            sink.onNext(new byte[] {(byte) i});
+        }
+        Thread.sleep(50);
+        assertThat(subscription.requested.get()).isEqualTo(3); // lien bloqué : aucune nouvelle demande
+
+        release.countDown();
+        await(() -> subscription.requested.get() == 6);
+        assertThat(subscription.requested.get()).isEqualTo(6);
+
+        CountingSubscription second = new CountingSubscription();
+        sink.onSubscribe(second);
+        assertThat(second.cancelled.get()).isTrue();
+        assertThat(second.requested.get()).isZero();
+
+        sink.onComplete();
+        collector.done.get(5, TimeUnit.SECONDS);
+        assertThat(collector.deliveries).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("failed sends should be acknowledged as failures and upstream errors forwarded")
+    void testFailuresAndErrors() throws Exception {
+        FlowSink sink = new FlowSink(server, 2); // serveur non démarré : chaque envoi échoue
+        DeliveryCollector collector = new DeliveryCollector();
+        sink.deliveries().subscribe(collector);
+        CountingSubscription subscription = new CountingSubscription();
+
+        sink.onSubscribe(subscription);
+        sink.onNext(new byte[10]);
+        sink.onNext(new byte[20]);
+        await(() -> subscription.requested.get() == 4 && collector.deliveries.size() == 2);
+        assertThat(subscription.requested.get()).isEqualTo(4); // les échecs libèrent aussi la fenêtre
+        sink.onError(new IllegalStateException("capteur déconnecté"));
+
+        assertThatThrownBy(() -> collector.done.get(5, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("capteur déconnecté");
+        assertThat(collector.deliveries).hasSize(2);
+        assertThat(collector.deliveries).noneMatch(FlowSink.Delivery::isSuccess);
+        assertThat(collector.deliveries.get(1).toString()).isEqualTo("Delivery #1: 20 bytes, failed");
+    }
+
+    @Test
+    @DisplayName("cancel should stop the upstream and complete the delivery stream")
+    void testCancel() throws Exception {
+        server.startServer("svc", "char");
+        FlowSink sink = new FlowSink(server, 2);
+        DeliveryCollector collector = new DeliveryCollector();
+        sink.deliveries().subscribe(collector);
+        CountingSubscription subscription = new CountingSubscription();
+        sink.onSubscribe(subscription);
+
+        sink.cancel();
+
+        assertThat(subscription.cancelled.get()).isTrue();
+        collector.done.get(5, TimeUnit.SECONDS);
+        assertThat(sink.getWindow()).isEqualTo(2);
+        assertThatThrownBy(() -> new FlowSink(server, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sink.onNext(null)).isInstanceOf(NullPointerException.class);
+    }
+}
@@ -0,0 +1,148 @@
+package test.java;
+
+import main.java.FrameHeader;
+import main.java.FrameReassembler;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.*;
+
+class FrameReassemblerTest {
+
+    // Construit un chunk tramé portant payload[from, from + length)
+    private static byte[] frame(int messageId, int index, boolean last, byte[] payload, int from, int length) {
+        byte[] chunk = new byte[FrameHeader.SIZE + length];
+        FrameHeader.write(chunk, 0, messageId, index, last, payload.length);
+        System.arraycopy(payload, from, chunk, FrameHeader.SIZE, length);
+        return chunk;
+    }
+
+    private static byte[] accept(FrameReassembler reassembler, byte[] chunk) {
+        return reassembler.accept(chunk, 0, chunk.length);
+    }
+
+    @Test
+    @DisplayName("FrameHeader should round-trip every field")
+    void testHeaderRoundTrip() {
+        byte[] header = new byte[FrameHeader.SIZE + 2];
+        FrameHeader.write(header, 2, 0x1ABCD, FrameHeader.MAX_CHUNKS - 1, true, 1_000_000);
+
+        assertThat(FrameHeader.messageId(header, 2)).isEqualTo(0xABCD);
+        assertThat(FrameHeader.chunkIndex(header, 2)).isEqualTo(FrameHeader.MAX_CHUNKS - 1);
+        assertThat(FrameHeader.isLast(header, 2)).isTrue();
+        assertThat(FrameHeader.totalLength(header, 2)).isEqualTo(1_000_000);
+        assertThatThrownBy(() -> FrameHeader.write(header, 0, 1, FrameHeader.MAX_CHUNKS, false, 1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("accept should return the message on its last chunk")
+    void testAcceptRebuildsMessage() {
+        FrameReassembler reassembler = new FrameReassembler(1024);
+        byte[] payload = "heart rate 72 bpm".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(accept(reassembler, frame(7, 0, false, payload, 0, 6))).isNull();
+        assertThat(accept(reassembler, frame(7, 1, false, payload, 6, 6))).isNull();
+        byte[] message = accept(reassembler, frame(7, 2, true, payload, 12, 5));
+
+        assertThat(message).isEqualTo(payload);
+        assertThat(reassembler.getCompletedMessages()).isEqualTo(1);
+        assertThat(reassembler.getDroppedMessages()).isZero();
+    }
+
+    @Test
+    @DisplayName("accept should drop a message with a missing chunk and recover on the next one")
+    void testAcceptDropsOnGap() {
+        FrameReassembler reassembler = new FrameReassembler(1024);
+        byte[] payload = "abcdefghij".getBytes(StandardCharsets.UTF_8);
+
+        accept(reassembler, frame(1, 0, false, payload, 0, 4));
+        assertThat(accept(reassembler, frame(1, 2, true, payload, 8, 2))).isNull();
+        assertThat(reassembler.getDroppedMessages()).isEqualTo(1);
+
+        accept(reassembler, frame(2, 0, false, payload, 0, 4));
+        accept(reassembler, frame(2, 1, false, payload, 4, 4));
+        assertThat(accept(reassembler, frame(2, 2, true, payload, 8, 2))).isEqualTo(payload);
+    }
+
+    @Test
+    @DisplayName("accept should drop a partial message when a new one starts")
+    void testAcceptDropsInterruptedMessage() {
+        FrameReassembler reassembler = new FrameReassembler(1024);
+        byte[] payload = "abcdef".getBytes(StandardCharsets.UTF_8);
+
+        accept(reassembler, frame(1, 0, false, payload, 0, 3));
+        byte[] message = accept(reassembler, frame(2, 0, true, payload, 0, 6));
+
+        assertThat(message).isEqualTo(payload);
+        assertThat(reassembler.getDroppedMessages()).isEqualTo(1);
+        // suite orpheline du message abandonné
+        assertThat(accept(reassembler, frame(1, 1, true, payload, 3, 3))).isNull();
+        assertThat(reassembler.getDroppedMessages()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("with one message in flight, a chunk of another message should drop the partial one")
+    void testAcceptDropsOnForeignChunk() {
+        FrameReassembler reassembler = new FrameReassembler(1024);
+        byte[] payload = "abcdef".getBytes(StandardCharsets.UTF_8);
+
+        accept(reassembler, frame(1, 0, false, payload, 0, 3));
+        // premier chunk du message 2 perdu
+        assertThat(accept(reassembler, frame(2, 1, true, payload, 3, 3))).isNull();
+        assertThat(reassembler.getDroppedMessages()).isEqualTo(1);
+        assertThat(accept(reassembler, frame(1, 1, true, payload, 3, 3))).isNull();
+        assertThat(reassembler.getCompletedMessages()).isZero();
+
+        // plusieurs messages en vol : le chunk orphelin laisse les autres intacts
+        FrameReassembler interleaved = new FrameReassembler(1024, 2);
+        accept(interleaved, frame(1, 0, false, payload, 0, 3));
+        assertThat(accept(interleaved, frame(2, 1, true, payload, 3, 3))).isNull();
+        assertThat(accept(interleaved, frame(1, 1, true, payload, 3, 3))).isEqualTo(payload);
+        assertThat(interleaved.getDroppedMessages()).isZero();
+    }
+
+    @Test
+    @DisplayName("accept should reject oversized, truncated and inconsistent frames")
+    void testAcceptRejectsInvalidFrames() {
+        FrameReassembler reassembler = new FrameReassembler(8);
+        byte[] large = new byte[9];
+        byte[] payload = "abcd".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(accept(reassembler, frame(1, 0, true, large, 0, 9))).isNull();
+        assertThat(reassembler.accept(new byte[3], 0, 3)).isNull();
+        // dernier chunk annoncé alors qu'il manque des octets
+        assertThat(accept(reassembler, frame(2, 0, true, payload, 0, 2))).isNull();
+        assertThat(reassembler.getDroppedMessages()).isEqualTo(2);
+        assertThat(reassembler.getCompletedMessages()).isZero();
+        assertThatThrownBy(() -> new FrameReassembler(0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("accept should rebuild interleaved messages up to maxInFlight")
+    void testAcceptInterleavedMessages() {
+        FrameReassembler reassembler = new FrameReassembler(1024, 2);
+        byte[] bulk = "bulk transfer".getBytes(StandardCharsets.UTF_8);
+        byte[] alarm = "ALARM".getBytes(StandardCharsets.UTF_8);
+        byte[] vitals = "HR:72".getBytes(StandardCharsets.UTF_8);
+
+        accept(reassembler, frame(1, 0, false, bulk, 0, 5));
+        accept(reassembler, frame(2, 0, false, alarm, 0, 3));
+        assertThat(accept(reassembler, frame(2, 1, true, alarm, 3, 2))).isEqualTo(alarm);
+        accept(reassembler, frame(1, 1, false, bulk, 5, 5));
+
+        // un troisième message en cours évince le plus ancien (1)
+        accept(reassembler, frame(3, 0, false, vitals, 0, 2));
+        accept(reassembler, frame(4, 0, false, vitals, 0, 2));
+        assertThat(reassembler.getDroppedMessages()).isEqualTo(1);
+        assertThat(accept(reassembler, frame(1, 2, true, bulk, 10, 3))).isNull();
+        assertThat(accept(reassembler, frame(3, 1, true, vitals, 2, 3))).isEqualTo(vitals);
+        assertThat(accept(reassembler, frame(4, 1, true, vitals, 2, 3))).isEqualTo(vitals);
+        assertThat(reassembler.getCompletedMessages()).isEqualTo(3);
+        assertThatThrownBy(() -> new FrameReassembler(1024, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
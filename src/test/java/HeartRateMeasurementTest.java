@@ -0,0 +1,83 @@
+package test.java;
+
+import main.java.HeartRateMeasurement;
+import main.java.HeartRateMeasurement.SensorContact;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class HeartRateMeasurementTest {
+
+    private final byte[] buffer = new byte[32];
+
+    @Test
+    @DisplayName("a UINT8 heart rate should take two bytes")
+    void testUint8HeartRate() {
+        int length = HeartRateMeasurement.encode(buffer, 0, 72, HeartRateMeasurement.NO_ENERGY_EXPENDED,
+                null, 0, 0, SensorContact.NOT_SUPPORTED);
+
+        assertThat(length).isEqualTo(2);
+        assertThat(buffer[0]).isEqualTo((byte) 0x00);
+        assertThat(buffer[1]).isEqualTo((byte) 72);
+    }
+
+    @Test
+    @DisplayName("heart rates above 255 bpm should switch to UINT16 little-endian")
+    void testUint16HeartRate() {
+        int length = HeartRateMeasurement.encode(buffer, 3, 300, HeartRateMeasurement.NO_ENERGY_EXPENDED,
+                null, 0, 0, SensorContact.DETECTED);
+
+        assertThat(length).isEqualTo(3);
+        assertThat(buffer[3]).isEqualTo((byte) 0x07); // UINT16 + contact détecté
+        assertThat(buffer[4]).isEqualTo((byte) 0x2C);
+        assertThat(buffer[5]).isEqualTo((byte) 0x01);
+        assertThat(HeartRateMeasurement.size(300, false, 0)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("energy expended and RR intervals should follow the heart rate in spec order")
+    void testEnergyAndRrIntervals() {
+        int[] rr = {1000, 500, 820};
+
+        int length = HeartRateMeasurement.encode(buffer, 0, 60, 70_000, rr, 1, 2, SensorContact.NOT_DETECTED);
+
+        assertThat(length).isEqualTo(HeartRateMeasurement.size(60, true, 2)).isEqualTo(8);
+        assertThat(buffer[0]).isEqualTo((byte) (0x08 | 0x10 | 0x04));
+        assertThat(buffer[1]).isEqualTo((byte) 60);
+        // énergie saturée à 65535
+        assertThat(buffer[2]).isEqualTo((byte) 0xFF);
+        assertThat(buffer[3]).isEqualTo((byte) 0xFF);
+        // 500 ms = 512/1024 s, 820 ms = 840/1024 s
+        assertThat(buffer[4]).isEqualTo((byte) 0x00);
+        assertThat(buffer[5]).isEqualTo((byte) 0x02);
+        assertThat(buffer[6]).isEqualTo((byte) 0x48);
+        assertThat(buffer[7]).isEqualTo((byte) 0x03);
+    }
+
+    @Test
+    @DisplayName("RR conversion and capacity helpers should round and saturate")
+    void testHelpers() {
+        assertThat(HeartRateMeasurement.rrIntervalUnits(1000)).isEqualTo(1024);
+        assertThat(HeartRateMeasurement.rrIntervalUnits(1)).isEqualTo(1);
+        assertThat(HeartRateMeasurement.rrIntervalUnits(100_000)).isEqualTo(0xFFFF);
+        assertThat(HeartRateMeasurement.rrCapacity(20, 72, false)).isEqualTo(9);
+        assertThat(HeartRateMeasurement.rrCapacity(20, 300, true)).isEqualTo(7);
+        assertThat(HeartRateMeasurement.rrCapacity(1, 72, false)).isZero();
+    }
+
+    @Test
+    @DisplayName("invalid values and too small buffers should be rejected")
+    void testInvalidArguments() {
+        assertThatThrownBy(() -> HeartRateMeasurement.encode(buffer, 0, 70_000, -1, null, 0, 0, SensorContact.DETECTED))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HeartRateMeasurement.encode(buffer, 0, 72, -2, null, 0, 0, SensorContact.DETECTED))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HeartRateMeasurement.encode(buffer, 0, 72, -1, new int[] {-5}, 0, 1, SensorContact.DETECTED))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> HeartRateMeasurement.encode(buffer, 0, 72, -1, new int[2], 1, 2, SensorContact.DETECTED))
+            .isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> HeartRateMeasurement.encode(new byte[2], 1, 72, -1, null, 0, 0, SensorContact.DETECTED))
+            .isInstanceOf(IndexOutOfBoundsException.class);
+    }
+}
@@ -0,0 +1,86 @@
+package test.java;
+
+import main.java.LastValueCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class LastValueCacheTest {
+
+    private static final String CHAR = "00002A37-0000-1000-8000-00805F9B34FB";
+    private static final String OTHER = "00002A38-0000-1000-8000-00805F9B34FB";
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("an unchanged payload should be suppressed, a changed one sent")
+    void testSuppressesUnchanged() {
+        LastValueCache cache = new LastValueCache(1, TimeUnit.HOURS, false);
+        byte[] status = bytes("STATUS:OK");
+
+        assertThat(cache.suppress(CHAR, status, 0, status.length)).isFalse(); // rien d'envoyé encore
+        cache.update(CHAR, status, 0, status.length);
+        assertThat(cache.suppress(CHAR, bytes("STATUS:OK"), 0, status.length)).isTrue();
+        assertThat(cache.suppress(CHAR, bytes("STATUS:KO"), 0, status.length)).isFalse();
+        assertThat(cache.suppress(CHAR, status, 0, status.length - 1)).isFalse();
+        assertThat(cache.getSuppressed()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("entries should be kept per characteristic and compare only the given range")
+    void testKeysAndRanges() {
+        LastValueCache cache = new LastValueCache(1, TimeUnit.HOURS, true);
+        byte[] framed = bytes("xxHR:72yy");
+
+        cache.update(CHAR, framed, 2, 5);
+        assertThat(cache.suppress(CHAR, bytes("HR:72"), 0, 5)).isTrue();
+        assertThat(cache.suppress(OTHER, bytes("HR:72"), 0, 5)).isFalse();
+
+        cache.invalidate(CHAR);
+        assertThat(cache.suppress(CHAR, bytes("HR:72"), 0, 5)).isFalse();
+        assertThatThrownBy(() -> cache.suppress(CHAR, framed, 5, 5))
+            .isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    @DisplayName("an unchanged payload should be sent again once the heartbeat is due")
+    void testHeartbeat() throws InterruptedException {
+        LastValueCache cache = new LastValueCache(20, TimeUnit.MILLISECONDS, false);
+        byte[] status = bytes("STATUS:OK");
+
+        cache.update(CHAR, status, 0, status.length);
+        Thread.sleep(40);
+        assertThat(cache.suppress(CHAR, status, 0, status.length)).isFalse();
+        cache.update(CHAR, status, 0, status.length);
+        assertThat(cache.suppress(CHAR, status, 0, status.length)).isTrue();
+        assertThat(cache.getHeartbeatNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+        assertThatThrownBy(() -> new LastValueCache(0, TimeUnit.SECONDS, false))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("direct and heap buffers should match arrays with the same content")
+    void testBuffers() {
+        LastValueCache cache = new LastValueCache(1, TimeUnit.HOURS, true);
+        ByteBuffer direct = ByteBuffer.allocateDirect(16);
+        direct.put(bytes("SPO2:98")).flip();
+
+        cache.update(CHAR, direct);
+        assertThat(direct.position()).isZero();
+        assertThat(cache.suppress(CHAR, bytes("SPO2:98"), 0, 7)).isTrue();
+        assertThat(cache.suppress(CHAR, ByteBuffer.wrap(bytes("SPO2:98")))).isTrue();
+        assertThat(cache.suppress(CHAR, direct)).isTrue();
+
+        ByteBuffer changed = ByteBuffer.allocateDirect(16);
+        changed.put(bytes("SPO2:97")).flip();
+        assertThat(cache.suppress(CHAR, changed)).isFalse();
+        assertThat(cache.getSuppressed()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,152 @@
+package test.java;
+
+import main.java.FrameReassembler;
+import main.java.LoopbackBLEServer;
+import main.java.TokenBucketPacer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class LoopbackBLEServerTest {
+
+    private final LoopbackBLEServer server = new LoopbackBLEServer();
+
+    @AfterEach
+    void tearDown() {
+        server.stopServer();
+    }
+
+    private static byte[] payload(int size) {
+        byte[] payload = new byte[size];
+        for (int i = 0; i < size; i++) {
+            payload[i] = (byte) i;
+        }
+        return payload;
+    }
+
+    @Test
+    @DisplayName("chunks should reach the subscriber in order, sized from the simulated MTU")
+    void testDeliversChunksInOrder() throws Exception {
+        FrameReassembler reassembler = new FrameReassembler(4096);
+        List<byte[]> messages = new CopyOnWriteArrayList<>();
+        List<Integer> chunkSizes = new CopyOnWriteArrayList<>();
+        server.setSubscriber(chunk -> {
+            chunkSizes.add(chunk.length);
+            byte[] message = reassembler.accept(chunk, 0, chunk.length);
+            if (message != null) {
+                messages.add(message);
+            }
+        });
+        server.setMtu(23);
+        server.setFraming(true);
+        assertThat(server.startServer("svc", "char")).isEqualTo(1);
+        byte[] payload = payload(1000);
+        ByteBuffer direct = ByteBuffer.allocateDirect(300);
+        direct.put(payload, 0, 300).flip();
+
+        assertThat(server.sendBytes(payload)).isTrue();
+        assertThat(server.sendBuffer(direct)).isTrue();
+        assertThat(server.awaitDelivery(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(server.getNegotiatedMtu()).isEqualTo(23);
+        assertThat(chunkSizes).allMatch(size -> size <= 20);
+        assertThat(messages).hasSize(2);
+        assertThat(messages.get(0)).isEqualTo(payload);
+        assertThat(messages.get(1)).hasSize(300);
+        assertThat(server.getDeliveredChunks()).isEqualTo(chunkSizes.size());
+    }
+
+    @Test
+    @DisplayName("bandwidth and latency should delay delivery")
+    void testBandwidthAndLatency() throws Exception {
+        List<Long> arrivals = new CopyOnWriteArrayList<>();
+        server.setSubscriber(chunk -> arrivals.add(System.nanoTime()));
+        server.setBandwidth(20_000);
+        server.setLatency(30, TimeUnit.MILLISECONDS);
+        server.setBufferDepth(64);
+        server.setChunkSize(100);
+        server.startServer("svc", "char");
+
+        long start = System.nanoTime();
+        assertThat(server.sendBytes(new byte[1000])).isTrue();
+        assertThat(server.awaitDelivery(5, TimeUnit.SECONDS)).isTrue();
+
+        // 1000 octets à 20 000 o/s = 50 ms de transmission, + 30 ms de latence
+        assertThat(arrivals).hasSize(10);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(arrivals.get(0) - start)).isGreaterThanOrEqualTo(30);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(arrivals.get(9) - start)).isGreaterThanOrEqualTo(75);
+        assertThat(server.getBandwidth()).isEqualTo(20_000);
+        assertThat(server.getLatencyNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(30));
+    }
+
+    @Test
+    @DisplayName("a full buffer should fail the notify unless pacing keeps up with the link")
+    void testBufferDepth() throws Exception {
+        server.setBandwidth(10_000);
+        server.setBufferDepth(2);
+        server.setChunkSize(100);
+        server.startServer("svc", "char");
+
+        assertThat(server.sendBytes(new byte[1000])).isFalse();
+        assertThat(server.getRejectedChunks()).isEqualTo(1);
+        assertThat(server.getBufferDepth()).isEqualTo(2);
+
+        // 100 octets par chunk à 10 000 o/s : un chunk toutes les 10 ms
+        assertThat(server.awaitDelivery(5, TimeUnit.SECONDS)).isTrue();
+        server.setPacingStrategy(TokenBucketPacer.bytesPerSecond(10_000, 100));
+        assertThat(server.sendBytes(new byte[500])).isTrue();
+    }
+
+    @Test
+    @DisplayName("the loss model should drop chunks without failing the notify")
+    void testLossRate() throws Exception {
+        server.setRandomSeed(42);
+        server.setChunkSize(10);
+        server.setBufferDepth(1000);
+        server.startServer("svc", "char");
+
+        server.setLossRate(1);
+        assertThat(server.sendBytes(new byte[100])).isTrue();
+        assertThat(server.awaitDelivery(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(server.getLostChunks()).isEqualTo(10);
+        assertThat(server.getDeliveredChunks()).isZero();
+
+        server.setLossRate(0.5);
+        assertThat(server.sendBytes(new byte[1000])).isTrue();
+        assertThat(server.awaitDelivery(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(server.getLostChunks() + server.getDeliveredChunks()).isEqualTo(110);
+        assertThat(server.getDeliveredChunks()).isBetween(20L, 80L);
+        assertThat(server.getLossRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    @DisplayName("notify should fail while the loopback is stopped")
+    void testStopped() {
+        assertThat(server.sendData("hello")).isFalse();
+
+        server.startServer("svc", "char");
+        server.setSubscriber(chunk -> {
+            throw new IllegalStateException("subscriber failure");
+        });
+        assertThat(server.sendData("hello")).isTrue();
+        server.stopServer();
+        assertThat(server.sendData("hello")).isFalse();
+    }
+
+    @Test
+    @DisplayName("link settings should reject invalid values")
+    void testInvalidSettings() {
+        assertThatThrownBy(() -> server.setBandwidth(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> server.setLatency(-1, TimeUnit.MILLISECONDS)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> server.setLossRate(1.5)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> server.setLossRate(Double.NaN)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> server.setBufferDepth(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
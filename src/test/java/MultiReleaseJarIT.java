@@ -0,0 +1,46 @@
+package test.java;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.jar.JarFile;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks on the packaged JAR, run by failsafe during mvn verify with a JDK 21+
+ */
+class MultiReleaseJarIT {
+
+    private static Path jar() {
+        String path = System.getProperty("vitalble.jar");
+        assumeTrue(path != null, "vitalble.jar is set by failsafe once the JAR is packaged");
+        return Paths.get(path);
+    }
+
+    @Test
+    @DisplayName("the shaded JAR should be multi-release and carry the Java 21 classes")
+    void testManifestAndVersionedEntries() throws Exception {
+        try (JarFile jar = new JarFile(jar().toFile())) {
+            assertThat(jar.getManifest().getMainAttributes().getValue("Multi-Release")).isEqualTo("true");
+            assertThat(jar.getEntry("main/java/SessionExecutors.class")).isNotNull();
+            assertThat(jar.getEntry("META-INF/versions/21/main/java/SessionExecutors.class")).isNotNull();
+        }
+    }
+
+    @Test
+    @DisplayName("a Java 21 runtime should load the virtual-thread SessionExecutors from the JAR")
+    void testVersionedClassIsSelected() throws Exception {
+        // Sans parent : la classe vient du JAR et non de target/classes
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {jar().toUri().toURL()}, null)) {
+            Class<?> executors = Class.forName("main.java.SessionExecutors", true, loader);
+            assertThat(executors.getMethod("usesVirtualThreads").invoke(null))
+                .isEqualTo(Runtime.version().feature() >= 21);
+        }
+    }
+}
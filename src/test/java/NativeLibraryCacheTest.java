@@ -0,0 +1,199 @@
+package test.java;
+
+import main.java.NativeLibraryCache;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class NativeLibraryCacheTest {
+
+    @TempDir
+    Path cacheDir;
+
+    @Test
+    @DisplayName("extract should write the library once and reuse it afterwards")
+    void testExtractReusesCachedFile() throws Exception {
+        NativeLibraryCache cache = new NativeLibraryCache(cacheDir);
+        byte[] library = {1, 2, 3, 4, 5};
+
+        Path first = cache.extract("libBLEServer.so", library);
+        FileTime written = FileTime.fromMillis(1_000_000);
+        Files.setLastModifiedTime(first, written);
+        Path second = new NativeLibraryCache(cacheDir).extract("libBLEServer.so", library);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(first.getFileName().toString()).isEqualTo("libBLEServer.so");
+        assertThat(first.startsWith(cacheDir.toAbsolutePath())).isTrue();
+        assertThat(Files.readAllBytes(first)).isEqualTo(library);
+        assertThat(Files.getLastModifiedTime(second)).isEqualTo(written); // pas réécrit
+        assertThat(cache.getDirectory()).isEqualTo(cacheDir);
+    }
+
+    @Test
+    @DisplayName("extract should use a new entry when the library content changes")
+    void testExtractNewContent() throws Exception {
+        NativeLibraryCache cache = new NativeLibraryCache(cacheDir);
+
+        Path v1 = cache.extract("BLEServer.dll", new byte[] {1, 2, 3});
+        Path v2 = cache.extract("BLEServer.dll", new byte[] {1, 2, 4});
+
+        assertThat(v2).isNotEqualTo(v1);
+        assertThat(Files.readAllBytes(v1)).containsExactly(1, 2, 3);
+        assertThat(Files.readAllBytes(v2)).containsExactly(1, 2, 4);
+    }
+
+    @Test
+    @DisplayName("extract should replace a truncated cached file")
+    void testExtractRepairsTruncatedFile() throws Exception {
+        NativeLibraryCache cache = new NativeLibraryCache(cacheDir);
+        byte[] library = new byte[4096];
+        Path cached = cache.extract("libBLEServer.so", library);
+        Files.write(cached, new byte[10]);
+
+        Path repaired = cache.extract("libBLEServer.so", library);
+
+        assertThat(repaired).isEqualTo(cached);
+        assertThat(Files.size(repaired)).isEqualTo(4096);
+        try (var files = Files.list(repaired.getParent())) {
+            assertThat(files.map(path -> path.getFileName().toString()))
+                .containsExactlyInAnyOrder("libBLEServer.so", ".lock");
+        }
+    }
+
+    @Test
+    @DisplayName("extract should replace a cached file whose content does not match its hash")
+    void testExtractReplacesTamperedFile() throws Exception {
+        NativeLibraryCache cache = new NativeLibraryCache(cacheDir);
+        byte[] library = {1, 2, 3, 4, 5};
+        Path cached = cache.extract("libBLEServer.so", library);
+        Files.write(cached, new byte[] {9, 9, 9, 9, 9}); // même taille, contenu différent
+
+        Path checked = cache.extract("libBLEServer.so", library);
+
+        assertThat(checked).isEqualTo(cached);
+        assertThat(Files.readAllBytes(checked)).isEqualTo(library);
+    }
+
+    @Test
+    @DisplayName("extract should not read the resource again while its size, date and cached file are unchanged")
+    void testExtractTrustsStamp() throws Exception {
+        byte[] library = {1, 2, 3, 4, 5};
+        AtomicInteger reads = new AtomicInteger();
+        NativeLibraryCache.Resource resource = () -> {
+            reads.incrementAndGet();
+            return new ByteArrayInputStream(library);
+        };
+
+        Path first = new NativeLibraryCache(cacheDir).extract("libBLEServer.so", 5, 1_000, resource);
+        Path second = new NativeLibraryCache(cacheDir).extract("libBLEServer.so", 5, 1_000, resource);
+        assertThat(second).isEqualTo(first);
+        assertThat(reads.get()).isEqualTo(1);
+
+        // Nouvelle date de la ressource : lue et hachée à nouveau, même entrée puisque le contenu est identique
+        assertThat(new NativeLibraryCache(cacheDir).extract("libBLEServer.so", 5, 2_000, resource)).isEqualTo(first);
+        assertThat(reads.get()).isEqualTo(2);
+
+        // Fichier en cache modifié sur place : sa date ne correspond plus, il est remplacé
+        Files.write(first, new byte[] {9, 9, 9, 9, 9});
+        Files.setLastModifiedTime(first, FileTime.fromMillis(5_000));
+        assertThat(new NativeLibraryCache(cacheDir).extract("libBLEServer.so", 5, 2_000, resource)).isEqualTo(first);
+        assertThat(Files.readAllBytes(first)).isEqualTo(library);
+        assertThat(reads.get()).isEqualTo(3);
+
+        // Date inconnue : rien n'est présumé, la ressource est toujours lue
+        new NativeLibraryCache(cacheDir).extract("libBLEServer.so", 5, 0, resource);
+        new NativeLibraryCache(cacheDir).extract("libBLEServer.so", 5, 0, resource);
+        assertThat(reads.get()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("the cache root should be owner-only and refused when another user owns it")
+    void testCacheRootOwnership() throws Exception {
+        Assumptions.assumeTrue(cacheDir.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        Path root = cacheDir.resolve("cache");
+        new NativeLibraryCache(root).extract("libBLEServer.so", new byte[] {1});
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(root))).isEqualTo("rwx------");
+
+        Files.setPosixFilePermissions(root, PosixFilePermissions.fromString("rwxrwxrwx"));
+        new NativeLibraryCache(root).extract("libBLEServer.so", new byte[] {1});
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(root))).isEqualTo("rwx------");
+
+        // Changer de propriétaire demande les droits root
+        Path foreign = Files.createDirectory(cacheDir.resolve("foreign"));
+        try {
+            Files.setOwner(foreign, foreign.getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName("nobody"));
+        } catch (Exception e) {
+            Assumptions.abort("cannot change the owner of a directory: " + e);
+        }
+        assertThatThrownBy(() -> new NativeLibraryCache(foreign).extract("libBLEServer.so", new byte[] {1}))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("owned by");
+    }
+
+    @Test
+    @DisplayName("concurrent extractions should all get the same complete file")
+    void testConcurrentExtract() throws Exception {
+        byte[] library = new byte[256 * 1024];
+        for (int i = 0; i < library.length; i++) {
+            library[i] = (byte) (i * 31);
+        }
+        int threads = 4;
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Path>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> {
+                    go.await();
+                    return new NativeLibraryCache(cacheDir).extract("libBLEServer.so", library);
+                }));
+            }
+            go.countDown();
+            Path expected = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<Path> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(expected);
+            }
+            assertThat(Files.readAllBytes(expected)).isEqualTo(library);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("defaultDirectory should honour the vitalble.cache.dir property")
+    void testDefaultDirectory() {
+        String original = System.getProperty(NativeLibraryCache.CACHE_DIR_PROPERTY);
+        try {
+            System.setProperty(NativeLibraryCache.CACHE_DIR_PROPERTY, cacheDir.toString());
+            assertThat(NativeLibraryCache.defaultDirectory()).isEqualTo(cacheDir);
+
+            System.clearProperty(NativeLibraryCache.CACHE_DIR_PROPERTY);
+            Path shared = NativeLibraryCache.defaultDirectory();
+            assertThat(shared.getParent()).isEqualTo(Paths.get(System.getProperty("java.io.tmpdir")));
+            assertThat(shared.getFileName().toString()).startsWith("vital-ble-cache-"); // un répertoire par utilisateur
+        } finally {
+            if (original != null) {
+                System.setProperty(NativeLibraryCache.CACHE_DIR_PROPERTY, original);
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package test.java;
+
+import main.java.PayloadCompressor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PayloadCompressorTest {
+
+    private static byte[] json(int records) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < records; i++) {
+            sb.append("{\"hr\":").append(60 + i % 5).append(",\"spo2\":98,\"status\":\"OK\"},");
+        }
+        return sb.append("]").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] toArray(ByteBuffer encoded) {
+        byte[] bytes = new byte[encoded.remaining()];
+        encoded.duplicate().get(bytes);
+        return bytes;
+    }
+
+    @Test
+    @DisplayName("encode should deflate repetitive payloads above the threshold")
+    void testEncodeCompressesAboveThreshold() throws Exception {
+        PayloadCompressor compressor = new PayloadCompressor(256);
+        byte[] payload = json(500);
+
+        byte[] encoded = toArray(compressor.encode(payload, 0, payload.length));
+
+        assertThat(encoded[0]).isEqualTo(PayloadCompressor.DEFLATED);
+        assertThat(encoded.length).isLessThan(payload.length / 4);
+        assertThat(PayloadCompressor.decode(encoded, 0, encoded.length)).isEqualTo(payload);
+    }
+
+    @Test
+    @DisplayName("encode should store payloads below the threshold with a one-byte header")
+    void testEncodeStoresBelowThreshold() throws Exception {
+        PayloadCompressor compressor = new PayloadCompressor(256);
+        byte[] payload = "xxhello".getBytes(StandardCharsets.UTF_8);
+
+        byte[] encoded = toArray(compressor.encode(payload, 2, 5));
+
+        assertThat(encoded).containsExactly(0, 'h', 'e', 'l', 'l', 'o');
+        assertThat(PayloadCompressor.decode(encoded, 0, encoded.length)).containsExactly('h', 'e', 'l', 'l', 'o');
+    }
+
+    @Test
+    @DisplayName("encode should store incompressible payloads")
+    void testEncodeStoresIncompressible() throws Exception {
+        PayloadCompressor compressor = new PayloadCompressor(0);
+        byte[] payload = new byte[4096];
+        new Random(42).nextBytes(payload);
+
+        byte[] encoded = toArray(compressor.encode(payload, 0, payload.length));
+
+        assertThat(encoded[0]).isEqualTo(PayloadCompressor.STORED);
+        assertThat(encoded).hasSize(payload.length + 1);
+        assertThat(PayloadCompressor.decode(encoded, 0, encoded.length)).isEqualTo(payload);
+    }
+
+    @Test
+    @DisplayName("encode should read direct buffers without moving their position")
+    void testEncodeDirectBuffer() throws Exception {
+        PayloadCompressor compressor = new PayloadCompressor(64, 6);
+        byte[] payload = json(100);
+        ByteBuffer direct = ByteBuffer.allocateDirect(payload.length + 10);
+        direct.position(10);
+        direct.put(payload);
+        direct.position(3);
+
+        byte[] compressed = toArray(compressor.encode(direct, 10, payload.length));
+        byte[] stored = toArray(compressor.encode(direct, 10, 20));
+
+        assertThat(direct.position()).isEqualTo(3);
+        assertThat(compressed[0]).isEqualTo(PayloadCompressor.DEFLATED);
+        assertThat(PayloadCompressor.decode(compressed, 0, compressed.length)).isEqualTo(payload);
+        assertThat(stored[0]).isEqualTo(PayloadCompressor.STORED);
+        assertThat(PayloadCompressor.decode(stored, 0, stored.length)).hasSize(20);
+        assertThat(compressor.getLevel()).isEqualTo(6);
+        assertThat(compressor.getThresholdBytes()).isEqualTo(64);
+    }
+
+    @Test
+    @DisplayName("decode should reject unknown headers and truncated streams")
+    void testDecodeInvalid() {
+        PayloadCompressor compressor = new PayloadCompressor(0);
+        byte[] payload = json(50);
+        byte[] encoded = toArray(compressor.encode(payload, 0, payload.length));
+
+        assertThatThrownBy(() -> PayloadCompressor.decode(new byte[] {7, 1}, 0, 2))
+            .isInstanceOf(DataFormatException.class);
+        assertThatThrownBy(() -> PayloadCompressor.decode(new byte[0], 0, 0))
+            .isInstanceOf(DataFormatException.class);
+        assertThatThrownBy(() -> PayloadCompressor.decode(encoded, 0, encoded.length - 4))
+            .isInstanceOf(DataFormatException.class);
+    }
+
+    @Test
+    @DisplayName("decode should not trust the announced length and should honour a maximum")
+    void testDecodeBoundsLength() throws Exception {
+        PayloadCompressor compressor = new PayloadCompressor(0);
+        byte[] payload = json(2000);
+        byte[] encoded = toArray(compressor.encode(payload, 0, payload.length));
+        assertThat(encoded[0]).isEqualTo(PayloadCompressor.DEFLATED);
+
+        // En-tête corrompu annonçant ~2 Go : échec sur le flux, sans allouer la taille annoncée
+        byte[] corrupt = encoded.clone();
+        corrupt[1] = 0x7F;
+        corrupt[2] = (byte) 0xFF;
+        assertThatThrownBy(() -> PayloadCompressor.decode(corrupt, 0, corrupt.length))
+            .isInstanceOf(DataFormatException.class);
+
+        assertThat(PayloadCompressor.decode(encoded, 0, encoded.length, payload.length)).isEqualTo(payload);
+        assertThatThrownBy(() -> PayloadCompressor.decode(encoded, 0, encoded.length, payload.length - 1))
+            .isInstanceOf(DataFormatException.class)
+            .hasMessageContaining("max");
+        byte[] stored = {PayloadCompressor.STORED, 1, 2, 3};
+        assertThatThrownBy(() -> PayloadCompressor.decode(stored, 0, stored.length, 2))
+            .isInstanceOf(DataFormatException.class);
+    }
+
+    @Test
+    @DisplayName("constructor should reject invalid settings")
+    void testInvalidSettings() {
+        assertThatThrownBy(() -> new PayloadCompressor(-1))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new PayloadCompressor(10, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,324 @@
+package test.java;
+
+import main.java.BLEMetrics;
+import main.java.BLEServer;
+import main.java.FrameHeader;
+import main.java.FrameReassembler;
+import main.java.LoopbackBLEServer;
+import main.java.PacingStrategy;
+import main.java.Priority;
+import main.java.PrioritySender;
+import main.java.RetryPolicy;
+import main.java.TokenBucketPacer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class PrioritySenderTest {
+
+    private PrioritySender sender;
+
+    @AfterEach
+    void tearDown() {
+        if (sender != null) {
+            sender.shutdown();
+        }
+    }
+
+    /**
+     * Serveur dont le premier notify attend un signal, pour remplir les voies pendant l'envoi d'un chunk
+     */
+    static class GatedBLEServer extends BLEServer {
+        final List<byte[]> frames = new CopyOnWriteArrayList<>();
+        final CountDownLatch firstNotify = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean fail;
+        volatile int failures; // notify refusés avant le prochain succès
+
+        GatedBLEServer() {
+            setFraming(true); // requis par PrioritySender
+        }
+
+        @Override
+        protected void loadNativeLibrary() {
+            // natives simulées : aucune bibliothèque à charger
+        }
+
+        @Override
+        protected int nativeStartServer(String serviceUuid, String charUuid) {
+            return 1;
+        }
+
+        @Override
+        protected void nativeStopServer() {
+            // no-op
+        }
+
+        @Override
+        protected int nativeNotify(byte[] data) {
+            return 0;
+        }
+
+        @Override
+        protected int nativeNotifyDirect(ByteBuffer buffer, int offset, int length) {
+            return 0;
+        }
+
+        @Override
+        protected int nativeNotifyBatch(byte[] payload, int offset, int length, int chunkSize) {
+            return 0;
+        }
+
+        @Override
+        protected int nativeNotifyRange(byte[] data, int offset, int length) {
+            frames.add(Arrays.copyOfRange(data, offset, offset + length));
+            firstNotify.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failures > 0) {
+                failures--;
+                return -1;
+            }
+            return fail ? -1 : 0;
+        }
+
+        @Override
+        protected int nativeGetMtu() {
+            return 0;
+        }
+    }
+
+    private static byte[] payload(int size, int seed) {
+        byte[] payload = new byte[size];
+        for (int i = 0; i < size; i++) {
+            payload[i] = (byte) (seed + i);
+        }
+        return payload;
+    }
+
+    @Test
+    @DisplayName("a higher lane should be sent between two chunks of an in-flight bulk message")
+    void testInterleavesHigherPriority() throws Exception {
+        GatedBLEServer server = new GatedBLEServer();
+        server.setChunkSize(FrameHeader.SIZE + 10);
+        server.setPacingStrategy(PacingStrategy.none());
+        BLEMetrics metrics = new BLEMetrics();
+        sender = new PrioritySender(server, metrics, 4, "test-lanes");
+        byte[] bulk = payload(30, 0);
+        byte[] vitals = payload(5, 50);
+        byte[] alarm = payload(15, 100);
+
+        CompletableFuture<Boolean> bulkResult = sender.submit(bulk, 0, bulk.length, Priority.BULK);
+        assertThat(server.firstNotify.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> vitalsResult = sender.submit(vitals, 0, vitals.length, Priority.VITALS);
+        CompletableFuture<Boolean> alarmResult = sender.submit(alarm, 0, alarm.length, Priority.ALARM);
+        server.release.countDown();
+
+        assertThat(bulkResult.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(alarmResult.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(vitalsResult.get(5, TimeUnit.SECONDS)).isTrue();
+
+        // bulk[0], alarm[0], alarm[1], vitals[0], bulk[1], bulk[2]
+        int[] ids = new int[6];
+        byte[][] frames = server.frames.toArray(new byte[0][]);
+        assertThat(frames.length).isEqualTo(6);
+        for (int i = 0; i < 6; i++) {
+            ids[i] = FrameHeader.messageId(frames[i], 0);
+        }
+        assertThat(ids[1]).isEqualTo(ids[2]).isNotEqualTo(ids[0]);
+        assertThat(ids[4]).isEqualTo(ids[0]).isEqualTo(ids[5]);
+        assertThat(FrameHeader.totalLength(frames[1], 0)).isEqualTo(alarm.length);
+        assertThat(FrameHeader.totalLength(frames[3], 0)).isEqualTo(vitals.length);
+
+        FrameReassembler reassembler = new FrameReassembler(1024, Priority.values().length);
+        List<byte[]> messages = new CopyOnWriteArrayList<>();
+        for (byte[] frame : frames) {
+            byte[] message = reassembler.accept(frame, 0, frame.length);
+            if (message != null) {
+                messages.add(message);
+            }
+        }
+        assertThat(messages).containsExactly(alarm, vitals, bulk);
+        assertThat(reassembler.getDroppedMessages()).isZero();
+        assertThat(metrics.getLaneLatency(Priority.ALARM).getCount()).isEqualTo(1);
+        assertThat(metrics.getLaneLatency(Priority.BULK).getCount()).isEqualTo(1);
+        assertThat(metrics.getMessagesSent()).isEqualTo(3);
+        assertThat(metrics.getNotifyCount()).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("an alarm should reach a loopback subscriber before a paced bulk transfer completes")
+    void testAlarmPreemptsBulkOnLoopback() throws Exception {
+        LoopbackBLEServer server = new LoopbackBLEServer();
+        FrameReassembler reassembler = new FrameReassembler(64 * 1024, Priority.values().length);
+        List<byte[]> messages = new CopyOnWriteArrayList<>();
+        server.setSubscriber(chunk -> {
+            byte[] message = reassembler.accept(chunk, 0, chunk.length);
+            if (message != null) {
+                messages.add(message);
+            }
+        });
+        server.setChunkSize(100);
+        server.setBufferDepth(1000);
+        server.setFraming(true);
+        server.setPacingStrategy(TokenBucketPacer.bytesPerSecond(100_000, 100));
+        server.startServer("svc", "char");
+        try {
+            sender = new PrioritySender(server, new BLEMetrics(), 4, "test-lanes");
+            byte[] bulk = payload(20_000, 0); // ~200 ms au débit de pacing
+            byte[] alarm = payload(300, 7);
+
+            CompletableFuture<Boolean> bulkResult = sender.submit(bulk, 0, bulk.length, Priority.BULK);
+            Thread.sleep(20);
+            assertThat(sender.submit(alarm, 0, alarm.length, Priority.ALARM).get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(bulkResult).isNotDone();
+
+            assertThat(bulkResult.get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(server.awaitDelivery(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(messages).containsExactly(alarm, bulk);
+        } finally {
+            server.stopServer();
+        }
+    }
+
+    @Test
+    @DisplayName("plain server sends should go through the VITALS lane, share message ids and yield to an alarm")
+    void testServerSendsShareTheLanes() throws Exception {
+        GatedBLEServer server = new GatedBLEServer();
+        server.setChunkSize(FrameHeader.SIZE + 10);
+        server.setPacingStrategy(PacingStrategy.none());
+        sender = new PrioritySender(server, new BLEMetrics(), 4, "test-lanes");
+        assertThatThrownBy(() -> new PrioritySender(server, new BLEMetrics(), 4, "other-lanes"))
+            .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> server.setFraming(false)).isInstanceOf(IllegalStateException.class);
+        byte[] plain = payload(30, 0);
+        byte[] alarm = payload(5, 100);
+
+        CompletableFuture<Boolean> plainResult =
+            CompletableFuture.supplyAsync(() -> server.sendBytes(plain, 0, plain.length));
+        assertThat(server.firstNotify.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(sender.size(Priority.VITALS)).isEqualTo(1);
+        CompletableFuture<Boolean> alarmResult = sender.submit(alarm, 0, alarm.length, Priority.ALARM);
+        server.release.countDown();
+
+        assertThat(plainResult.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(alarmResult.get(5, TimeUnit.SECONDS)).isTrue();
+
+        // plain[0], alarm[0], plain[1], plain[2]
+        byte[][] frames = server.frames.toArray(new byte[0][]);
+        assertThat(frames.length).isEqualTo(4);
+        int plainId = FrameHeader.messageId(frames[0], 0);
+        int alarmId = FrameHeader.messageId(frames[1], 0);
+        assertThat(alarmId).isNotEqualTo(plainId);
+        assertThat(FrameHeader.messageId(frames[2], 0)).isEqualTo(plainId);
+        assertThat(FrameHeader.messageId(frames[3], 0)).isEqualTo(plainId);
+
+        FrameReassembler reassembler = new FrameReassembler(1024, Priority.values().length);
+        List<byte[]> messages = new CopyOnWriteArrayList<>();
+        for (byte[] frame : frames) {
+            byte[] message = reassembler.accept(frame, 0, frame.length);
+            if (message != null) {
+                messages.add(message);
+            }
+        }
+        assertThat(messages).containsExactly(alarm, plain);
+
+        // Après l'arrêt, le serveur émet de nouveau en direct, avec le même compteur d'identifiants
+        sender.shutdown();
+        assertThat(server.isFraming()).isTrue();
+        assertThat(server.sendBytes(payload(5, 1), 0, 5)).isTrue();
+        assertThat(server.frames).hasSize(5);
+        assertThat(FrameHeader.messageId(server.frames.get(4), 0)).isNotIn(plainId, alarmId);
+    }
+
+    @Test
+    @DisplayName("the lanes should be refused on a server that does not frame its chunks")
+    void testRequiresFraming() {
+        GatedBLEServer server = new GatedBLEServer();
+        server.setFraming(false);
+
+        assertThatThrownBy(() -> new PrioritySender(server, new BLEMetrics(), 4, "test-lanes"))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("setFraming(true)");
+        assertThat(server.isFraming()).isFalse();
+    }
+
+    @Test
+    @DisplayName("a refused chunk should be retried according to the server's retry policy")
+    void testRetriesRefusedChunks() throws Exception {
+        GatedBLEServer server = new GatedBLEServer();
+        server.setPacingStrategy(PacingStrategy.none());
+        server.setRetryPolicy(RetryPolicy.exponentialBackoff(2, 0, 0, TimeUnit.MILLISECONDS));
+        server.release.countDown();
+        BLEMetrics metrics = new BLEMetrics();
+        sender = new PrioritySender(server, metrics, 4, "test-lanes");
+
+        server.failures = 2;
+        assertThat(sender.submit(new byte[10], 0, 10, Priority.ALARM).get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(metrics.getNotifyFailures()).isEqualTo(2);
+
+        server.failures = 3;
+        assertThat(sender.submit(new byte[10], 0, 10, Priority.ALARM).get(5, TimeUnit.SECONDS)).isFalse();
+        assertThat(metrics.getNotifyCount()).isEqualTo(6);
+        assertThat(metrics.getMessageFailures()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("a failed chunk should fail only its message and count budget misses per lane")
+    void testFailureAndBudget() throws Exception {
+        GatedBLEServer server = new GatedBLEServer();
+        server.setPacingStrategy(PacingStrategy.none());
+        server.release.countDown();
+        BLEMetrics metrics = new BLEMetrics();
+        sender = new PrioritySender(server, metrics, 4, "test-lanes");
+        sender.setLatencyBudget(Priority.VITALS, 1, TimeUnit.NANOSECONDS);
+        assertThat(sender.getLatencyBudgetNanos(Priority.VITALS)).isEqualTo(1);
+        assertThat(sender.getLatencyBudgetNanos(Priority.ALARM)).isEqualTo(Priority.ALARM.getDefaultBudgetNanos());
+
+        server.fail = true;
+        assertThat(sender.submit(new byte[10], 0, 10, Priority.VITALS).get(5, TimeUnit.SECONDS)).isFalse();
+        server.fail = false;
+        assertThat(sender.submit(new byte[10], 0, 10, Priority.VITALS).get(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(metrics.getMessageFailures()).isEqualTo(1);
+        assertThat(metrics.getVitalsBudgetMisses()).isEqualTo(2);
+        assertThat(metrics.getAlarmBudgetMisses()).isZero();
+        assertThat(sender.size(Priority.VITALS)).isZero();
+    }
+
+    @Test
+    @DisplayName("shutdown should discard queued messages and reject new ones")
+    void testShutdown() throws Exception {
+        GatedBLEServer server = new GatedBLEServer();
+        server.setPacingStrategy(PacingStrategy.none());
+        sender = new PrioritySender(server, new BLEMetrics(), 4, "test-lanes");
+
+        CompletableFuture<Boolean> inFlight = sender.submit(new byte[10], 0, 10, Priority.BULK);
+        assertThat(server.firstNotify.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> queued = sender.submit(new byte[10], 0, 10, Priority.BULK);
+        sender.shutdown();
+
+        assertThat(inFlight.get(5, TimeUnit.SECONDS)).isFalse();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isFalse();
+        assertThatThrownBy(() -> sender.submit(new byte[1], 0, 1, Priority.ALARM).get(5, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThatThrownBy(() -> new PrioritySender(server, new BLEMetrics(), 0, "test-lanes"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sender.setLatencyBudget(Priority.BULK, 0, TimeUnit.SECONDS))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,164 @@
+package test.java;
+
+import main.java.SpillJournal;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SpillJournalTest {
+
+    @TempDir
+    Path journalDir;
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(ByteBuffer payload) {
+        byte[] copy = new byte[payload.remaining()];
+        payload.duplicate().get(copy);
+        return new String(copy, StandardCharsets.UTF_8);
+    }
+
+    private long segmentFiles() throws Exception {
+        try (var files = Files.list(journalDir)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    @DisplayName("payloads should be replayed in order across segments, then their segments deleted")
+    void testAppendAndReplay() throws Exception {
+        SpillJournal journal = new SpillJournal(journalDir, 64, 10);
+        for (int i = 0; i < 20; i++) {
+            assertThat(journal.append(bytes("HR:" + (60 + i)), 0, 5)).isTrue();
+        }
+        assertThat(journal.append(ByteBuffer.wrap(bytes("SPO2:98")))).isTrue();
+        assertThat(journal.getPendingRecords()).isEqualTo(21);
+        assertThat(segmentFiles()).isGreaterThan(1); // 5 enregistrements de 9 octets par segment de 64
+
+        List<String> replayed = new ArrayList<>();
+        assertThat(journal.replay(payload -> replayed.add(text(payload)))).isTrue();
+
+        assertThat(replayed).hasSize(21);
+        assertThat(replayed.get(0)).isEqualTo("HR:60");
+        assertThat(replayed.get(19)).isEqualTo("HR:79");
+        assertThat(replayed.get(20)).isEqualTo("SPO2:98");
+        assertThat(journal.isEmpty()).isTrue();
+        assertThat(segmentFiles()).isEqualTo(1); // segment courant seulement
+        journal.close();
+    }
+
+    @Test
+    @DisplayName("replay should stop at a refused payload and offer it again next time")
+    void testReplayStopsOnRefusal() throws Exception {
+        SpillJournal journal = new SpillJournal(journalDir, 64, 10);
+        for (String value : new String[] {"a", "b", "c"}) {
+            journal.append(bytes(value), 0, 1);
+        }
+
+        List<String> replayed = new ArrayList<>();
+        assertThat(journal.replay(payload -> !text(payload).equals("b") && replayed.add(text(payload)))).isFalse();
+        assertThat(journal.getPendingRecords()).isEqualTo(2);
+        assertThat(journal.replay(payload -> replayed.add(text(payload)))).isTrue();
+
+        assertThat(replayed).containsExactly("a", "b", "c");
+        journal.close();
+    }
+
+    @Test
+    @DisplayName("a payload partly sent before a refusal should be offered again from where it stopped")
+    void testReplayKeepsUnsentRemainder() throws Exception {
+        SpillJournal journal = new SpillJournal(journalDir, 64, 10);
+        journal.append(bytes("HR:72;SPO2:98"), 0, 13);
+        journal.append(bytes("HR:73"), 0, 5);
+
+        List<String> replayed = new ArrayList<>();
+        assertThat(journal.replay(payload -> {
+            ByteBuffer sent = payload.duplicate();
+            sent.limit(sent.position() + 6);
+            replayed.add(text(sent));
+            payload.position(payload.position() + 6); // coupure après 6 octets
+            return false;
+        })).isFalse();
+        assertThat(journal.getPendingRecords()).isEqualTo(2);
+        journal.close();
+
+        // Le reste survit à la réouverture
+        SpillJournal reopened = new SpillJournal(journalDir, 64, 10);
+        assertThat(reopened.replay(payload -> replayed.add(text(payload)))).isTrue();
+        assertThat(replayed).containsExactly("HR:72;", "SPO2:98", "HR:73");
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("payloads not yet replayed should survive reopening the journal")
+    void testRecovery() throws Exception {
+        SpillJournal journal = new SpillJournal(journalDir, 128, 10);
+        for (int i = 0; i < 30; i++) {
+            journal.append(bytes("msg-" + i), 0, ("msg-" + i).length());
+        }
+        List<String> replayed = new ArrayList<>();
+        journal.replay(payload -> replayed.size() < 12 && replayed.add(text(payload)));
+        journal.close();
+        assertThat(journal.append(bytes("late"), 0, 4)).isFalse();
+
+        SpillJournal reopened = new SpillJournal(journalDir, 128, 10);
+        assertThat(reopened.getPendingRecords()).isEqualTo(18);
+        reopened.append(bytes("after"), 0, 5);
+        reopened.replay(payload -> replayed.add(text(payload)));
+
+        assertThat(replayed).hasSize(31);
+        for (int i = 0; i < 30; i++) {
+            assertThat(replayed.get(i)).isEqualTo("msg-" + i);
+        }
+        assertThat(replayed.get(30)).isEqualTo("after");
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("the oldest segment should be dropped once the retention limit is reached")
+    void testRetention() throws Exception {
+        SpillJournal journal = new SpillJournal(journalDir, 64, 2);
+        byte[] record = new byte[20]; // 2 enregistrements de 24 octets par segment
+        for (int i = 0; i < 6; i++) {
+            record[0] = (byte) i;
+            assertThat(journal.append(record, 0, record.length)).isTrue();
+        }
+
+        assertThat(journal.getDroppedRecords()).isEqualTo(2);
+        assertThat(journal.getPendingRecords()).isEqualTo(4);
+        assertThat(segmentFiles()).isEqualTo(2);
+        List<Byte> first = new ArrayList<>();
+        journal.replay(payload -> first.add(payload.get(0)));
+        assertThat(first).containsExactly((byte) 2, (byte) 3, (byte) 4, (byte) 5);
+        journal.close();
+    }
+
+    @Test
+    @DisplayName("oversized or empty payloads should be refused and arguments validated")
+    void testLimits() throws Exception {
+        SpillJournal journal = new SpillJournal(journalDir, 64, 1);
+
+        assertThat(journal.getMaxPayloadSize()).isEqualTo(52);
+        assertThat(journal.append(new byte[53], 0, 53)).isFalse();
+        assertThat(journal.append(new byte[52], 0, 52)).isTrue();
+        assertThat(journal.append(new byte[0], 0, 0)).isFalse();
+        assertThatThrownBy(() -> journal.append(new byte[4], 2, 4)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> new SpillJournal(journalDir, 32, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SpillJournal(journalDir, 64, 0)).isInstanceOf(IllegalArgumentException.class);
+        journal.close();
+
+        Files.write(journalDir.resolve("spill-0000000000000099.seg"), new byte[64]);
+        assertThatThrownBy(() -> new SpillJournal(journalDir, 64, 1)).hasMessageContaining("Not a spill segment");
+    }
+}
@@ -0,0 +1,293 @@
+package test.java;
+
+import main.java.BLEServerInterface;
+import main.java.FrameReassembler;
+import main.java.LoopbackBLEServer;
+import main.java.OverflowPolicy;
+import main.java.PacingStrategy;
+import main.java.PayloadCompressor;
+import main.java.SubscriberFanOut;
+import main.java.SubscriptionListener;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SubscriberFanOutTest {
+
+    /**
+     * Serveur qui enregistre les chunks reçus par chaque central
+     */
+    static class MultiCentralServer implements BLEServerInterface {
+        final Map<Integer, List<String>> chunks = new ConcurrentHashMap<>();
+        final Map<Integer, List<byte[]>> arrays = new ConcurrentHashMap<>();
+        final CountDownLatch slowRelease = new CountDownLatch(1);
+        volatile int slowSubscriber = -1;
+        volatile SubscriptionListener listener;
+        volatile int[] subscribers = new int[0];
+        volatile int chunkSize = 4;
+        volatile boolean perCentral = true;
+
+        @Override
+        public int notify(int subscriberId, byte[] data, int offset, int length) {
+            if (subscriberId == slowSubscriber) {
+                try {
+                    slowRelease.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return -1;
+                }
+            }
+            chunks.computeIfAbsent(subscriberId, id -> new CopyOnWriteArrayList<>()).add(new String(data, offset, length));
+            arrays.computeIfAbsent(subscriberId, id -> new CopyOnWriteArrayList<>()).add(data);
+            return 0;
+        }
+
+        @Override
+        public boolean supportsSubscriberNotify() {
+            return perCentral;
+        }
+
+        @Override
+        public void setSubscriptionListener(SubscriptionListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public int[] getSubscribers() {
+            return subscribers;
+        }
+
+        @Override
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        @Override
+        public int startServer(String serviceUuid, String characteristicUuid) {
+            return 1;
+        }
+
+        @Override
+        public int notify(byte[] data) {
+            if (perCentral) {
+                return -1; // jamais utilisé : tout passe par l'identité du central
+            }
+            chunks.computeIfAbsent(SubscriberFanOut.BROADCAST, id -> new CopyOnWriteArrayList<>()).add(new String(data));
+            return 0;
+        }
+
+        @Override
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public void stopServer() {
+        }
+
+        @Override
+        public boolean sendData(String data) {
+            return false;
+        }
+
+        @Override
+        public boolean sendBytes(byte[] data, int offset, int length) {
+            return false;
+        }
+
+        List<String> received(int subscriberId) {
+            return chunks.getOrDefault(subscriberId, List.of());
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static SubscriberFanOut fanOut(MultiCentralServer server, int capacity) {
+        return new SubscriberFanOut(server, capacity, OverflowPolicy.DROP_OLDEST, PacingStrategy::none);
+    }
+
+    @Test
+    @DisplayName("every subscriber should receive every payload, chunked from one shared array")
+    void testFanOut() throws Exception {
+        MultiCentralServer server = new MultiCentralServer();
+        server.subscribers = new int[] {1, 2};
+        SubscriberFanOut fanOut = fanOut(server, 16);
+        server.listener.onSubscribed(3);
+
+        assertThat(fanOut.getSubscribers()).containsExactly(1, 2, 3);
+        assertThat(fanOut.publish("HR:72;SPO2:98".getBytes())).isEqualTo(3);
+        assertThat(fanOut.publish("HR:73".getBytes())).isEqualTo(3);
+        await(() -> fanOut.getSent(1) == 2 && fanOut.getSent(2) == 2 && fanOut.getSent(3) == 2);
+
+        for (int id = 1; id <= 3; id++) {
+            assertThat(String.join("", server.received(id))).isEqualTo("HR:72;SPO2:98HR:73");
+            assertThat(server.received(id).get(0)).isEqualTo("HR:7");
+        }
+        // Aucune copie par abonné ni par chunk
+        assertThat(server.arrays.get(1).get(0)).isSameAs(server.arrays.get(2).get(0)).isSameAs(server.arrays.get(3).get(3));
+        fanOut.close();
+    }
+
+    @Test
+    @DisplayName("a stalled subscriber should only fill its own queue")
+    void testSlowSubscriberDoesNotThrottleOthers() throws Exception {
+        MultiCentralServer server = new MultiCentralServer();
+        server.slowSubscriber = 2;
+        server.subscribers = new int[] {1, 2};
+        SubscriberFanOut fanOut = fanOut(server, 3);
+
+        fanOut.publish("m0".getBytes());
+        await(() -> fanOut.getQueued(2) == 0); // m0 en cours d'envoi, bloqué
+        for (int i = 1; i < 10; i++) {
+            fanOut.publish(("m" + i).getBytes());
+            await(() -> fanOut.getQueued(1) == 0); // producteur au rythme de l'abonné rapide
+        }
+        await(() -> fanOut.getSent(1) == 10);
+
+        assertThat(fanOut.getSent(1)).isEqualTo(10);
+        assertThat(fanOut.getDropped(1)).isZero();
+        assertThat(fanOut.getSent(2)).isZero(); // bloqué sur le premier message
+        assertThat(fanOut.getQueued(2)).isEqualTo(3);
+        assertThat(fanOut.getDropped(2)).isEqualTo(6);
+
+        server.slowRelease.countDown();
+        await(() -> fanOut.getSent(2) == 4);
+        // Le premier message était déjà en cours, puis les trois plus récents
+        assertThat(server.received(2)).containsExactly("m0", "m7", "m8", "m9");
+        fanOut.close();
+    }
+
+    @Test
+    @DisplayName("hundreds of subscribers should be served by the session executor")
+    void testManySubscribers() throws Exception {
+        MultiCentralServer server = new MultiCentralServer();
+        server.subscribers = IntStream.range(0, 300).toArray();
+        SubscriberFanOut fanOut = fanOut(server, 4);
+
+        assertThat(fanOut.publish("HR:72".getBytes())).isEqualTo(300);
+        assertThat(fanOut.publish("HR:73".getBytes())).isEqualTo(300);
+        await(() -> IntStream.range(0, 300).allMatch(id -> fanOut.getSent(id) == 2));
+
+        for (int id = 0; id < 300; id++) {
+            assertThat(server.received(id)).containsExactly("HR:7", "2", "HR:7", "3");
+        }
+        fanOut.close();
+    }
+
+    @Test
+    @DisplayName("unsubscribing should stop a subscriber's thread and discard its queue")
+    void testUnsubscribe() throws Exception {
+        MultiCentralServer server = new MultiCentralServer();
+        server.slowSubscriber = 5;
+        SubscriberFanOut fanOut = new SubscriberFanOut(server, 4, OverflowPolicy.FAIL_FAST, PacingStrategy::none);
+        server.listener.onSubscribed(5);
+        server.listener.onSubscribed(6);
+
+        fanOut.publish("m0".getBytes());
+        await(() -> fanOut.getQueued(5) == 0);
+        for (int i = 1; i < 8; i++) {
+            fanOut.publish(("m" + i).getBytes());
+            await(() -> fanOut.getQueued(6) == 0);
+        }
+        await(() -> fanOut.getSent(6) == 8);
+        assertThat(fanOut.getQueued(5)).isEqualTo(4);
+        assertThat(fanOut.getDropped(5)).isEqualTo(3); // FAIL_FAST : les plus récents sont refusés
+
+        server.listener.onUnsubscribed(5);
+        assertThat(fanOut.getSubscribers()).containsExactly(6);
+        assertThat(fanOut.getQueued(5)).isZero();
+        assertThat(fanOut.publish("after".getBytes())).isEqualTo(1);
+
+        fanOut.close();
+        assertThat(server.listener).isNull();
+        assertThat(fanOut.getSubscribers()).isEmpty();
+        assertThat(fanOut.publish("closed".getBytes())).isZero();
+    }
+
+    @Test
+    @DisplayName("without per-central notify, every payload should be broadcast once from a shared queue")
+    void testBroadcastFallback() throws Exception {
+        MultiCentralServer server = new MultiCentralServer();
+        server.perCentral = false;
+        server.subscribers = new int[] {1, 2, 3};
+        SubscriberFanOut fanOut = fanOut(server, 16);
+
+        assertThat(fanOut.publish("HR:72;SPO2:98".getBytes())).isEqualTo(1);
+        assertThat(fanOut.publish("HR:73".getBytes())).isEqualTo(1);
+        await(() -> fanOut.getSent(SubscriberFanOut.BROADCAST) == 2);
+
+        assertThat(String.join("", server.received(SubscriberFanOut.BROADCAST))).isEqualTo("HR:72;SPO2:98HR:73");
+        for (int id = 1; id <= 3; id++) {
+            assertThat(server.received(id)).isEmpty();
+            assertThat(fanOut.getSent(id)).isZero();
+        }
+        fanOut.close();
+        assertThat(fanOut.publish("closed".getBytes())).isZero();
+    }
+
+    @Test
+    @DisplayName("payloads should be compressed and framed like the server's own sends")
+    void testFramedPayloads() throws Exception {
+        LoopbackBLEServer server = new LoopbackBLEServer();
+        server.setChunkSize(40);
+        server.setBufferDepth(1000);
+        server.setFraming(true);
+        server.setCompressor(new PayloadCompressor(64));
+        FrameReassembler reassembler = new FrameReassembler(4096);
+        List<byte[]> messages = new CopyOnWriteArrayList<>();
+        server.setSubscriber(chunk -> {
+            byte[] message = reassembler.accept(chunk, 0, chunk.length);
+            if (message != null) {
+                messages.add(message);
+            }
+        });
+        server.startServer("svc", "char");
+        SubscriberFanOut fanOut = new SubscriberFanOut(server, 16, OverflowPolicy.DROP_OLDEST, PacingStrategy::none);
+        try {
+            byte[] history = "HR:72;SPO2:98;".repeat(20).getBytes();
+            byte[] vitals = "HR:73".getBytes();
+            assertThat(fanOut.publish(history)).isEqualTo(1);
+            assertThat(fanOut.publish(vitals)).isEqualTo(1);
+            await(() -> fanOut.getSent(SubscriberFanOut.BROADCAST) == 2);
+            assertThat(server.awaitDelivery(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(messages).hasSize(2);
+            assertThat(messages.get(0)[0]).isEqualTo(PayloadCompressor.DEFLATED);
+            assertThat(PayloadCompressor.decode(messages.get(0), 0, messages.get(0).length)).isEqualTo(history);
+            assertThat(PayloadCompressor.decode(messages.get(1), 0, messages.get(1).length)).isEqualTo(vitals);
+            assertThat(reassembler.getDroppedMessages()).isZero();
+        } finally {
+            fanOut.close();
+            server.stopServer();
+        }
+    }
+
+    @Test
+    @DisplayName("the constructor should refuse a blocking overflow policy and invalid capacities")
+    void testArguments() {
+        MultiCentralServer server = new MultiCentralServer();
+        assertThatThrownBy(() -> new SubscriberFanOut(server, 4, OverflowPolicy.BLOCK, PacingStrategy::none))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SubscriberFanOut(server, 0, OverflowPolicy.DROP_OLDEST, PacingStrategy::none))
+            .isInstanceOf(IllegalArgumentException.class);
+        SubscriberFanOut fanOut = new SubscriberFanOut(server);
+        assertThat(fanOut.publish(new byte[] {1})).isZero(); // aucun abonné
+        assertThatThrownBy(() -> fanOut.publish(new byte[2], 1, 2)).isInstanceOf(IndexOutOfBoundsException.class);
+        fanOut.close();
+    }
+}
@@ -0,0 +1,120 @@
+package test.java;
+
+import main.java.PacingStrategy;
+import main.java.TokenBucketPacer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TokenBucketPacerTest {
+
+    @Test
+    @DisplayName("none() should never wait")
+    void testNoPacing() throws Exception {
+        PacingStrategy pacing = PacingStrategy.none();
+        long start = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) {
+            pacing.acquire(200);
+        }
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    @DisplayName("chunksPerSecond should space chunks by the configured interval")
+    void testChunksPerSecond() throws Exception {
+        TokenBucketPacer pacer = TokenBucketPacer.chunksPerSecond(1000, 1);
+        long start = System.nanoTime();
+        for (int i = 0; i < 21; i++) {
+            pacer.acquire(200);
+        }
+        // Le premier chunk part immédiatement, les 20 suivants attendent 1 ms chacun
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    @DisplayName("bytesPerSecond should pace according to chunk size")
+    void testBytesPerSecond() throws Exception {
+        TokenBucketPacer pacer = TokenBucketPacer.bytesPerSecond(100_000, 0);
+        long start = System.nanoTime();
+        for (int i = 0; i < 11; i++) {
+            pacer.acquire(200); // 2 ms par chunk
+        }
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    @DisplayName("burst should let an idle bucket send several chunks back to back")
+    void testBurst() throws Exception {
+        TokenBucketPacer pacer = TokenBucketPacer.chunksPerSecond(1, 5);
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            pacer.acquire(200);
+        }
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    @Test
+    @DisplayName("acquireBurst should grant the open slots of the bucket and nothing more")
+    void testAcquireBurst() throws Exception {
+        TokenBucketPacer pacer = TokenBucketPacer.chunksPerSecond(1, 3);
+        assertThat(pacer.acquireBurst(200, 10)).isEqualTo(3);
+
+        TokenBucketPacer idle = TokenBucketPacer.chunksPerSecond(1, 3);
+        assertThat(idle.acquireBurst(200, 2)).isEqualTo(2);
+        assertThat(idle.acquireBurst(200, 2)).isEqualTo(1); // dernier créneau ouvert
+
+        assertThat(TokenBucketPacer.chunksPerSecond(1000, 1).acquireBurst(200, 10)).isEqualTo(1);
+        assertThat(PacingStrategy.none().acquireBurst(200, 10)).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("spin-then-park mode should honour sub-millisecond gaps")
+    void testSpinThenPark() throws Exception {
+        TokenBucketPacer pacer = TokenBucketPacer.chunksPerSecond(10_000, 1).withSpinThreshold(50_000);
+        assertThat(pacer.getSpinThresholdNanos()).isEqualTo(50_000);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 101; i++) {
+            pacer.acquire(20);
+        }
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    @Test
+    @DisplayName("acquire should throw InterruptedException when interrupted while parked")
+    void testInterrupted() throws Exception {
+        TokenBucketPacer pacer = TokenBucketPacer.chunksPerSecond(1, 1);
+        pacer.acquire(1); // consomme le créneau disponible
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread waiter = new Thread(() -> {
+            try {
+                pacer.acquire(1);
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        waiter.start();
+        Thread.sleep(50);
+        waiter.interrupt();
+        waiter.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertThat(waiter.isAlive()).isFalse();
+        assertThat(failure.get()).isInstanceOf(InterruptedException.class);
+    }
+
+    @Test
+    @DisplayName("factories should reject invalid settings")
+    void testInvalidSettings() {
+        assertThatThrownBy(() -> TokenBucketPacer.bytesPerSecond(0, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TokenBucketPacer.chunksPerSecond(10, -1))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TokenBucketPacer.chunksPerSecond(10, 1).withSpinThreshold(-1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
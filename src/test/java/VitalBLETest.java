@@ -4,13 +4,42 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
 import static org.mockito.ArgumentMatchers.*;
 import main.java.VitalBLE;
+import main.java.BLEServer;
 import main.java.BLEServerInterface;
+import main.java.BLEMetrics;
+import main.java.OverflowPolicy;
+import main.java.PacingStrategy;
+import main.java.FrameReassembler;
+import main.java.LoopbackBLEServer;
+import main.java.PayloadCompressor;
+import main.java.HeartRateMeasurement;
+import main.java.WaveformEncoder;
+import main.java.Priority;
+import main.java.WriteCoalescer;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
 
 /**
  * Tests modernes pour VitalBLE avec injection de dépendances
@@ -437,4 +466,796 @@ public class VitalBLETest {
         // (le résultat peut être false si BLEServer.startServer() retourne 0)
         assertThat(result).isIn(true, false); // Accepter les deux résultats
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("sendAsync should transmit on the background thread and complete the future")
+    void testSendAsync() throws Exception {
+        when(mockServer.startServer(anyString(), anyString())).thenReturn(1);
+        when(mockServer.sendData("async message")).thenReturn(true);
+        VitalBLE.setServer(mockServer);
+
+        CompletableFuture<Boolean> result = VitalBLE.sendAsync("async message");
+
+        assertThat(result.get(5, TimeUnit.SECONDS)).isTrue();
+        verify(mockServer).sendData("async message");
+    }
+
+    @Test
+    @DisplayName("sendAsync should complete with false for null data")
+    void testSendAsyncNull() {
+        VitalBLE.setServer(mockServer);
+
+        assertThat(VitalBLE.sendAsync(null).join()).isFalse();
+        verify(mockServer, never()).startServer(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("configureAsync should be rejected once the async queue is running")
+    void testConfigureAsyncAfterSendAsync() throws Exception {
+        when(mockServer.startServer(anyString(), anyString())).thenReturn(1);
+        when(mockServer.sendData(anyString())).thenReturn(true);
+        VitalBLE.setServer(mockServer);
+        VitalBLE.configureAsync(8, OverflowPolicy.FAIL_FAST);
+
+        VitalBLE.sendAsync("x").get(5, TimeUnit.SECONDS);
+
+        assertThatThrownBy(() -> VitalBLE.configureAsync(16, OverflowPolicy.BLOCK))
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("configureAsync should validate its arguments")
+    void testConfigureAsyncArguments() {
+        assertThatThrownBy(() -> VitalBLE.configureAsync(0, OverflowPolicy.BLOCK))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> VitalBLE.configureAsync(4, null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("sendBytes(byte[]) should pass binary frames to the server without String conversion")
+    void testSendBytes() {
+        byte[] frame = {1, 2, 3, 4};
+        when(mockServer.startServer(anyString(), anyString())).thenReturn(1);
+        when(mockServer.sendBytes(frame, 0, 4)).thenReturn(true);
+        when(mockServer.sendBytes(frame, 1, 2)).thenReturn(true);
+        VitalBLE.setServer(mockServer);
+
+        assertThat(VitalBLE.sendBytes(frame)).isTrue();
+        assertThat(VitalBLE.sendBytes(frame, 1, 2)).isTrue();
+        assertThat(VitalBLE.sendBytes(null)).isFalse();
+        verify(mockServer, never()).sendData(anyString());
+    }
+
+    @Test
+    @DisplayName("sendBuffer(ByteBuffer) should pass the buffer to the server")
+    void testSendByteBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(16);
+        when(mockServer.startServer(anyString(), anyString())).thenReturn(1);
+        when(mockServer.sendBuffer(buffer)).thenReturn(true);
+        VitalBLE.setServer(mockServer);
+
+        assertThat(VitalBLE.sendBuffer(buffer)).isTrue();
+        assertThat(VitalBLE.sendBuffer(null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("binary send should return false when the server cannot start")
+    void testSendBytesServerStartFailure() {
+        when(mockServer.startServer(anyString(), anyString())).thenReturn(0);
+        VitalBLE.setServer(mockServer);
+
+        assertThat(VitalBLE.sendBytes(new byte[] {1})).isFalse();
+        assertThat(VitalBLE.sendBuffer(ByteBuffer.wrap(new byte[] {1}))).isFalse();
+        verify(mockServer, never()).sendBytes(any(byte[].class), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("getState should follow the server lifecycle")
+    void testStateTransitions() {
+        when(mockServer.startServer(anyString(), anyString())).thenReturn(1);
+        when(mockServer.sendData(anyString())).thenReturn(true);
+        VitalBLE.setServer(mockServer);
+
+        assertThat(VitalBLE.getState()).isEqualTo(VitalBLE.State.STOPPED);
+        VitalBLE.send("x");
+        assertThat(VitalBLE.getState()).isEqualTo(VitalBLE.State.STARTED);
+        VitalBLE.shutdown();
+        assertThat(VitalBLE.getState()).isEqualTo(VitalBLE.State.STOPPED);
+        verify(mockServer).stopServer();
+    }
+
+    @Test
+    @DisplayName("Concurrent sends should start the server exactly once")
+    void testConcurrentSendsSingleStart() throws Exception {
+        CountDownLatch go = new CountDownLatch(1);
+        when(mockServer.startServer(anyString(), anyString())).thenAnswer(invocation -> {
+            Thread.sleep(50); // démarrage lent : les autres threads arrivent pendant STARTING
+            return 1;
+        });
+        when(mockServer.sendData(anyString())).thenReturn(true);
+        VitalBLE.setServer(mockServer);
+
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                String message = "sensor " + i;
+                results.add(pool.submit(() -> {
+                    go.await();
+                    return VitalBLE.send(message);
+                }));
+            }
+            go.countDown();
+            for (Future<Boolean> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isTrue();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        verify(mockServer, times(1)).startServer(anyString(), anyString());
+        verify(mockServer, times(threads)).sendData(anyString());
+    }
+
+    @Test
+    @DisplayName("Threads waiting on a failed start should return false without retrying")
+    void testConcurrentSendsFailedStart() throws Exception {
+        CountDownLatch starting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(mockServer.startServer(anyString(), anyString())).thenAnswer(invocation -> {
+            starting.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 0;
+        });
+        VitalBLE.setServer(mockServer);
+
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> VitalBLE.send("a"));
+        assertThat(starting.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(VitalBLE.getState()).isEqualTo(VitalBLE.State.STARTING);
+        assertThatThrownBy(() -> VitalBLE.configure("svc", "char"))
+            .isInstanceOf(IllegalStateException.class);
+        CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> VitalBLE.send("b"));
+        Thread.sleep(50);
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isFalse();
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).isFalse();
+        assertThat(VitalBLE.getState()).isEqualTo(VitalBLE.State.STOPPED);
+        verify(mockServer, times(1)).startServer(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("getMetrics should return the server metrics, or an empty snapshot without them")
+    void testGetMetrics() {
+        assertThat(VitalBLE.getMetrics().getNotifyCount()).isZero();
+
+        BLEMetrics metrics = new BLEMetrics();
+        metrics.recordMessage(10, 1_000, true);
+        when(mockServer.getMetrics()).thenReturn(metrics);
+        when(mockServer.startServer(anyString(), anyString())).thenReturn(1);
+        when(mockServer.sendData(anyString())).thenReturn(true);
+        VitalBLE.setServer(mockServer);
+        VitalBLE.send("x");
+
+        assertThat(VitalBLE.getMetrics().getMessagesSent()).isEqualTo(1);
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName(BLEMetrics.OBJECT_NAME))).isTrue();
+    }
+
+    private static ObjectName objectName(String name) {
+        try {
+            return new ObjectName(name);
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    @Test
+    @DisplayName("warmUp should start the server on a background thread")
+    void testWarmUp() throws Exception {
+        String[] startThread = new String[1];
+        when(mockServer.startServer(anyString(), anyString())).thenAnswer(invocation -> {
+            startThread[0] = Thread.currentThread().getName();
+            return 1;
+        });
+        when(mockServer.sendData(anyString())).thenReturn(true);
+        VitalBLE.setServer(mockServer);
+
+        assertThat(VitalBLE.warmUp().get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(startThread[0]).isEqualTo("VitalBLE-warmup");
+        assertThat(VitalBLE.getState()).isEqualTo(VitalBLE.State.STARTED);
+
+        assertThat(VitalBLE.send("x")).isTrue();
+        verify(mockServer, times(1)).startServer(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("warmUp should report a library load failure through its future")
+    void testWarmUpFailure() {
+        when(mockServer.startServer(anyString(), anyString()))
+            .thenThrow(new RuntimeException("Impossible de charger BLEServer.dll"));
+        VitalBLE.setServer(mockServer);
+
+        assertThatThrownBy(() -> VitalBLE.warmUp().get(5, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(RuntimeException.class)
+            .hasMessageContaining("Impossible de charger BLEServer.dll");
+        assertThat(VitalBLE.getState()).isEqualTo(VitalBLE.State.STOPPED);
+    }
+
+    @Test
+    @DisplayName("configureCoalescing should pack small messages until shutdown flushes them")
+    void testCoalescing() {
+        List<byte[]> received = new ArrayList<>();
+        WriteCoalescer.Decoder decoder = new WriteCoalescer.Decoder(received::add);
+        when(mockServer.startServer(anyString(), anyString())).thenReturn(1);
+        when(mockServer.getChunkSize()).thenReturn(100);
+        when(mockServer.sendBytes(any(byte[].class), anyInt(), anyInt())).thenAnswer(invocation -> {
+            decoder.accept(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+            return true;
+        });
+        VitalBLE.setServer(mockServer);
+        VitalBLE.configureCoalescing(1, TimeUnit.HOURS);
+
+        assertThat(VitalBLE.send("HR:72")).isTrue();
+        assertThat(VitalBLE.sendBytes(new byte[] {1, 2, 3})).isTrue();
+        assertThat(VitalBLE.sendBuffer(ByteBuffer.wrap(new byte[] {4, 5}))).isTrue();
+        verify(mockServer, never()).sendBytes(any(byte[].class), anyInt(), anyInt());
+
+        VitalBLE.shutdown();
+
+        verify(mockServer, times(1)).sendBytes(any(byte[].class), anyInt(), anyInt());
+        verify(mockServer, never()).sendData(anyString());
+        assertThat(received).hasSize(3);
+        assertThat(new String(received.get(0), StandardCharsets.UTF_8)).isEqualTo("HR:72");
+        assertThat(received.get(1)).containsExactly(1, 2, 3);
+        assertThat(received.get(2)).containsExactly(4, 5);
+    }
+
+    @Test
+    @DisplayName("a coalesced batch refused by the server should be journaled when a spill journal is set")
+    void testCoalescingWithSpillJournal(@TempDir Path journalDir) throws Exception {
+        when(mockServer.startServer(anyString(), anyString())).thenReturn(1);
+        when(mockServer.getChunkSize()).thenReturn(100);
+        when(mockServer.sendBytes(any(byte[].class), anyInt(), anyInt())).thenReturn(false);
+        VitalBLE.setServer(mockServer);
+        VitalBLE.configureCoalescing(1, TimeUnit.HOURS);
+        VitalBLE.configureSpillJournal(journalDir, 4096, 4);
+
+        assertThat(VitalBLE.send("HR:72")).isTrue();
+        assertThat(VitalBLE.send("HR:73")).isTrue();
+        assertThat(VitalBLE.getSpilledPending()).isZero();
+
+        VitalBLE.shutdown(); // lot vidé et refusé après que send() a renvoyé true
+
+        assertThat(VitalBLE.getSpilledPending()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("an interrupted send should journal only the bytes the receiver did not get")
+    void testSpillJournalKeepsOnlyTheUnsentRemainder(@TempDir Path journalDir) throws Exception {
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        int[] accepted = {2}; // chunks acceptés avant la coupure
+        BLEServer flaky = new BLEServer() {
+            @Override
+            protected void loadNativeLibrary() {
+                // natives simulées : aucune bibliothèque à charger
+            }
+
+            @Override
+            protected int nativeStartServer(String serviceUuid, String charUuid) {
+                return 0;
+            }
+
+            @Override
+            protected void nativeStopServer() {
+                // no-op
+            }
+
+            @Override
+            protected int nativeGetMtu() {
+                return 0;
+            }
+
+            @Override
+            protected int nativeNotify(byte[] data) {
+                return nativeNotifyRange(data, 0, data.length); // rejeu depuis le segment mappé
+            }
+
+            @Override
+            protected int nativeNotifyRange(byte[] data, int offset, int length) {
+                if (accepted[0] == 0) {
+                    return -1;
+                }
+                accepted[0]--;
+                received.write(data, offset, length);
+                return 0;
+            }
+        };
+        flaky.setChunkSize(10);
+        flaky.setPacingStrategy(PacingStrategy.none());
+        VitalBLE.setServer(flaky);
+        VitalBLE.configureSpillJournal(journalDir, 4096, 4);
+        byte[] first = "HR:72;SPO2:98;RESP:16;TEMP:36.8;BP:".getBytes(StandardCharsets.UTF_8); // 35 octets
+        byte[] second = "120/8".getBytes(StandardCharsets.UTF_8);
+        byte[] third = "0;HR:73".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(VitalBLE.sendBytes(first)).isTrue();
+        assertThat(received.size()).isEqualTo(20);
+        assertThat(VitalBLE.getSpilledPending()).isEqualTo(1);
+
+        // Rejeu interrompu à son tour : le journal ne garde que les 5 derniers octets
+        accepted[0] = 1;
+        assertThat(VitalBLE.sendBuffer(ByteBuffer.wrap(second))).isTrue();
+        assertThat(received.size()).isEqualTo(30);
+        assertThat(VitalBLE.getSpilledPending()).isEqualTo(2);
+
+        accepted[0] = 100;
+        assertThat(VitalBLE.sendBytes(third)).isTrue();
+        assertThat(VitalBLE.getSpilledPending()).isZero();
+        assertThat(new String(received.toByteArray(), StandardCharsets.UTF_8))
+            .isEqualTo("HR:72;SPO2:98;RESP:16;TEMP:36.8;BP:120/80;HR:73");
+    }
+
+    @Test
+    @DisplayName("configureCoalescing should validate its arguments and the server state")
+    void testConfigureCoalescingArguments() {
+        assertThatThrownBy(() -> VitalBLE.configureCoalescing(-1, TimeUnit.MILLISECONDS))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        when(mockServer.startServer(anyString(), anyString())).thenReturn(1);
+        when(mockServer.sendData(anyString())).thenReturn(true);
+        VitalBLE.setServer(mockServer);
+        VitalBLE.configureCoalescing(0, TimeUnit.MILLISECONDS); // désactivé
+        assertThat(VitalBLE.send("direct")).isTrue();
+        verify(mockServer).sendData("direct");
+
+        assertThatThrownBy(() -> VitalBLE.configureCoalescing(1, TimeUnit.MILLISECONDS))
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("the spill journal should keep messages while the link is down and replay them in order")
+    void testSpillJournal(@TempDir Path journalDir) throws Exception {
+        List<String> received = new ArrayList<>();
+        boolean[] linkUp = {false};
+        when(mockServer.startServer(anyString(), anyString())).thenAnswer(invocation -> linkUp[0] ? 1 : 0);
+        when(mockServer.sendBytes(any(byte[].class), anyInt(), anyInt())).thenAnswer(invocation -> {
+            byte[] data = invocation.getArgument(0);
+            received.add(new String(data, (int) invocation.getArgument(1), (int) invocation.getArgument(2), StandardCharsets.UTF_8));
+            return true;
+        });
+        when(mockServer.sendBuffer(any(ByteBuffer.class))).thenAnswer(invocation -> {
+            ByteBuffer data = invocation.getArgument(0);
+            byte[] copy = new byte[data.remaining()];
+            data.duplicate().get(copy);
+            received.add(new String(copy, StandardCharsets.UTF_8));
+            return true;
+        });
+        VitalBLE.setServer(mockServer);
+        VitalBLE.configureSpillJournal(journalDir, 4096, 4);
+
+        assertThat(VitalBLE.send("HR:71")).isTrue(); // serveur indisponible : journalisé
+        assertThat(VitalBLE.sendBytes("HR:72".getBytes(StandardCharsets.UTF_8))).isTrue();
+        assertThat(VitalBLE.sendBuffer(ByteBuffer.wrap("HR:73".getBytes(StandardCharsets.UTF_8)))).isTrue();
+        assertThat(VitalBLE.getSpilledPending()).isEqualTo(3);
+        assertThat(VitalBLE.replaySpilled()).isFalse();
+        assertThat(received).isEmpty();
+
+        linkUp[0] = true;
+        assertThat(VitalBLE.send("HR:74")).isTrue();
+        assertThat(received).containsExactly("HR:71", "HR:72", "HR:73", "HR:74");
+        assertThat(VitalBLE.getSpilledPending()).isZero();
+
+        // Échec d'envoi serveur démarré : journalisé puis rejoué explicitement
+        when(mockServer.sendBytes(any(byte[].class), anyInt(), anyInt())).thenReturn(false);
+        assertThat(VitalBLE.send("HR:75")).isTrue();
+        assertThat(VitalBLE.getSpilledPending()).isEqualTo(1);
+        assertThat(VitalBLE.replaySpilled()).isTrue();
+        assertThat(received).endsWith("HR:75");
+
+        assertThatThrownBy(() -> VitalBLE.configureSpillJournal(null, 0, 0))
+            .isInstanceOf(IllegalStateException.class);
+        VitalBLE.reset();
+        assertThat(VitalBLE.getSpilledPending()).isZero();
+        assertThat(VitalBLE.replaySpilled()).isTrue();
+    }
+
+    @Test
+    @DisplayName("change suppression should skip unchanged payloads until a send fails or the server restarts")
+    void testChangeSuppression() {
+        when(mockServer.startServer(anyString(), anyString())).thenReturn(1);
+        when(mockServer.sendBytes(any(byte[].class), anyInt(), anyInt())).thenReturn(true);
+        when(mockServer.sendBuffer(any(ByteBuffer.class))).thenReturn(true);
+        VitalBLE.setServer(mockServer);
+        assertThatThrownBy(() -> VitalBLE.configureChangeSuppression(-1, TimeUnit.SECONDS, false))
+            .isInstanceOf(IllegalArgumentException.class);
+        VitalBLE.configureChangeSuppression(1, TimeUnit.HOURS, true);
+
+        assertThat(VitalBLE.send("STATUS:OK")).isTrue();
+        assertThat(VitalBLE.send("STATUS:OK")).isTrue();
+        assertThat(VitalBLE.sendBytes("STATUS:OK".getBytes(StandardCharsets.UTF_8))).isTrue();
+        assertThat(VitalBLE.sendBuffer(ByteBuffer.wrap("STATUS:OK".getBytes(StandardCharsets.UTF_8)))).isTrue();
+        verify(mockServer, times(1)).sendBytes(any(byte[].class), anyInt(), anyInt());
+        verify(mockServer, never()).sendData(anyString());
+        verify(mockServer, never()).sendBuffer(any(ByteBuffer.class));
+        assertThat(VitalBLE.getSuppressedSends()).isEqualTo(3);
+
+        // Un échec n'est pas mémorisé : le contenu suivant repart
+        when(mockServer.sendBytes(any(byte[].class), anyInt(), anyInt())).thenReturn(false);
+        assertThat(VitalBLE.send("STATUS:ALARM")).isFalse();
+        when(mockServer.sendBytes(any(byte[].class), anyInt(), anyInt())).thenReturn(true);
+        assertThat(VitalBLE.send("STATUS:ALARM")).isTrue();
+        assertThat(VitalBLE.send("STATUS:ALARM")).isTrue();
+        verify(mockServer, times(3)).sendBytes(any(byte[].class), anyInt(), anyInt());
+
+        assertThatThrownBy(() -> VitalBLE.configureChangeSuppression(1, TimeUnit.SECONDS, false))
+            .isInstanceOf(IllegalStateException.class);
+
+        // Un redémarrage vide le cache
+        VitalBLE.shutdown();
+        assertThat(VitalBLE.send("STATUS:ALARM")).isTrue();
+        verify(mockServer, times(4)).sendBytes(any(byte[].class), anyInt(), anyInt());
+
+        VitalBLE.reset();
+        when(mockServer.sendData("STATUS:ALARM")).thenReturn(true);
+        VitalBLE.setServer(mockServer);
+        assertThat(VitalBLE.send("STATUS:ALARM")).isTrue(); // désactivé : envoi direct
+        verify(mockServer).sendData("STATUS:ALARM");
+        assertThat(VitalBLE.getSuppressedSends()).isZero();
+    }
+
+    /**
+     * Implémentation écrite avant sendBytes(byte[], int, int) et la taille de chunk : seules les méthodes d'origine
+     */
+    static class LegacyServer implements BLEServerInterface {
+        final List<byte[]> notifications = new CopyOnWriteArrayList<>();
+        volatile int refuseAfter = Integer.MAX_VALUE;
+
+        @Override
+        public int startServer(String serviceUuid, String characteristicUuid) {
+            return 1;
+        }
+
+        @Override
+        public int notify(byte[] data) {
+            if (notifications.size() >= refuseAfter) {
+                return -1;
+            }
+            notifications.add(data);
+            return 0;
+        }
+
+        @Override
+        public void stopServer() {
+        }
+
+        @Override
+        public boolean sendData(String data) {
+            return sendBytes(data.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    @DisplayName("an implementation without sendBytes(byte[], int, int) should get it chunked through notify")
+    void testDefaultSendBytes() {
+        LegacyServer legacy = new LegacyServer();
+        VitalBLE.setServer(legacy);
+        legacy.setChunkSize(4); // ignorée : taille fixe
+        assertThat(legacy.getChunkSize()).isEqualTo(20);
+
+        assertThat(VitalBLE.sendBytes("HR:72 SpO2:97 RESP:16 BP:120/80".getBytes(StandardCharsets.UTF_8), 3, 25)).isTrue();
+        assertThat(legacy.notifications).extracting(chunk -> new String(chunk, StandardCharsets.UTF_8))
+            .containsExactly("72 SpO2:97 RESP:16 B", "P:120");
+
+        legacy.refuseAfter = 3;
+        assertThat(VitalBLE.sendBytes(new byte[50])).isFalse();
+        assertThat(legacy.notifications).hasSize(3); // arrêt au premier chunk refusé
+        assertThatThrownBy(() -> legacy.sendBytes(new byte[2], 1, 2)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    @DisplayName("send with a priority should frame the message through the lane sender")
+    void testSendWithPriority() throws Exception {
+        List<byte[]> frames = new ArrayList<>();
+        when(mockServer.startServer(anyString(), anyString())).thenReturn(1);
+        when(mockServer.getChunkSize()).thenReturn(20);
+        when(mockServer.notify(any(byte[].class), anyInt(), anyInt())).thenAnswer(invocation -> {
+            byte[] data = invocation.getArgument(0);
+            int offset = invocation.getArgument(1);
+            frames.add(Arrays.copyOfRange(data, offset, offset + (int) invocation.getArgument(2)));
+            return 0;
+        });
+        VitalBLE.setServer(mockServer);
+        VitalBLE.configurePriorityLanes(true);
+        VitalBLE.configureLatencyBudget(Priority.ALARM, 1, TimeUnit.SECONDS);
+
+        assertThat(VitalBLE.send("ALARM: SpO2 low", Priority.ALARM)).isTrue();
+        assertThat(VitalBLE.sendBytes(new byte[30], Priority.BULK)).isTrue();
+        assertThat(VitalBLE.sendAsync("HR:72", Priority.VITALS).get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(VitalBLE.send(null, Priority.ALARM)).isFalse();
+
+        FrameReassembler reassembler = new FrameReassembler(1024, Priority.values().length);
+        List<String> messages = new ArrayList<>();
+        for (byte[] frame : frames) {
+            byte[] message = reassembler.accept(frame, 0, frame.length);
+            if (message != null) {
+                messages.add(new String(message, StandardCharsets.UTF_8));
+            }
+        }
+        assertThat(frames).hasSize(6); // 15, 30 et 5 octets, 12 octets par chunk
+        assertThat(messages).hasSize(3);
+        assertThat(messages.get(0)).isEqualTo("ALARM: SpO2 low");
+        assertThat(messages.get(2)).isEqualTo("HR:72");
+        verify(mockServer, never()).sendData(anyString());
+        assertThatThrownBy(() -> VitalBLE.configureLatencyBudget(Priority.BULK, 0, TimeUnit.SECONDS))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("with the lanes enabled, plain sends should be framed by the same sender")
+    void testPlainSendsJoinThePriorityLanes() throws Exception {
+        LoopbackBLEServer loopback = new LoopbackBLEServer();
+        loopback.setChunkSize(20);
+        loopback.setBufferDepth(1000);
+        FrameReassembler reassembler = new FrameReassembler(1024, Priority.values().length);
+        List<String> messages = new CopyOnWriteArrayList<>();
+        loopback.setSubscriber(chunk -> {
+            byte[] message = reassembler.accept(chunk, 0, chunk.length);
+            if (message != null) {
+                messages.add(new String(message, StandardCharsets.UTF_8));
+            }
+        });
+        VitalBLE.setServer(loopback);
+        VitalBLE.configurePriorityLanes(true);
+
+        assertThat(VitalBLE.send("HR:72 SpO2:97 RESP:16")).isTrue();
+        assertThat(loopback.isFraming()).isTrue();
+        assertThat(VitalBLE.send("ALARM: SpO2 low", Priority.ALARM)).isTrue();
+        assertThat(VitalBLE.sendBytes("BP:120/80".getBytes(StandardCharsets.UTF_8))).isTrue();
+        assertThat(loopback.awaitDelivery(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(messages).containsExactly("HR:72 SpO2:97 RESP:16", "ALARM: SpO2 low", "BP:120/80");
+        assertThat(reassembler.getDroppedMessages()).isZero();
+    }
+
+    @Test
+    @DisplayName("without the lanes, priority sends should fail and plain sends stay unframed")
+    void testPriorityLanesAreOptIn() throws Exception {
+        LoopbackBLEServer loopback = new LoopbackBLEServer();
+        loopback.setChunkSize(20);
+        loopback.setBufferDepth(1000);
+        List<byte[]> chunks = new CopyOnWriteArrayList<>();
+        loopback.setSubscriber(chunks::add);
+        VitalBLE.setServer(loopback);
+
+        assertThatThrownBy(() -> VitalBLE.send("ALARM: SpO2 low", Priority.ALARM))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("configurePriorityLanes");
+        assertThat(VitalBLE.send("HR:72")).isTrue();
+        assertThat(loopback.awaitDelivery(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(loopback.isFraming()).isFalse();
+        assertThat(chunks).containsExactly("HR:72".getBytes(StandardCharsets.UTF_8));
+        assertThatThrownBy(() -> VitalBLE.configurePriorityLanes(true))
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("send with a priority should fail when the server cannot start")
+    void testSendWithPriorityServerStartFailure() {
+        when(mockServer.startServer(anyString(), anyString())).thenReturn(0);
+        VitalBLE.setServer(mockServer);
+        VitalBLE.configurePriorityLanes(true);
+
+        assertThat(VitalBLE.send("ALARM", Priority.ALARM)).isFalse();
+        assertThat(VitalBLE.sendBytes(new byte[] {1}, Priority.ALARM)).isFalse();
+        verify(mockServer, never()).notify(any(byte[].class), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("sendHeartRate should notify the binary measurement and split RR intervals that do not fit")
+    void testSendHeartRate() {
+        List<byte[]> notifications = new ArrayList<>();
+        when(mockServer.startServer(anyString(), anyString())).thenReturn(1);
+        when(mockServer.getChunkSize()).thenReturn(20);
+        when(mockServer.sendBytes(any(byte[].class), anyInt(), anyInt())).thenAnswer(invocation -> {
+            byte[] data = invocation.getArgument(0);
+            int offset = invocation.getArgument(1);
+            notifications.add(Arrays.copyOfRange(data, offset, offset + (int) invocation.getArgument(2)));
+            return true;
+        });
+        VitalBLE.setServer(mockServer);
+
+        assertThat(VitalBLE.sendHeartRate(72)).isTrue();
+        int[] rr = new int[12];
+        Arrays.fill(rr, 1000);
+        assertThat(VitalBLE.sendHeartRate(80, 120, rr, HeartRateMeasurement.SensorContact.DETECTED)).isTrue();
+
+        assertThat(notifications).hasSize(3);
+        assertThat(notifications.get(0)).containsExactly(0x00, 72);
+        // 1 + 1 + 2 octets d'énergie puis 8 intervalles RR, les 4 restants sans énergie
+        assertThat(notifications.get(1)).hasSize(20);
+        assertThat(notifications.get(1)[0]).isEqualTo((byte) 0x1E);
+        assertThat(notifications.get(2)).hasSize(10);
+        assertThat(notifications.get(2)[0]).isEqualTo((byte) 0x16);
+        verify(mockServer, never()).sendData(anyString());
+    }
+
+    @Test
+    @DisplayName("sendHeartRate should fail when the notification is too small or the notify fails")
+    void testSendHeartRateFailures() {
+        when(mockServer.startServer(anyString(), anyString())).thenReturn(1);
+        when(mockServer.getChunkSize()).thenReturn(3);
+        when(mockServer.sendBytes(any(byte[].class), anyInt(), anyInt())).thenReturn(false);
+        VitalBLE.setServer(mockServer);
+
+        assertThat(VitalBLE.sendHeartRate(72, new int[] {800})).isFalse(); // aucun intervalle RR ne tient
+        verify(mockServer, never()).sendBytes(any(byte[].class), anyInt(), anyInt());
+        assertThat(VitalBLE.sendHeartRate(72)).isFalse();
+    }
+
+    @Test
+    @DisplayName("sendHeartRate should go through the spill journal and never be suppressed as unchanged")
+    void testSendHeartRateUsesTheSendPath(@TempDir Path journalDir) throws Exception {
+        List<byte[]> notifications = new ArrayList<>();
+        boolean[] linkUp = {false};
+        when(mockServer.startServer(anyString(), anyString())).thenReturn(1);
+        when(mockServer.getChunkSize()).thenReturn(20);
+        when(mockServer.sendBytes(any(byte[].class), anyInt(), anyInt())).thenAnswer(invocation -> {
+            if (!linkUp[0]) {
+                return false;
+            }
+            byte[] data = invocation.getArgument(0);
+            int offset = invocation.getArgument(1);
+            notifications.add(Arrays.copyOfRange(data, offset, offset + (int) invocation.getArgument(2)));
+            return true;
+        });
+        when(mockServer.sendBuffer(any(ByteBuffer.class))).thenAnswer(invocation -> {
+            ByteBuffer data = invocation.getArgument(0);
+            byte[] copy = new byte[data.remaining()];
+            data.duplicate().get(copy);
+            notifications.add(copy);
+            return true;
+        });
+        VitalBLE.setServer(mockServer);
+        VitalBLE.configureSpillJournal(journalDir, 4096, 4);
+        VitalBLE.configureChangeSuppression(1, TimeUnit.HOURS, true);
+
+        assertThat(VitalBLE.sendHeartRate(71)).isTrue(); // lien coupé : journalisé
+        assertThat(VitalBLE.getSpilledPending()).isEqualTo(1);
+
+        linkUp[0] = true;
+        assertThat(VitalBLE.sendHeartRate(72)).isTrue();
+        assertThat(VitalBLE.sendHeartRate(72)).isTrue(); // valeur inchangée : envoyée quand même
+        assertThat(VitalBLE.getSpilledPending()).isZero();
+        assertThat(VitalBLE.getSuppressedSends()).isZero();
+        assertThat(notifications).hasSize(3);
+        assertThat(notifications.get(0)).containsExactly(0x00, 71);
+        assertThat(notifications.get(1)).containsExactly(0x00, 72);
+        assertThat(notifications.get(2)).containsExactly(0x00, 72);
+
+        // La mesure reste la dernière valeur de la caractéristique pour les autres envois
+        assertThat(VitalBLE.sendBytes(new byte[] {0x00, 72})).isTrue();
+        assertThat(VitalBLE.getSuppressedSends()).isEqualTo(1);
+        assertThat(notifications).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("send and shutdown paths should not wait for the VitalBLE class monitor")
+    void testSendPathsTakeNoClassMonitor() throws Exception {
+        when(mockServer.startServer(anyString(), anyString())).thenReturn(1);
+        when(mockServer.getChunkSize()).thenReturn(20);
+        when(mockServer.sendData(anyString())).thenReturn(true);
+        when(mockServer.sendBytes(any(byte[].class), anyInt(), anyInt())).thenReturn(true);
+        VitalBLE.setServer(mockServer);
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            synchronized (VitalBLE.class) {
+                held.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        holder.start();
+        try {
+            assertThat(held.await(5, TimeUnit.SECONDS)).isTrue();
+            CompletableFuture<Boolean> sends = CompletableFuture.supplyAsync(() -> {
+                boolean sent = VitalBLE.sendWaveform(3, new int[] {1, 2, 3})
+                    && VitalBLE.sendAsync("HR:72").join();
+                VitalBLE.shutdown();
+                return sent;
+            });
+            // Le moniteur est tenu par holder : un chemin synchronized resterait bloqué ici
+            assertThat(sends.get(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+    }
+
+    @Test
+    @DisplayName("sendWaveform should send delta-packed frames that decode back to the samples")
+    void testSendWaveform() {
+        List<byte[]> frames = new ArrayList<>();
+        when(mockServer.startServer(anyString(), anyString())).thenReturn(1);
+        when(mockServer.getChunkSize()).thenReturn(20);
+        when(mockServer.sendBytes(any(byte[].class), anyInt(), anyInt())).thenAnswer(invocation -> {
+            byte[] data = invocation.getArgument(0);
+            int offset = invocation.getArgument(1);
+            frames.add(Arrays.copyOfRange(data, offset, offset + (int) invocation.getArgument(2)));
+            return true;
+        });
+        VitalBLE.setServer(mockServer);
+        short[] samples = new short[500];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (1000 + (i % 50) * 3);
+        }
+
+        assertThat(VitalBLE.sendWaveform(4, samples)).isTrue();
+        assertThat(VitalBLE.sendWaveform(4, new int[] {1, 2, 3})).isTrue();
+        assertThat(VitalBLE.sendWaveform(4, (short[]) null)).isFalse();
+
+        WaveformEncoder.Decoder decoder = new WaveformEncoder.Decoder();
+        int[] decoded = new int[samples.length + 3];
+        int position = 0;
+        for (byte[] frame : frames) {
+            assertThat(frame.length).isLessThanOrEqualTo(20);
+            position += decoder.decode(frame, 0, frame.length, decoded, position);
+        }
+        assertThat(position).isEqualTo(samples.length + 3);
+        for (int i = 0; i < samples.length; i++) {
+            assertThat(decoded[i]).isEqualTo(samples[i]);
+        }
+        assertThat(decoder.getLostFrames()).isZero();
+        assertThatThrownBy(() -> VitalBLE.sendWaveform(256, new int[1]))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("waveform frames should fit one notification with framing and compression enabled")
+    void testSendWaveformWithFramingAndCompression() throws Exception {
+        LoopbackBLEServer loopback = new LoopbackBLEServer();
+        loopback.setChunkSize(40);
+        loopback.setBufferDepth(1000);
+        loopback.setFraming(true);
+        loopback.setCompressor(new PayloadCompressor(4096)); // forme stockée : un octet d'en-tête
+        FrameReassembler reassembler = new FrameReassembler(4096);
+        List<byte[]> frames = new CopyOnWriteArrayList<>();
+        List<Integer> incomplete = new CopyOnWriteArrayList<>();
+        loopback.setSubscriber(chunk -> {
+            byte[] wire = reassembler.accept(chunk, 0, chunk.length);
+            if (wire == null) {
+                incomplete.add(chunk.length);
+                return;
+            }
+            try {
+                frames.add(PayloadCompressor.decode(wire, 0, wire.length));
+            } catch (Exception e) {
+                incomplete.add(wire.length);
+            }
+        });
+        VitalBLE.setServer(loopback);
+        short[] samples = new short[500];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) (1000 + (i % 50) * 3);
+        }
+
+        assertThat(VitalBLE.sendWaveform(2, samples)).isTrue();
+        assertThat(loopback.awaitDelivery(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(incomplete).isEmpty();
+        assertThat(loopback.getDeliveredChunks()).isEqualTo(frames.size());
+        WaveformEncoder.Decoder decoder = new WaveformEncoder.Decoder();
+        int[] decoded = new int[samples.length];
+        int position = 0;
+        for (byte[] frame : frames) {
+            position += decoder.decode(frame, 0, frame.length, decoded, position);
+        }
+        assertThat(position).isEqualTo(samples.length);
+        assertThat(decoded[samples.length - 1]).isEqualTo(samples[samples.length - 1]);
+    }
+}
@@ -0,0 +1,141 @@
+package test.java;
+
+import main.java.WaveformEncoder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class WaveformEncoderTest {
+
+    private final List<byte[]> frames = new ArrayList<>();
+
+    private boolean collect(byte[] frame, int offset, int length) {
+        frames.add(Arrays.copyOfRange(frame, offset, offset + length));
+        return true;
+    }
+
+    // Décode toutes les trames collectées, dans l'ordre
+    private int[] decodeAll(WaveformEncoder.Decoder decoder) {
+        int total = 0;
+        for (byte[] frame : frames) {
+            total += WaveformEncoder.Decoder.sampleCount(frame, 0);
+        }
+        int[] samples = new int[total];
+        int position = 0;
+        for (byte[] frame : frames) {
+            position += decoder.decode(frame, 0, frame.length, samples, position);
+        }
+        return samples;
+    }
+
+    // ECG simplifié : ligne de base lente, complexe QRS périodique et bruit
+    private static short[] ecg(int count) {
+        Random random = new Random(7);
+        short[] samples = new short[count];
+        for (int i = 0; i < count; i++) {
+            double t = i / 250.0;
+            double qrs = (i % 200) < 8 ? 900 * Math.sin(Math.PI * (i % 200) / 8) : 0;
+            samples[i] = (short) (200 * Math.sin(2 * Math.PI * 0.3 * t) + qrs + random.nextInt(9) - 4);
+        }
+        return samples;
+    }
+
+    @Test
+    @DisplayName("16-bit samples should round-trip in frames no larger than the chunk size")
+    void testShortRoundTrip() {
+        short[] samples = ecg(5000);
+        WaveformEncoder encoder = new WaveformEncoder(3);
+
+        assertThat(encoder.encode(samples, 0, samples.length, 200, this::collect)).isTrue();
+
+        WaveformEncoder.Decoder decoder = new WaveformEncoder.Decoder();
+        int[] decoded = decodeAll(decoder);
+        assertThat(decoded).hasSize(samples.length);
+        for (int i = 0; i < samples.length; i++) {
+            assertThat(decoded[i]).isEqualTo(samples[i]);
+        }
+        assertThat(frames).allMatch(frame -> frame.length <= 200);
+        int encodedBytes = frames.stream().mapToInt(frame -> frame.length).sum();
+        assertThat(encodedBytes).isLessThan(samples.length); // moins de la moitié des 16 bits bruts
+        assertThat(decoder.getChannel()).isEqualTo(3);
+        assertThat(decoder.getLostFrames()).isZero();
+    }
+
+    @Test
+    @DisplayName("extreme deltas and long constant runs should round-trip")
+    void testExtremeValues() {
+        int[] samples = new int[70_000 + 40];
+        for (int i = 0; i < 40; i++) {
+            samples[70_000 + i] = (i % 2 == 0) ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        }
+        WaveformEncoder encoder = new WaveformEncoder(0);
+
+        assertThat(encoder.encode(samples, 0, samples.length, 20, this::collect)).isTrue();
+
+        assertThat(frames).allMatch(frame -> frame.length <= 20);
+        assertThat(decodeAll(new WaveformEncoder.Decoder())).isEqualTo(samples);
+    }
+
+    @Test
+    @DisplayName("the decoder should count frames missing from the sequence per channel")
+    void testLostFrames() {
+        short[] samples = ecg(3000);
+        new WaveformEncoder(1).encode(samples, 0, samples.length, 64, this::collect);
+        int frameCount = frames.size();
+        List<byte[]> channel2 = new ArrayList<>();
+        new WaveformEncoder(2).encode(samples, 0, 100, 64, (frame, offset, length) ->
+            channel2.add(Arrays.copyOfRange(frame, offset, offset + length)));
+
+        WaveformEncoder.Decoder decoder = new WaveformEncoder.Decoder();
+        int[] dst = new int[samples.length];
+        decoder.decode(channel2.get(0), 0, channel2.get(0).length, dst, 0);
+        for (int i = 0; i < frameCount; i++) {
+            if (i != 2 && i != 3) {
+                byte[] frame = frames.get(i);
+                decoder.decode(frame, 0, frame.length, dst, 0);
+            }
+        }
+
+        assertThat(decoder.getLostFrames()).isEqualTo(2);
+        assertThat(decoder.getChannel()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("encoding should stop when the sink refuses a frame")
+    void testSinkRefusal() {
+        short[] samples = ecg(2000);
+        int[] calls = new int[1];
+
+        boolean sent = new WaveformEncoder(0).encode(samples, 0, samples.length, 32, (frame, offset, length) -> ++calls[0] < 2);
+
+        assertThat(sent).isFalse();
+        assertThat(calls[0]).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("invalid arguments and corrupt frames should be rejected")
+    void testInvalidArguments() {
+        WaveformEncoder encoder = new WaveformEncoder(0);
+        assertThatThrownBy(() -> new WaveformEncoder(256)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> encoder.encode(new int[4], 0, 4, WaveformEncoder.MIN_FRAME_SIZE - 1, this::collect))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> encoder.encode(new short[4], 2, 3, 64, this::collect))
+            .isInstanceOf(IndexOutOfBoundsException.class);
+
+        encoder.encode(new int[] {1, 5, 9, 20, -7}, 0, 5, 64, this::collect);
+        byte[] frame = frames.get(0);
+        WaveformEncoder.Decoder decoder = new WaveformEncoder.Decoder();
+        assertThatThrownBy(() -> decoder.decode(frame, 0, frame.length - 1, new int[5], 0))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> decoder.decode(frame, 0, frame.length, new int[4], 0))
+            .isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> decoder.decode(frame, 0, 3, new int[5], 0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
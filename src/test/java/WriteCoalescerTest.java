@@ -0,0 +1,256 @@
+package test.java;
+
+import main.java.FrameReassembler;
+import main.java.LoopbackBLEServer;
+import main.java.PayloadCompressor;
+import main.java.WriteCoalescer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class WriteCoalescerTest {
+
+    private final LoopbackBLEServer server = new LoopbackBLEServer();
+    private final List<byte[]> messages = new CopyOnWriteArrayList<>();
+    private final List<Integer> chunkSizes = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        WriteCoalescer.Decoder decoder = new WriteCoalescer.Decoder(messages::add);
+        server.setSubscriber(chunk -> {
+            chunkSizes.add(chunk.length);
+            decoder.accept(chunk, 0, chunk.length);
+        });
+        server.setChunkSize(100);
+        server.setBufferDepth(1000);
+        server.startServer("svc", "char");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stopServer();
+    }
+
+    private static byte[] message(int size, int seed) {
+        byte[] message = new byte[size];
+        for (int i = 0; i < size; i++) {
+            message[i] = (byte) (seed + i);
+        }
+        return message;
+    }
+
+    @Test
+    @DisplayName("small messages should share one chunk and keep their boundaries")
+    void testPacksSmallMessages() throws Exception {
+        try (WriteCoalescer coalescer = new WriteCoalescer(server, 1, TimeUnit.HOURS)) {
+            for (int i = 0; i < 10; i++) {
+                assertThat(coalescer.write(message(5, i), 0, 5)).isTrue();
+            }
+            assertThat(coalescer.getPendingBytes()).isEqualTo(60); // 10 x (1 + 5)
+            assertThat(server.getDeliveredChunks()).isZero();
+
+            assertThat(coalescer.flush()).isTrue();
+            assertThat(server.awaitDelivery(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        assertThat(chunkSizes).containsExactly(60);
+        assertThat(messages).hasSize(10);
+        for (int i = 0; i < 10; i++) {
+            assertThat(messages.get(i)).isEqualTo(message(5, i));
+        }
+    }
+
+    @Test
+    @DisplayName("a record that no longer fits should flush the full chunk first")
+    void testFlushesFullChunk() throws Exception {
+        try (WriteCoalescer coalescer = new WriteCoalescer(server, 1, TimeUnit.HOURS)) {
+            for (int i = 0; i < 17; i++) {
+                coalescer.write(message(5, i), 0, 5);
+            }
+            assertThat(server.awaitDelivery(5, TimeUnit.SECONDS)).isTrue();
+
+            // 16 records de 6 octets = 96, le 17e ouvre un nouveau lot
+            assertThat(chunkSizes).containsExactly(96);
+            assertThat(messages).hasSize(16);
+            assertThat(coalescer.getPendingBytes()).isEqualTo(6);
+        }
+        assertThat(server.awaitDelivery(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(messages).hasSize(17);
+    }
+
+    @Test
+    @DisplayName("the max-delay timer should flush a partial chunk")
+    void testTimerFlush() throws Exception {
+        try (WriteCoalescer coalescer = new WriteCoalescer(server, 500, TimeUnit.MICROSECONDS)) {
+            assertThat(coalescer.getMaxDelayNanos()).isEqualTo(500_000);
+            assertThat(coalescer.write(ByteBuffer.wrap(new byte[] {7, 8, 9}))).isTrue();
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (messages.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertThat(messages).hasSize(1);
+            assertThat(messages.get(0)).containsExactly(7, 8, 9);
+            assertThat(coalescer.getPendingBytes()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("messages larger than a chunk should be decoded across notifications")
+    void testLargeMessages() throws Exception {
+        byte[] small = message(3, 1);
+        byte[] boundary = message(128, 2); // premier record à longueur sur deux octets
+        byte[] large = message(1000, 3);
+
+        try (WriteCoalescer coalescer = new WriteCoalescer(server, 1, TimeUnit.HOURS)) {
+            coalescer.write(small, 0, small.length);
+            coalescer.write(boundary, 0, boundary.length);
+            coalescer.write(large, 0, large.length);
+            coalescer.write(small, 0, small.length);
+        }
+        assertThat(server.awaitDelivery(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(chunkSizes).allMatch(size -> size <= 100);
+        assertThat(messages).hasSize(4);
+        assertThat(messages.get(0)).isEqualTo(small);
+        assertThat(messages.get(1)).isEqualTo(boundary);
+        assertThat(messages.get(2)).isEqualTo(large);
+        assertThat(messages.get(3)).isEqualTo(small);
+    }
+
+    @Test
+    @DisplayName("failed flushes should be counted and a closed coalescer should refuse writes")
+    void testFailuresAndClose() {
+        WriteCoalescer coalescer = new WriteCoalescer(server, 1, TimeUnit.HOURS);
+        server.stopServer();
+
+        assertThat(coalescer.write(new byte[100], 0, 100)).isFalse(); // remplit le chunk, envoi refusé
+        assertThat(coalescer.getFailedFlushes()).isEqualTo(1);
+        assertThat(coalescer.write(new byte[1], 0, 1)).isTrue();
+
+        coalescer.close();
+        assertThat(coalescer.getFailedFlushes()).isEqualTo(2);
+        assertThat(coalescer.write(new byte[1], 0, 1)).isFalse();
+        assertThat(coalescer.getPendingBytes()).isZero();
+    }
+
+    @Test
+    @DisplayName("messages of a failed timer flush should be handed to the failure handler")
+    void testFailureHandler() throws Exception {
+        List<byte[]> failed = new CopyOnWriteArrayList<>();
+        try (WriteCoalescer coalescer = new WriteCoalescer(server, 500, TimeUnit.MICROSECONDS)) {
+            coalescer.setFailureHandler(failed::add);
+            server.stopServer();
+
+            // Accepté : l'échec du timer arrive après le retour de write()
+            assertThat(coalescer.write(new byte[] {1, 2}, 0, 2)).isTrue();
+            assertThat(coalescer.write(ByteBuffer.wrap(new byte[] {3}))).isTrue();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (failed.size() < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertThat(coalescer.getFailedFlushes()).isEqualTo(1);
+
+            // Avec un gestionnaire, write() ne signale plus l'échec d'un lot plein
+            assertThat(coalescer.write(new byte[100], 0, 100)).isTrue();
+        }
+        assertThat(failed).hasSize(3);
+        assertThat(failed.get(0)).containsExactly(1, 2);
+        assertThat(failed.get(1)).containsExactly(3);
+        assertThat(failed.get(2)).hasSize(100);
+    }
+
+    @Test
+    @DisplayName("with framing, a batch lost halfway should not corrupt the following ones")
+    void testDecoderResyncWithFraming() throws Exception {
+        List<byte[]> decoded = new CopyOnWriteArrayList<>();
+        WriteCoalescer.Decoder decoder = new WriteCoalescer.Decoder(decoded::add);
+        FrameReassembler reassembler = new FrameReassembler(4096);
+        List<Boolean> batches = new CopyOnWriteArrayList<>();
+        server.setSubscriber(chunk -> {
+            byte[] batch = reassembler.accept(chunk, 0, chunk.length);
+            if (batch != null) {
+                batches.add(decoder.acceptBatch(batch, 0, batch.length));
+            }
+        });
+        server.setFraming(true);
+
+        try (WriteCoalescer coalescer = new WriteCoalescer(server, 1, TimeUnit.HOURS)) {
+            coalescer.write(message(150, 1), 0, 150); // un record sur deux chunks tramés
+            coalescer.write(message(5, 2), 0, 5);
+        }
+        assertThat(server.awaitDelivery(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(batches).containsExactly(true, true);
+        assertThat(decoded).hasSize(2);
+        assertThat(decoded.get(1)).isEqualTo(message(5, 2));
+
+        // Lot tronqué (chunk perdu) : rejeté sans décaler le décodage du suivant
+        assertThat(decoder.acceptBatch(new byte[] {5, 1, 2}, 0, 3)).isFalse();
+        assertThat(decoder.acceptBatch(new byte[] {2, 9, 9}, 0, 3)).isTrue();
+        assertThat(decoded.get(2)).containsExactly(9, 9);
+
+        // Flux brut : reset() abandonne le record entamé
+        decoder.accept(new byte[] {4, 1}, 0, 2);
+        decoder.reset();
+        decoder.accept(new byte[] {1, 7}, 0, 2);
+        assertThat(decoded.get(3)).containsExactly(7);
+    }
+
+    @Test
+    @DisplayName("with framing and compression, every batch should still fit in one chunk")
+    void testBatchFitsWithFramingAndCompression() throws Exception {
+        List<byte[]> decoded = new CopyOnWriteArrayList<>();
+        WriteCoalescer.Decoder decoder = new WriteCoalescer.Decoder(decoded::add);
+        FrameReassembler reassembler = new FrameReassembler(4096);
+        List<Boolean> batches = new CopyOnWriteArrayList<>();
+        server.setSubscriber(chunk -> {
+            byte[] wire = reassembler.accept(chunk, 0, chunk.length);
+            try {
+                // Chaque chunk doit porter un lot complet
+                byte[] batch = PayloadCompressor.decode(wire, 0, wire.length);
+                batches.add(decoder.acceptBatch(batch, 0, batch.length));
+            } catch (Exception e) {
+                batches.add(false);
+            }
+        });
+        server.setFraming(true);
+        server.setCompressor(new PayloadCompressor(4096)); // forme stockée : un octet d'en-tête
+
+        try (WriteCoalescer coalescer = new WriteCoalescer(server, 1, TimeUnit.HOURS)) {
+            for (int i = 0; i < 100; i++) {
+                coalescer.write(message(1, i), 0, 1);
+            }
+        }
+        assertThat(server.awaitDelivery(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(batches).isNotEmpty().containsOnly(true);
+        assertThat(server.getDeliveredChunks()).isEqualTo(batches.size());
+        assertThat(decoded).hasSize(100);
+        assertThat(decoded.get(99)).isEqualTo(message(1, 99));
+    }
+
+    @Test
+    @DisplayName("invalid arguments and corrupt lengths should be rejected")
+    void testInvalidArguments() {
+        assertThatThrownBy(() -> new WriteCoalescer(server, 0, TimeUnit.MILLISECONDS))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new WriteCoalescer(null, 1, TimeUnit.MILLISECONDS))
+            .isInstanceOf(NullPointerException.class);
+        try (WriteCoalescer coalescer = new WriteCoalescer(server, 1, TimeUnit.MILLISECONDS)) {
+            assertThatThrownBy(() -> coalescer.write(new byte[4], 2, 3))
+                .isInstanceOf(IndexOutOfBoundsException.class);
+        }
+
+        WriteCoalescer.Decoder decoder = new WriteCoalescer.Decoder(messages::add);
+        byte[] corrupt = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF};
+        assertThatThrownBy(() -> decoder.accept(corrupt, 0, corrupt.length))
+            .isInstanceOf(IllegalStateException.class);
+    }
+}
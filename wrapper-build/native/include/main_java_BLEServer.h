@@ -31,6 +31,54 @@ JNIEXPORT void JNICALL Java_main_java_BLEServer_nativeStopServer
 JNIEXPORT jint JNICALL Java_main_java_BLEServer_nativeNotify
   (JNIEnv *, jobject, jbyteArray);
 
+/*
+ * Class:     main_java_BLEServer
+ * Method:    nativeNotifyDirect
+ * Signature: (Ljava/nio/ByteBuffer;II)I
+ */
+JNIEXPORT jint JNICALL Java_main_java_BLEServer_nativeNotifyDirect
+  (JNIEnv *, jobject, jobject, jint, jint);
+
+/*
+ * Class:     main_java_BLEServer
+ * Method:    nativeNotifyBatch
+ * Signature: ([BIII)I
+ */
+JNIEXPORT jint JNICALL Java_main_java_BLEServer_nativeNotifyBatch
+  (JNIEnv *, jobject, jbyteArray, jint, jint, jint);
+
+/*
+ * Class:     main_java_BLEServer
+ * Method:    nativeNotifyRange
+ * Signature: ([BII)I
+ */
+JNIEXPORT jint JNICALL Java_main_java_BLEServer_nativeNotifyRange
+  (JNIEnv *, jobject, jbyteArray, jint, jint);
+
+/*
+ * Class:     main_java_BLEServer
+ * Method:    nativeGetMtu
+ * Signature: ()I
+ */
+JNIEXPORT jint JNICALL Java_main_java_BLEServer_nativeGetMtu
+  (JNIEnv *, jobject);
+
+/*
+ * Class:     main_java_BLEServer
+ * Method:    nativeNotifySubscriber
+ * Signature: (I[BII)I
+ */
+JNIEXPORT jint JNICALL Java_main_java_BLEServer_nativeNotifySubscriber
+  (JNIEnv *, jobject, jint, jbyteArray, jint, jint);
+
+/*
+ * Class:     main_java_BLEServer
+ * Method:    nativeGetSubscribers
+ * Signature: ()[I
+ */
+JNIEXPORT jintArray JNICALL Java_main_java_BLEServer_nativeGetSubscribers
+  (JNIEnv *, jobject);
+
 #ifdef __cplusplus
 }
 #endif
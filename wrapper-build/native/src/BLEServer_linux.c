@@ -4,6 +4,9 @@
 #include <string.h>
 #include "../include/main_java_BLEServer.h"
 
+/* MTU ATT négocié avec le central (0 = inconnu) */
+static jint negotiated_mtu = 0;
+
 /*
  * Template pour l'implémentation Linux BLE Server
  * Vous devrez implémenter les fonctions BLE réelles avec BlueZ ou une autre bibliothèque
@@ -74,4 +77,225 @@ JNIEXPORT jint JNICALL Java_main_java_BLEServer_nativeNotify
     
     // Retourner 0 pour succès, -1 pour échec
     return -1; // Échec pour l'instant
-}
\ No newline at end of file
+}
+
+/*
+ * Class:     main_java_BLEServer
+ * Method:    nativeNotifyDirect
+ * Signature: (Ljava/nio/ByteBuffer;II)I
+ */
+JNIEXPORT jint JNICALL Java_main_java_BLEServer_nativeNotifyDirect
+  (JNIEnv *env, jobject obj, jobject buffer, jint offset, jint length) {
+    
+    // TODO: Implémenter l'envoi de notification BLE
+    printf("BLEServer Linux: nativeNotifyDirect appelé\n");
+    
+    // Lire directement la mémoire du DirectByteBuffer, sans copie ni pinning
+    jbyte *base = (jbyte *) (*env)->GetDirectBufferAddress(env, buffer);
+    jlong capacity = (*env)->GetDirectBufferCapacity(env, buffer);
+    
+    if (base == NULL || offset < 0 || length < 0 || (jlong) offset + length > capacity) {
+        return -1;
+    }
+    
+    jbyte *body = base + offset;
+    
+    printf("Données à envoyer (%d bytes): ", length);
+    for (int i = 0; i < length && i < 10; i++) {
+        printf("%02X ", (unsigned char)body[i]);
+    }
+    printf("\n");
+    
+    // Retourner 0 pour succès, -1 pour échec
+    return -1; // Échec pour l'instant
+}
+
+/*
+ * Class:     main_java_BLEServer
+ * Method:    nativeNotifyBatch
+ * Signature: ([BIII)I
+ *
+ * Envoie tous les chunks d'un payload en une seule traversée JNI, sans temporisation :
+ * Java ne passe que les chunks que sa stratégie de pacing autorise d'affilée.
+ * Retourne l'index du premier chunk en échec, ou le nombre de chunks si tout est parti.
+ */
+JNIEXPORT jint JNICALL Java_main_java_BLEServer_nativeNotifyBatch
+  (JNIEnv *env, jobject obj, jbyteArray payload, jint offset, jint length, jint chunkSize) {
+    
+    printf("BLEServer Linux: nativeNotifyBatch appelé\n");
+    
+    jsize size = (*env)->GetArrayLength(env, payload);
+    if (offset < 0 || length < 0 || chunkSize <= 0 || offset > size - length) {
+        return 0;
+    }
+    
+    // Un seul tampon pour tous les chunks, rempli par copie de région (pas de pinning du tableau)
+    jbyte *chunk = (jbyte *) malloc((size_t) chunkSize);
+    if (chunk == NULL) {
+        return 0;
+    }
+    
+    jint index = 0;
+    for (jint pos = 0; pos < length; pos += chunkSize, index++) {
+        jint len = (length - pos < chunkSize) ? (length - pos) : chunkSize;
+        (*env)->GetByteArrayRegion(env, payload, offset + pos, len, chunk);
+        
+        // TODO: Implémenter l'envoi de notification BLE
+        printf("Chunk %d (%d bytes)\n", index, len);
+        int result = -1; // Échec pour l'instant
+        
+        if (result != 0) {
+            break;
+        }
+    }
+    
+    free(chunk);
+    return index;
+}
+
+/*
+ * Class:     main_java_BLEServer
+ * Method:    nativeNotifyRange
+ * Signature: ([BII)I
+ *
+ * Notification d'une région du tableau : Java n'a pas à allouer un tableau par chunk.
+ */
+JNIEXPORT jint JNICALL Java_main_java_BLEServer_nativeNotifyRange
+  (JNIEnv *env, jobject obj, jbyteArray data, jint offset, jint length) {
+    
+    // TODO: Implémenter l'envoi de notification BLE
+    printf("BLEServer Linux: nativeNotifyRange appelé\n");
+    
+    jsize size = (*env)->GetArrayLength(env, data);
+    if (offset < 0 || length < 0 || offset > size - length) {
+        return -1;
+    }
+    
+    // Copie de la seule région utile dans un tampon de pile (taille max d'une valeur ATT)
+    jbyte stackBuffer[517];
+    jbyte *body = stackBuffer;
+    if (length > (jint) sizeof(stackBuffer)) {
+        body = (jbyte *) malloc((size_t) length);
+        if (body == NULL) {
+            return -1;
+        }
+    }
+    (*env)->GetByteArrayRegion(env, data, offset, length, body);
+    
+    printf("Données à envoyer (%d bytes): ", length);
+    for (int i = 0; i < length && i < 10; i++) {
+        printf("%02X ", (unsigned char)body[i]);
+    }
+    printf("\n");
+    
+    if (body != stackBuffer) {
+        free(body);
+    }
+    
+    // Retourner 0 pour succès, -1 pour échec
+    return -1; // Échec pour l'instant
+}
+
+/*
+ * Class:     main_java_BLEServer
+ * Method:    nativeGetMtu
+ * Signature: ()I
+ */
+JNIEXPORT jint JNICALL Java_main_java_BLEServer_nativeGetMtu
+  (JNIEnv *env, jobject obj) {
+    
+    // TODO: Lire le MTU de la connexion BlueZ (org.bluez.GattCharacteristic1.MTU)
+    return negotiated_mtu;
+}
+
+/*
+ * Class:     main_java_BLEServer
+ * Method:    nativeNotifySubscriber
+ * Signature: (I[BII)I
+ *
+ * Notification d'une région du tableau à un seul central (identifiant donné à onSubscribed).
+ */
+JNIEXPORT jint JNICALL Java_main_java_BLEServer_nativeNotifySubscriber
+  (JNIEnv *env, jobject obj, jint subscriberId, jbyteArray data, jint offset, jint length) {
+    
+    // TODO: Implémenter l'envoi vers le seul central subscriberId (BlueZ : NotifyValue ciblé sur la connexion)
+    printf("BLEServer Linux: nativeNotifySubscriber appelé (abonné %d)\n", subscriberId);
+    
+    jsize size = (*env)->GetArrayLength(env, data);
+    if (offset < 0 || length < 0 || offset > size - length) {
+        return -1;
+    }
+    
+    jbyte stackBuffer[517];
+    jbyte *body = stackBuffer;
+    if (length > (jint) sizeof(stackBuffer)) {
+        body = (jbyte *) malloc((size_t) length);
+        if (body == NULL) {
+            return -1;
+        }
+    }
+    (*env)->GetByteArrayRegion(env, data, offset, length, body);
+    
+    printf("Données à envoyer (%d bytes): ", length);
+    for (int i = 0; i < length && i < 10; i++) {
+        printf("%02X ", (unsigned char)body[i]);
+    }
+    printf("\n");
+    
+    if (body != stackBuffer) {
+        free(body);
+    }
+    
+    // Retourner 0 pour succès, -1 pour échec
+    return -1; // Échec pour l'instant
+}
+
+/*
+ * Class:     main_java_BLEServer
+ * Method:    nativeGetSubscribers
+ * Signature: ()[I
+ *
+ * Identifiants des centraux déjà abonnés au démarrage du serveur.
+ */
+JNIEXPORT jintArray JNICALL Java_main_java_BLEServer_nativeGetSubscribers
+  (JNIEnv *env, jobject obj) {
+    
+    // TODO: Lister les connexions BlueZ dont la notification est activée
+    return (*env)->NewIntArray(env, 0);
+}
+
+/*
+ * À appeler depuis la pile BLE quand un central active ou désactive les notifications
+ * (désabonnement ou déconnexion) : prévient BLEServer.onSubscribed / onUnsubscribed.
+ */
+static void ble_server_subscription_event(JNIEnv *env, jobject server, const char *method, jint subscriberId) {
+    jclass cls = (*env)->GetObjectClass(env, server);
+    jmethodID callback = (*env)->GetMethodID(env, cls, method, "(I)V");
+    if (callback != NULL) {
+        (*env)->CallVoidMethod(env, server, callback, subscriberId);
+    }
+    (*env)->DeleteLocalRef(env, cls);
+}
+
+void ble_server_subscribed(JNIEnv *env, jobject server, jint subscriberId) {
+    ble_server_subscription_event(env, server, "onSubscribed", subscriberId);
+}
+
+void ble_server_unsubscribed(JNIEnv *env, jobject server, jint subscriberId) {
+    ble_server_subscription_event(env, server, "onUnsubscribed", subscriberId);
+}
+
+/*
+ * À appeler depuis la pile BLE quand un central renégocie le MTU :
+ * met à jour la valeur et prévient BLEServer.onMtuChanged(int).
+ */
+void ble_server_mtu_changed(JNIEnv *env, jobject server, jint mtu) {
+    negotiated_mtu = mtu;
+    
+    jclass cls = (*env)->GetObjectClass(env, server);
+    jmethodID onMtuChanged = (*env)->GetMethodID(env, cls, "onMtuChanged", "(I)V");
+    if (onMtuChanged != NULL) {
+        (*env)->CallVoidMethod(env, server, onMtuChanged, mtu);
+    }
+    (*env)->DeleteLocalRef(env, cls);
+}